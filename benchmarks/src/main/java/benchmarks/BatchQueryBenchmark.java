@@ -0,0 +1,76 @@
+package benchmarks;
+
+import algorithm.AStarEngine;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.GreatCircleHeuristic;
+import algorithm.RouteQueryService;
+import algorithm.RouteQueryService.RouteRequest;
+import model.CsrGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Batches of queries over one shared graph through RouteQueryService, per executor size
+// ("virtual" = one virtual thread per query). Scores are per query.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class BatchQueryBenchmark {
+
+    private static final int BATCH = 256;
+
+    @Param({"grid"})
+    public String shape;
+
+    @Param({"100000"})
+    public int nodes;
+
+    @Param({"1", "2", "4", "8", "virtual"})
+    public String threads;
+
+    private RouteQueryService service;
+    private List<RouteRequest> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CsrGraph graph = SyntheticGraphs.generate(shape, nodes);
+        AStarEngine engine = new AStarEngine(graph, new GreatCircleHeuristic(graph));
+        service = threads.equals("virtual")
+                ? RouteQueryService.withVirtualThreads(engine)
+                : RouteQueryService.withThreads(engine, Integer.parseInt(threads));
+        int[][] pairs = SyntheticGraphs.randomPairs(graph, BATCH);
+        batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(new RouteRequest(pairs[0][i], pairs[1][i]));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<PathResult> routeBatch() {
+        return service.routeAll(batch);
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import model.Edge;
+import model.Graph;
+import model.IndexedGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+// Loading the bundled city map and synthetic JSON dumps, and materialising getEdges()
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class GraphLoadBenchmark {
+
+    @Param({"grid", "geometric"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000"})
+    public int nodes;
+
+    private Path nodesFile;
+    private Path edgesFile;
+    private Graph loaded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        IndexedGraph graph = SyntheticGraphs.generate(shape, nodes);
+        nodesFile = Files.createTempFile("bench-nodes", ".json");
+        edgesFile = Files.createTempFile("bench-edges", ".json");
+        SyntheticGraphs.writeJson(graph, nodesFile, edgesFile);
+        loaded = new Graph();
+        loaded.load(graph);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(nodesFile);
+        Files.deleteIfExists(edgesFile);
+    }
+
+    // Independent of the parameters; JMH still runs it once per combination
+    @Benchmark
+    public Graph loadBundledResources() throws IOException {
+        Graph graph = new Graph();
+        graph.loadFromJSONResources("/data/nodes.json", "/data/edges.json");
+        return graph;
+    }
+
+    @Benchmark
+    public Graph loadSyntheticJson() throws IOException {
+        Graph graph = new Graph();
+        graph.loadFromJSONFiles(nodesFile, edgesFile);
+        return graph;
+    }
+
+    @Benchmark
+    public Collection<Edge> getEdges() {
+        return loaded.getEdges();
+    }
+}
@@ -0,0 +1,102 @@
+package benchmarks;
+
+import algorithm.DijkstraAlgorithm;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.DijkstraAlgorithm.SimulationResult;
+import algorithm.RingBufferStepRecorder;
+import algorithm.StepListener;
+import model.CsrGraph;
+import model.Graph;
+import model.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Single point-to-point queries on one thread: the int fast path, the Node API without
+// recording, with a bounded ring-buffer recorder, and with full step recording (as the UI does)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class QueryBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    @Param({"grid", "geometric"})
+    public String shape;
+
+    @Param({"1000", "100000", "1000000"})
+    public int nodes;
+
+    private DijkstraAlgorithm dijkstra;
+    private int[] sources;
+    private int[] targets;
+    private Node[] sourceNodes;
+    private Node[] targetNodes;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+        final RingBufferStepRecorder recorder = new RingBufferStepRecorder(4096);
+
+        int advance() {
+            next = (next + 1) & (PAIRS - 1);
+            return next;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CsrGraph csr = SyntheticGraphs.generate(shape, nodes);
+        Graph graph = new Graph();
+        graph.load(csr);
+        dijkstra = new DijkstraAlgorithm(graph);
+        int[][] pairs = SyntheticGraphs.randomPairs(csr, PAIRS);
+        sources = pairs[0];
+        targets = pairs[1];
+        sourceNodes = new Node[PAIRS];
+        targetNodes = new Node[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            sourceNodes[i] = csr.node(sources[i]);
+            targetNodes[i] = csr.node(targets[i]);
+        }
+    }
+
+    @Benchmark
+    public PathResult fastPath(Cursor cursor) {
+        int i = cursor.advance();
+        return dijkstra.findShortestPath(sources[i], targets[i]);
+    }
+
+    @Benchmark
+    public PathResult nodeApiNoRecording(Cursor cursor) {
+        int i = cursor.advance();
+        return dijkstra.findShortestPath(sourceNodes[i], targetNodes[i], StepListener.NONE);
+    }
+
+    @Benchmark
+    public PathResult ringBufferRecording(Cursor cursor) {
+        int i = cursor.advance();
+        cursor.recorder.clear();
+        return dijkstra.findShortestPath(sourceNodes[i], targetNodes[i], cursor.recorder);
+    }
+
+    @Benchmark
+    public SimulationResult fullRecording(Cursor cursor) {
+        int i = cursor.advance();
+        return dijkstra.findShortestPathWithSimulation(sourceNodes[i], targetNodes[i]);
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import model.CsrGraph;
+import model.IndexedGraph;
+import model.Node;
+import model.RoadNetworkGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Shared fixtures: deterministic synthetic networks (fixed seeds), query pairs and JSON dumps
+// in the same layout as the bundled data files.
+final class SyntheticGraphs {
+
+    static final long SEED = 42L;
+    private static final double SPACING_METERS = 150.0;
+
+    private SyntheticGraphs() {}
+
+    // shape "grid" (square street grid, 5% of streets missing) or "geometric" (random geometric,
+    // average degree 6; below ~4.5 such graphs fall apart into small components)
+    static CsrGraph generate(String shape, int nodes) {
+        return switch (shape) {
+            case "grid" -> {
+                int side = (int) Math.ceil(Math.sqrt(nodes));
+                yield RoadNetworkGenerator.grid(side, side, SPACING_METERS, 0.05, SEED);
+            }
+            case "geometric" -> RoadNetworkGenerator.randomGeometric(nodes, SPACING_METERS, 6.0, SEED);
+            default -> throw new IllegalArgumentException("Unknown graph shape: " + shape);
+        };
+    }
+
+    // count random (source, target) id pairs as two parallel arrays
+    static int[][] randomPairs(IndexedGraph graph, int count) {
+        Random random = new Random(SEED);
+        int[][] pairs = new int[2][count];
+        for (int i = 0; i < count; i++) {
+            pairs[0][i] = random.nextInt(graph.nodeCount());
+            pairs[1][i] = random.nextInt(graph.nodeCount());
+        }
+        return pairs;
+    }
+
+    static void writeJson(IndexedGraph graph, Path nodesFile, Path edgesFile) throws IOException {
+        JsonFactory json = new JsonFactory();
+        try (JsonGenerator out = json.createGenerator(nodesFile.toFile(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+            for (int i = 0; i < graph.nodeCount(); i++) {
+                Node node = graph.node(i);
+                out.writeStartObject();
+                out.writeStringField("name", node.getName());
+                out.writeNumberField("latitude", node.getLatitude());
+                out.writeNumberField("longitude", node.getLongitude());
+                out.writeNumberField("screenX", node.getScreenX());
+                out.writeNumberField("screenY", node.getScreenY());
+                out.writeEndObject();
+            }
+            out.writeEndArray();
+        }
+        try (JsonGenerator out = json.createGenerator(edgesFile.toFile(), JsonEncoding.UTF8)) {
+            out.writeStartArray();
+            for (int u = 0; u < graph.nodeCount(); u++) {
+                String from = graph.node(u).getName();
+                for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                    out.writeStartObject();
+                    out.writeStringField("nodeA", from);
+                    out.writeStringField("nodeB", graph.node(graph.target(e)).getName());
+                    out.writeNumberField("distance", graph.weight(e));
+                    out.writeEndObject();
+                }
+            }
+            out.writeEndArray();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import metrics.EngineMetrics;
+import metrics.QueryEvent;
+import metrics.RoutingMetrics;
+import model.IndexedGraph;
+
+// Unidirectional A*: Dijkstra ordered by dist(s, v) + h(v, t).
+// With a consistent heuristic every node is settled at most once, and the search expands
+// only the part of the graph that leans toward the target instead of the whole ball around s.
+public final class AStarEngine implements ShortestPathEngine {
+
+    private static final EngineMetrics METRICS = RoutingMetrics.engine("astar");
+
+    private final IndexedGraph graph;
+    private final Heuristic heuristic;
+
+    public AStarEngine(IndexedGraph graph, Heuristic heuristic) {
+        this.graph = graph;
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public PathResult findShortestPath(int source, int target, SearchWorkspace workspace) {
+        IndexedGraph g = graph;
+        DijkstraAlgorithm.checkNode(g, source);
+        DijkstraAlgorithm.checkNode(g, target);
+
+        QueryEvent event = RoutingMetrics.ENABLED ? METRICS.begin(source, target) : null;
+        workspace.begin(g.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, heuristic.lowerBound(source, target));
+        int settled = 0;
+        long relaxed = 0;
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settled++;
+            if (current == target) {
+                break;
+            }
+            double currentDist = workspace.distance(current);
+            if (RoutingMetrics.ENABLED) {
+                relaxed += g.endEdge(current) - g.firstEdge(current);
+            }
+            for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                int neighbor = g.target(e);
+                double newDist = currentDist + g.weight(e);
+                if (newDist < workspace.distance(neighbor)) {
+                    double bound = heuristic.lowerBound(neighbor, target);
+                    if (bound == Double.POSITIVE_INFINITY) {
+                        continue; // the target cannot be reached through this node
+                    }
+                    workspace.update(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist + bound);
+                }
+            }
+        }
+        PathResult result = DijkstraAlgorithm.buildPath(g, workspace, source, target, settled);
+        if (RoutingMetrics.ENABLED) {
+            workspace.finishQuery(METRICS, event, relaxed, false, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+package algorithm;
+
+import model.IndexedGraph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// All-pairs shortest distances for small and medium graphs, one full Dijkstra per source row in
+// parallel. Each finished row goes straight to the file with a positional write, so memory is
+// one row buffer per worker rather than the V x V matrix; a 20k-node graph makes a 3.2 GB file
+// and needs a few hundred KB of heap. The file layout is that of DistanceMatrix.mapped(): row
+// after row of little-endian doubles, +Infinity for unreachable pairs.
+public final class AllPairsDriver {
+
+    private static final int ROWS_PER_TASK = 4;
+
+    private final IndexedGraph graph;
+    private final ForkJoinPool pool;
+    private final ConcurrentLinkedQueue<RowWriter> writers = new ConcurrentLinkedQueue<>();
+
+    public AllPairsDriver(IndexedGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    // Writes the nodeCount x nodeCount matrix to file (replacing it) and returns its size in bytes
+    public long writeMatrix(Path file) throws IOException {
+        int n = graph.nodeCount();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            try {
+                pool.invoke(new RowRange(channel, 0, n));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            channel.force(false);
+            return channel.size();
+        }
+    }
+
+    // Row `source` of a matrix written by writeMatrix
+    public static double[] readRow(Path file, int source, int n) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(n * 8).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = (long) source * n * 8;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Matrix file ends before row " + source);
+                }
+            }
+        }
+        buffer.flip();
+        double[] row = new double[n];
+        buffer.asDoubleBuffer().get(row);
+        return row;
+    }
+
+    // A worker's search workspace and row buffer, reused across rows
+    private static final class RowWriter {
+        final SearchWorkspace workspace = new SearchWorkspace();
+        final ByteBuffer row;
+
+        RowWriter(int n) {
+            row = ByteBuffer.allocateDirect(n * 8).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class RowRange extends RecursiveAction {
+        private final FileChannel channel;
+        private final int from;
+        private final int to;
+
+        RowRange(FileChannel channel, int from, int to) {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowRange(channel, from, mid), new RowRange(channel, mid, to));
+                return;
+            }
+            int n = graph.nodeCount();
+            RowWriter writer = writers.poll();
+            if (writer == null) {
+                writer = new RowWriter(n);
+            }
+            try {
+                for (int source = from; source < to; source++) {
+                    ShortestPathTree tree = ShortestPathTree.compute(graph, source, writer.workspace);
+                    ByteBuffer row = writer.row;
+                    row.clear();
+                    for (int v = 0; v < n; v++) {
+                        row.putDouble(tree.distance(v));
+                    }
+                    row.flip();
+                    long position = (long) source * n * 8;
+                    while (row.hasRemaining()) {
+                        channel.write(row, position + row.position());
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                writers.offer(writer);
+            }
+        }
+    }
+}
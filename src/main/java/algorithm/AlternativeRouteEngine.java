@@ -0,0 +1,446 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import model.IndexedGraph;
+import model.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Several routes between the same two nodes instead of one.
+//
+// kShortest(): Yen's k shortest loopless paths, exact and in order of length. Every spur search
+// is an A* whose heuristic is the exact distance to the target from one reverse shortest-path
+// tree built at the start of the query; removing edges and nodes only makes paths longer, so the
+// bound stays admissible, and a spur search whose tree path is not blocked settles little more
+// than that path. The tree, the search workspace and the ban marks are shared by all spur searches.
+//
+// alternatives(): via-node alternatives from plateaus (Cambridge Vehicle Information Technology's
+// "choice routing"), much cheaper: one forward search from the source and one backward search
+// from the target, limited to paths within maxStretch times the shortest distance. A node v reached by
+// both gives the route source -> v along the forward tree, then v -> target along the backward
+// tree; where the two trees share a stretch of road (a plateau), every node on it gives the same
+// route, so each plateau is one candidate. Long plateaus make natural alternatives (a different
+// road that is itself a shortest path), so candidates are tried longest plateau first and accepted
+// if they are loopless, within maxStretch of the shortest route and share at most maxOverlap of
+// their length with the routes already accepted. The first route is always the shortest one.
+public final class AlternativeRouteEngine {
+
+    private final IndexedGraph graph;
+    private final IndexedGraph reverse;
+    private final ConcurrentLinkedQueue<Marks> marks = new ConcurrentLinkedQueue<>();
+
+    public AlternativeRouteEngine(IndexedGraph graph) {
+        this.graph = graph;
+        this.reverse = graph.reverse();
+    }
+
+    public List<PathResult> kShortest(int source, int target, int k) {
+        return kShortest(source, target, k, SearchWorkspace.forCurrentThread());
+    }
+
+    public List<PathResult> alternatives(int source, int target, int maxRoutes, double maxOverlap, double maxStretch) {
+        return alternatives(source, target, maxRoutes, maxOverlap, maxStretch, SearchWorkspace.forCurrentThread());
+    }
+
+    // Up to k loopless routes, shortest first; empty if target is unreachable.
+    // The workspace must not be used by another search at the same time.
+    public List<PathResult> kShortest(int source, int target, int k, SearchWorkspace workspace) {
+        DijkstraAlgorithm.checkNode(graph, source);
+        DijkstraAlgorithm.checkNode(graph, target);
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        ShortestPathTree toTarget = ShortestPathTree.compute(reverse, target, workspace.backward());
+        if (toTarget.distance(source) == Double.POSITIVE_INFINITY) {
+            return List.of();
+        }
+        Marks scratch = takeMarks();
+        try {
+            List<Route> accepted = new ArrayList<>();
+            PriorityQueue<Route> candidates = new PriorityQueue<>((a, b) -> a.cost != b.cost
+                    ? Double.compare(a.cost, b.cost) : Integer.compare(a.edges.length, b.edges.length));
+            Set<Route> seen = new HashSet<>();
+            Route first = treeRoute(source, target, toTarget, toTarget.settledNodes());
+            accepted.add(first);
+            seen.add(first);
+            while (accepted.size() < k) {
+                Route previous = accepted.get(accepted.size() - 1);
+                for (int i = 0; i < previous.edges.length; i++) {
+                    scratch.nextBan();
+                    for (int j = 0; j < i; j++) {
+                        scratch.banNode(previous.nodes[j]);
+                    }
+                    for (Route route : accepted) {
+                        if (route.edges.length > i && Arrays.equals(route.edges, 0, i, previous.edges, 0, i)) {
+                            scratch.banEdge(route.edges[i]);
+                        }
+                    }
+                    Route spur = spurRoute(previous, i, target, toTarget, scratch, workspace);
+                    if (spur != null && seen.add(spur)) {
+                        candidates.add(spur);
+                    }
+                }
+                Route next = candidates.poll();
+                if (next == null) {
+                    break;
+                }
+                accepted.add(next);
+            }
+            List<PathResult> results = new ArrayList<>(accepted.size());
+            for (Route route : accepted) {
+                results.add(route.toResult(graph));
+            }
+            return results;
+        } finally {
+            marks.offer(scratch);
+        }
+    }
+
+    // Up to maxRoutes routes, the shortest first, then plateau alternatives (see above); empty if
+    // target is unreachable. maxOverlap is a fraction of a route's length (e.g. 0.5), maxStretch a
+    // factor of the shortest distance (e.g. 1.3). Uses the workspace and workspace.backward().
+    public List<PathResult> alternatives(int source, int target, int maxRoutes, double maxOverlap, double maxStretch,
+                                         SearchWorkspace workspace) {
+        DijkstraAlgorithm.checkNode(graph, source);
+        DijkstraAlgorithm.checkNode(graph, target);
+        if (maxRoutes <= 0 || !(maxStretch >= 1) || !(maxOverlap >= 0)) {
+            throw new IllegalArgumentException("Need maxRoutes > 0, maxStretch >= 1 and maxOverlap >= 0, got "
+                    + maxRoutes + ", " + maxStretch + ", " + maxOverlap);
+        }
+        SearchWorkspace forward = workspace;
+        SearchWorkspace backward = workspace.backward();
+        Marks scratch = takeMarks();
+        try {
+            int[] reached = new int[64];
+            int reachedCount = 0;
+            double shortest = Double.POSITIVE_INFINITY;
+            double bound = Double.POSITIVE_INFINITY;
+            forward.begin(graph.nodeCount());
+            IndexedDaryHeap heap = forward.heap();
+            forward.update(source, 0.0, -1);
+            heap.insertOrDecrease(source, 0.0);
+            while (!heap.isEmpty() && heap.peekKey() <= bound) {
+                double currentDist = heap.peekKey();
+                int current = heap.poll();
+                if (reachedCount == reached.length) {
+                    reached = Arrays.copyOf(reached, 2 * reachedCount);
+                }
+                reached[reachedCount++] = current;
+                if (current == target) {
+                    shortest = currentDist;
+                    bound = maxStretch * shortest;
+                }
+                for (int e = graph.firstEdge(current), end = graph.endEdge(current); e < end; e++) {
+                    int neighbor = graph.target(e);
+                    double newDist = currentDist + graph.weight(e);
+                    if (newDist < forward.distance(neighbor)) {
+                        forward.update(neighbor, newDist, current);
+                        heap.insertOrDecrease(neighbor, newDist);
+                    }
+                }
+            }
+            if (shortest == Double.POSITIVE_INFINITY) {
+                return List.of();
+            }
+            int settled = reachedCount;
+
+            // Only nodes with forward + backward distance within the bound can lie on a candidate, and
+            // every node on a candidate's backward half satisfies that too, so the backward search
+            // stays inside that ellipse instead of a full ball
+            backward.begin(graph.nodeCount());
+            heap = backward.heap();
+            backward.update(target, 0.0, -1);
+            heap.insertOrDecrease(target, 0.0);
+            while (!heap.isEmpty()) {
+                double currentDist = heap.peekKey();
+                int current = heap.poll();
+                settled++;
+                for (int e = reverse.firstEdge(current), end = reverse.endEdge(current); e < end; e++) {
+                    int neighbor = reverse.target(e);
+                    double newDist = currentDist + reverse.weight(e);
+                    if (newDist < backward.distance(neighbor) && forward.distance(neighbor) + newDist <= bound) {
+                        backward.update(neighbor, newDist, current);
+                        heap.insertOrDecrease(neighbor, newDist);
+                    }
+                }
+            }
+
+            // plateau[v]: length of the stretch ending at v along which the trees agree (v's forward
+            // parent is the node whose backward next hop is v). Settle order has parents first.
+            double[] plateau = scratch.plateau;
+            for (int i = 0; i < reachedCount; i++) {
+                int v = reached[i];
+                int u = forward.predecessor(v);
+                plateau[v] = u >= 0 && backward.predecessor(u) == v
+                        ? plateau[u] + forward.distance(v) - forward.distance(u) : 0;
+            }
+            // one candidate per plateau, its last node, longest plateaus first: packed as
+            // (float bits of bound - plateau, node) so one primitive sort orders them
+            long[] candidates = new long[reachedCount];
+            int candidateCount = 0;
+            for (int i = 0; i < reachedCount; i++) {
+                int v = reached[i];
+                int next = backward.predecessor(v);
+                boolean last = next < 0 || !(forward.distance(next) <= bound) || forward.predecessor(next) != v;
+                if (last && plateau[v] > 0 && forward.distance(v) + backward.distance(v) <= bound) {
+                    candidates[candidateCount++] = (long) Float.floatToRawIntBits((float) (bound - plateau[v])) << 32 | v;
+                }
+            }
+            Arrays.sort(candidates, 0, candidateCount);
+
+            scratch.nextQuery();
+            List<PathResult> results = new ArrayList<>();
+            Route shortestRoute = viaRoute(source, target, target, forward, backward, scratch);
+            for (int e : shortestRoute.edges) {
+                scratch.markUsed(e);
+            }
+            results.add(shortestRoute.toResult(graph, settled));
+            for (int c = 0; c < candidateCount && results.size() < maxRoutes; c++) {
+                Route route = viaRoute(source, target, (int) candidates[c], forward, backward, scratch);
+                if (route == null || route.cost > bound) {
+                    continue; // the two halves cross, or rounding put it just past the bound
+                }
+                double shared = 0;
+                for (int e : route.edges) {
+                    if (scratch.isUsed(e)) {
+                        shared += graph.weight(e);
+                    }
+                }
+                if (shared > maxOverlap * route.cost) {
+                    continue;
+                }
+                for (int e : route.edges) {
+                    scratch.markUsed(e);
+                }
+                results.add(route.toResult(graph, settled));
+            }
+            return results;
+        } finally {
+            marks.offer(scratch);
+        }
+    }
+
+    // source -> via along the forward tree, then via -> target along the backward tree; null if
+    // the halves share a node other than via
+    private Route viaRoute(int source, int target, int via, SearchWorkspace forward, SearchWorkspace backward,
+                           Marks scratch) {
+        scratch.nextRoute();
+        int head = 0;
+        for (int at = via; at != -1; at = forward.predecessor(at)) {
+            scratch.markOnRoute(at);
+            head++;
+        }
+        int tail = 0;
+        for (int at = backward.predecessor(via); at != -1; at = backward.predecessor(at)) {
+            if (scratch.isOnRoute(at)) {
+                return null;
+            }
+            tail++;
+        }
+        int[] nodes = new int[head + tail];
+        int i = head - 1;
+        for (int at = via; at != -1; at = forward.predecessor(at)) {
+            nodes[i--] = at;
+        }
+        i = head;
+        for (int at = backward.predecessor(via); at != -1; at = backward.predecessor(at)) {
+            nodes[i++] = at;
+        }
+        return Route.of(graph, nodes, new int[0], null);
+    }
+
+    // The shortest route, read off the reverse tree: each node's predecessor there is its next hop
+    private Route treeRoute(int source, int target, ShortestPathTree toTarget, int settled) {
+        IntBuffer nodes = new IntBuffer();
+        for (int at = source; at != -1; at = toTarget.predecessor(at)) {
+            nodes.add(at);
+        }
+        Route route = Route.of(graph, nodes.toArray(), new int[0], null);
+        route.settled = settled;
+        return route;
+    }
+
+    // Yen's spur route: the first i edges of previous, then the shortest route from its i-th node
+    // to the target that avoids the banned nodes and edges; null if there is none
+    private Route spurRoute(Route previous, int i, int target, ShortestPathTree toTarget, Marks scratch,
+                            SearchWorkspace workspace) {
+        IndexedGraph g = graph;
+        int spur = previous.nodes[i];
+        workspace.begin(g.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(spur, 0.0, -1);
+        heap.insertOrDecrease(spur, toTarget.distance(spur));
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settled++;
+            if (current == target) {
+                break;
+            }
+            double currentDist = workspace.distance(current);
+            for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                int neighbor = g.target(e);
+                if (scratch.isBanned(e) || scratch.isBannedNode(neighbor)) {
+                    continue;
+                }
+                double bound = toTarget.distance(neighbor);
+                if (bound == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                double newDist = currentDist + g.weight(e);
+                if (newDist < workspace.distance(neighbor)) {
+                    workspace.update(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist + bound);
+                }
+            }
+        }
+        if (workspace.distance(target) == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+        IntBuffer spurNodes = new IntBuffer();
+        for (int at = target; at != -1; at = workspace.predecessor(at)) {
+            spurNodes.add(at);
+        }
+        int[] nodes = new int[i + spurNodes.size()];
+        System.arraycopy(previous.nodes, 0, nodes, 0, i);
+        for (int j = 0; j < spurNodes.size(); j++) {
+            nodes[i + j] = spurNodes.get(spurNodes.size() - 1 - j);
+        }
+        Route route = Route.of(g, nodes, Arrays.copyOf(previous.edges, i), scratch);
+        route.settled = settled;
+        return route;
+    }
+
+    private Marks takeMarks() {
+        Marks m = marks.poll();
+        return m != null ? m : new Marks(graph.nodeCount(), graph.edgeCount());
+    }
+
+    // A route as node and edge ids; cost is summed from the source like a search would, so equal
+    // routes from different searches have bit-identical costs. Equality is by edge sequence.
+    private static final class Route {
+        final int[] nodes;
+        final int[] edges;
+        final double cost;
+        int settled;
+
+        private Route(int[] nodes, int[] edges, double cost) {
+            this.nodes = nodes;
+            this.edges = edges;
+            this.cost = cost;
+        }
+
+        // Keeps the given edges for the first nodes, then picks the lightest edge between consecutive
+        // nodes, skipping edges banned in scratch (if given), as the search that found them did
+        static Route of(IndexedGraph g, int[] nodes, int[] prefix, Marks scratch) {
+            int[] edges = Arrays.copyOf(prefix, nodes.length - 1);
+            double cost = 0;
+            for (int i = 0; i < prefix.length; i++) {
+                cost += g.weight(prefix[i]);
+            }
+            for (int i = prefix.length; i + 1 < nodes.length; i++) {
+                int best = -1;
+                for (int e = g.firstEdge(nodes[i]), end = g.endEdge(nodes[i]); e < end; e++) {
+                    if (g.target(e) == nodes[i + 1] && (scratch == null || !scratch.isBanned(e))
+                            && (best < 0 || g.weight(e) < g.weight(best))) {
+                        best = e;
+                    }
+                }
+                edges[i] = best;
+                cost += g.weight(best);
+            }
+            return new Route(nodes, edges, cost);
+        }
+
+        PathResult toResult(IndexedGraph g) {
+            return toResult(g, settled);
+        }
+
+        PathResult toResult(IndexedGraph g, int settledNodes) {
+            List<Node> path = new ArrayList<>(nodes.length);
+            for (int node : nodes) {
+                path.add(g.node(node));
+            }
+            return new PathResult(path, cost, true, settledNodes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Route other && Arrays.equals(edges, other.edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+
+    // Per-query marks over nodes and edges, cleared by bumping a generation instead of refilling:
+    // banned nodes/edges of a Yen spur search, or nodes of the route being built and edges of
+    // accepted routes for alternatives(); plus plateau lengths, written before they are read
+    private static final class Marks {
+        final double[] plateau;
+        private final int[] nodeBan;
+        private final int[] edgeBan;
+        private final int[] nodeRoute;
+        private int ban;
+        private int query;
+        private int route;
+
+        Marks(int nodes, int edges) {
+            nodeBan = new int[nodes];
+            edgeBan = new int[edges];
+            nodeRoute = new int[nodes];
+            plateau = new double[nodes];
+        }
+
+        void nextBan() { ban = next(ban, nodeBan, edgeBan); }
+        void banNode(int node) { nodeBan[node] = ban; }
+        void banEdge(int edge) { edgeBan[edge] = ban; }
+        boolean isBannedNode(int node) { return nodeBan[node] == ban; }
+        boolean isBanned(int edge) { return edgeBan[edge] == ban; }
+
+        // alternatives() reuses the edge ban array for edges of accepted routes
+        void nextQuery() { query = ban = next(ban, nodeBan, edgeBan); }
+        void markUsed(int edge) { edgeBan[edge] = query; }
+        boolean isUsed(int edge) { return edgeBan[edge] == query; }
+
+        void nextRoute() { route = next(route, nodeRoute, null); }
+        void markOnRoute(int node) { nodeRoute[node] = route; }
+        boolean isOnRoute(int node) { return nodeRoute[node] == route; }
+
+        private static int next(int generation, int[] a, int[] b) {
+            if (++generation == 0) { // wrapped around: stale marks could collide, clear once
+                Arrays.fill(a, 0);
+                if (b != null) {
+                    Arrays.fill(b, 0);
+                }
+                generation = 1;
+            }
+            return generation;
+        }
+    }
+
+    // Growable int array for walking predecessor chains
+    private static final class IntBuffer {
+        private int[] values = new int[32];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) { return values[index]; }
+        int size() { return size; }
+        int[] toArray() { return Arrays.copyOf(values, size); }
+    }
+}
@@ -0,0 +1,126 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import metrics.EngineMetrics;
+import metrics.QueryEvent;
+import metrics.RoutingMetrics;
+import model.IndexedGraph;
+import model.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Bidirectional search: a forward search from the source on the graph and a backward search
+// from the target on the reversed graph, alternating on whichever queue has the smaller key.
+//
+// With Heuristic.ZERO this is bidirectional Dijkstra. With a real heuristic it is bidirectional
+// A* using the average potential p(v) = (h(v, t) - h(s, v)) / 2 for the forward side and -p(v)
+// for the backward side; both are consistent, so the search can stop as soon as
+// minKeyForward + minKeyBackward >= best s-t distance found so far.
+public final class BidirectionalEngine implements ShortestPathEngine {
+
+    private static final EngineMetrics METRICS = RoutingMetrics.engine("bidirectional");
+
+    private final IndexedGraph graph;
+    private final IndexedGraph reverse;
+    private final Heuristic heuristic;
+
+    public BidirectionalEngine(IndexedGraph graph, Heuristic heuristic) {
+        this.graph = graph;
+        this.reverse = graph.reverse();
+        this.heuristic = heuristic;
+    }
+
+    public static BidirectionalEngine dijkstra(IndexedGraph graph) {
+        return new BidirectionalEngine(graph, Heuristic.ZERO);
+    }
+
+    @Override
+    public PathResult findShortestPath(int source, int target, SearchWorkspace workspace) {
+        DijkstraAlgorithm.checkNode(graph, source);
+        DijkstraAlgorithm.checkNode(graph, target);
+        int n = graph.nodeCount();
+
+        QueryEvent event = RoutingMetrics.ENABLED ? METRICS.begin(source, target) : null;
+        SearchWorkspace fwd = workspace;
+        SearchWorkspace bwd = workspace.backward();
+        fwd.begin(n);
+        bwd.begin(n);
+        IndexedDaryHeap fwdHeap = fwd.heap();
+        IndexedDaryHeap bwdHeap = bwd.heap();
+
+        fwd.update(source, 0.0, -1);
+        fwdHeap.insertOrDecrease(source, potential(source, source, target));
+        bwd.update(target, 0.0, -1);
+        bwdHeap.insertOrDecrease(target, -potential(target, source, target));
+
+        double best = source == target ? 0.0 : Double.POSITIVE_INFINITY;
+        int meeting = source == target ? source : -1;
+        int settled = 0;
+        long relaxed = 0;
+
+        while (!fwdHeap.isEmpty() && !bwdHeap.isEmpty()) {
+            if (fwdHeap.peekKey() + bwdHeap.peekKey() >= best) {
+                break;
+            }
+            boolean forward = fwdHeap.peekKey() <= bwdHeap.peekKey();
+            SearchWorkspace side = forward ? fwd : bwd;
+            SearchWorkspace other = forward ? bwd : fwd;
+            IndexedGraph g = forward ? graph : reverse;
+            double sign = forward ? 1.0 : -1.0;
+
+            int current = side.heap().poll();
+            settled++;
+            double currentDist = side.distance(current);
+            if (RoutingMetrics.ENABLED) {
+                relaxed += g.endEdge(current) - g.firstEdge(current);
+            }
+            for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                int neighbor = g.target(e);
+                double newDist = currentDist + g.weight(e);
+                if (newDist < side.distance(neighbor)) {
+                    double key = newDist + sign * potential(neighbor, source, target);
+                    if (!(key < Double.POSITIVE_INFINITY)) {
+                        continue; // an infinite bound: this node is cut off from the other endpoint
+                    }
+                    side.update(neighbor, newDist, current);
+                    side.heap().insertOrDecrease(neighbor, key);
+                    double through = newDist + other.distance(neighbor);
+                    if (through < best) {
+                        best = through;
+                        meeting = neighbor;
+                    }
+                }
+            }
+        }
+
+        PathResult result = meeting < 0
+                ? new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false, settled)
+                : new PathResult(joinPath(fwd, bwd, meeting), best, true, settled);
+        if (RoutingMetrics.ENABLED) {
+            workspace.finishQuery(METRICS, event, relaxed, true, result);
+        }
+        return result;
+    }
+
+    private double potential(int node, int source, int target) {
+        if (heuristic == Heuristic.ZERO) {
+            return 0.0;
+        }
+        return (heuristic.lowerBound(node, target) - heuristic.lowerBound(source, node)) / 2;
+    }
+
+    // source ... meeting from the forward tree, then meeting ... target from the backward tree
+    private List<Node> joinPath(SearchWorkspace fwd, SearchWorkspace bwd, int meeting) {
+        List<Node> path = new ArrayList<>();
+        for (int at = meeting; at != -1; at = fwd.predecessor(at)) {
+            path.add(graph.node(at));
+        }
+        Collections.reverse(path);
+        for (int at = bwd.predecessor(meeting); at != -1; at = bwd.predecessor(at)) {
+            path.add(graph.node(at));
+        }
+        return path;
+    }
+}
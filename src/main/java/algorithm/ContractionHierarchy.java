@@ -0,0 +1,110 @@
+package algorithm;
+
+import model.IndexedGraph;
+import model.Node;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Result of Contraction Hierarchies preprocessing (see ContractionHierarchyBuilder).
+//
+// Every node has a rank (its contraction order). The edge list holds the original edges plus
+// shortcut edges; a shortcut u -> w through v remembers its two halves (u -> v, v -> w) so a
+// query result can be unpacked back into the original node sequence.
+// Edges are split into two CSR index lists:
+// - upward:   edges a -> b with rank[b] > rank[a], stored at a (forward query search)
+// - downward: edges a -> b with rank[a] > rank[b], stored at b (backward query search)
+// Memory: O(V + E + shortcuts). Immutable and shareable between threads.
+public final class ContractionHierarchy {
+
+    private final IndexedGraph graph;
+    private final int[] rank;
+    private final int[] edgeSource;
+    private final int[] edgeTarget;
+    private final double[] edgeWeight;
+    private final int[] childA; // first half of a shortcut, -1 for original edges
+    private final int[] childB; // second half of a shortcut, -1 for original edges
+    private final int originalEdgeCount;
+    private final int[] upOffsets;
+    private final int[] upEdges;
+    private final int[] downOffsets;
+    private final int[] downEdges;
+
+    ContractionHierarchy(IndexedGraph graph, int[] rank, int edgeCount, int originalEdgeCount,
+                         int[] edgeSource, int[] edgeTarget, double[] edgeWeight, int[] childA, int[] childB) {
+        this.graph = graph;
+        this.rank = rank;
+        this.originalEdgeCount = originalEdgeCount;
+        this.edgeSource = Arrays.copyOf(edgeSource, edgeCount);
+        this.edgeTarget = Arrays.copyOf(edgeTarget, edgeCount);
+        this.edgeWeight = Arrays.copyOf(edgeWeight, edgeCount);
+        this.childA = Arrays.copyOf(childA, edgeCount);
+        this.childB = Arrays.copyOf(childB, edgeCount);
+
+        int n = rank.length;
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            if (isUpward(e)) {
+                upOffsets[edgeSource[e] + 1]++;
+            } else {
+                downOffsets[edgeTarget[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            upOffsets[i + 1] += upOffsets[i];
+            downOffsets[i + 1] += downOffsets[i];
+        }
+        upEdges = new int[upOffsets[n]];
+        downEdges = new int[downOffsets[n]];
+        int[] upCursor = Arrays.copyOf(upOffsets, n);
+        int[] downCursor = Arrays.copyOf(downOffsets, n);
+        for (int e = 0; e < edgeCount; e++) {
+            if (isUpward(e)) {
+                upEdges[upCursor[edgeSource[e]]++] = e;
+            } else {
+                downEdges[downCursor[edgeTarget[e]]++] = e;
+            }
+        }
+    }
+
+    private boolean isUpward(int edge) {
+        return rank[edgeTarget[edge]] > rank[edgeSource[edge]];
+    }
+
+    public IndexedGraph graph() { return graph; }
+    public int nodeCount() { return rank.length; }
+    public int rank(int node) { return rank[node]; }
+    public int edgeCount() { return edgeSource.length; }
+    public int shortcutCount() { return edgeSource.length - originalEdgeCount; }
+
+    int firstUpEdge(int node) { return upOffsets[node]; }
+    int endUpEdge(int node) { return upOffsets[node + 1]; }
+    int upEdge(int index) { return upEdges[index]; }
+    int firstDownEdge(int node) { return downOffsets[node]; }
+    int endDownEdge(int node) { return downOffsets[node + 1]; }
+    int downEdge(int index) { return downEdges[index]; }
+
+    int edgeSource(int edge) { return edgeSource[edge]; }
+    int edgeTarget(int edge) { return edgeTarget[edge]; }
+    double edgeWeight(int edge) { return edgeWeight[edge]; }
+
+    // Appends the original nodes after edgeSource(edge) along the edge (shortcuts expanded) to path
+    void unpack(int edge, List<Node> path) {
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = edge;
+        while (top > 0) {
+            int e = stack[--top];
+            if (childA[e] < 0) {
+                path.add(graph.node(edgeTarget[e]));
+            } else {
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = childB[e];
+                stack[top++] = childA[e];
+            }
+        }
+    }
+}
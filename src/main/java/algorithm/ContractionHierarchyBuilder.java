@@ -0,0 +1,265 @@
+package algorithm;
+
+import model.IndexedGraph;
+
+import java.util.Arrays;
+
+// Contraction Hierarchies preprocessing.
+// Nodes are contracted one at a time in order of priority = edge difference (shortcuts added
+// minus edges removed) + number of already contracted neighbours. Contracting v adds a shortcut
+// u -> w for every in/out neighbour pair whose shortest u-w path runs through v; a bounded
+// witness search (Dijkstra from u that skips v, stopping once every w is settled) decides that.
+// A witness search that gives up early only costs an unnecessary shortcut, never a wrong
+// distance, so priorities are simulated with a much smaller settle limit than the real
+// contraction uses. Priorities are updated lazily: contracting v only marks its neighbours
+// stale, and a stale node is re-simulated when it reaches the top of the queue, going back in
+// if it is no longer the minimum.
+//
+// Time: roughly O(V * witness search) in practice. Memory: O(V + E + shortcuts).
+public final class ContractionHierarchyBuilder {
+
+    private static final int DEFAULT_WITNESS_SETTLE_LIMIT = 500;
+    private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+    private final IndexedGraph graph;
+    private final int nodeCount;
+    private final int witnessSettleLimit;
+
+    // Global edge list: original edges first, shortcuts appended
+    private int[] edgeSource;
+    private int[] edgeTarget;
+    private double[] edgeWeight;
+    private int[] childA;
+    private int[] childB;
+    private int edgeCount;
+
+    // Remaining graph during contraction, as edge-id lists per node
+    private final int[][] outEdges;
+    private final int[] outCount;
+    private final int[][] inEdges;
+    private final int[] inCount;
+    private final boolean[] contracted;
+    private final int[] contractedNeighbours;
+    private final boolean[] stale; // a neighbour was contracted since the priority was computed
+    private final int[] lastTouchedBy; // dedupes neighbours reached through both an in- and an out-edge
+
+    private final SearchWorkspace witness = new SearchWorkspace();
+    private final int[] witnessTarget; // == witnessRound for the targets of the current witness search
+    private int witnessRound;
+
+    public ContractionHierarchyBuilder(IndexedGraph graph) {
+        this(graph, DEFAULT_WITNESS_SETTLE_LIMIT);
+    }
+
+    public ContractionHierarchyBuilder(IndexedGraph graph, int witnessSettleLimit) {
+        this.graph = graph;
+        this.nodeCount = graph.nodeCount();
+        this.witnessSettleLimit = witnessSettleLimit;
+        int capacity = Math.max(16, graph.edgeCount() * 2);
+        edgeSource = new int[capacity];
+        edgeTarget = new int[capacity];
+        edgeWeight = new double[capacity];
+        childA = new int[capacity];
+        childB = new int[capacity];
+        outEdges = new int[nodeCount][];
+        inEdges = new int[nodeCount][];
+        outCount = new int[nodeCount];
+        inCount = new int[nodeCount];
+        contracted = new boolean[nodeCount];
+        contractedNeighbours = new int[nodeCount];
+        stale = new boolean[nodeCount];
+        lastTouchedBy = new int[nodeCount];
+        witnessTarget = new int[nodeCount];
+        Arrays.fill(lastTouchedBy, -1);
+    }
+
+    public ContractionHierarchy build() {
+        for (int u = 0; u < nodeCount; u++) {
+            outEdges[u] = new int[Math.max(2, graph.endEdge(u) - graph.firstEdge(u))];
+            inEdges[u] = new int[2];
+        }
+        for (int u = 0; u < nodeCount; u++) {
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                int v = graph.target(e);
+                if (u != v) { // self loops never lie on a shortest path
+                    addEdge(u, v, graph.weight(e), -1, -1);
+                }
+            }
+        }
+        int originalEdgeCount = edgeCount;
+
+        IndexedDaryHeap order = new IndexedDaryHeap(4);
+        order.ensureCapacity(nodeCount);
+        for (int v = 0; v < nodeCount; v++) {
+            order.changeKey(v, priority(v));
+        }
+
+        int[] rank = new int[nodeCount];
+        int nextRank = 0;
+        while (!order.isEmpty()) {
+            int v = order.poll();
+            if (stale[v]) { // lazy update: recompute only when it surfaces
+                stale[v] = false;
+                double current = priority(v);
+                if (!order.isEmpty() && current > order.peekKey()) {
+                    order.changeKey(v, current);
+                    continue;
+                }
+            }
+            contract(v, true);
+            contracted[v] = true;
+            rank[v] = nextRank++;
+
+            // Neighbours lost an edge and gained a contracted neighbour: mark them for re-evaluation
+            for (int i = 0; i < outCount[v]; i++) {
+                touchNeighbour(edgeTarget[outEdges[v][i]], v);
+            }
+            for (int i = 0; i < inCount[v]; i++) {
+                touchNeighbour(edgeSource[inEdges[v][i]], v);
+            }
+        }
+        return new ContractionHierarchy(graph, rank, edgeCount, originalEdgeCount,
+                edgeSource, edgeTarget, edgeWeight, childA, childB);
+    }
+
+    private void touchNeighbour(int node, int contractedNode) {
+        if (!contracted[node] && lastTouchedBy[node] != contractedNode) {
+            lastTouchedBy[node] = contractedNode;
+            contractedNeighbours[node]++;
+            stale[node] = true;
+        }
+    }
+
+    private double priority(int v) {
+        dropContractedEdges(v);
+        int removed = outCount[v] + inCount[v];
+        int edgeDifference = contract(v, false) - removed;
+        return edgeDifference + contractedNeighbours[v];
+    }
+
+    // Compacts v's lists so later scans skip edges to already contracted nodes
+    private void dropContractedEdges(int v) {
+        int kept = 0;
+        for (int i = 0; i < outCount[v]; i++) {
+            int e = outEdges[v][i];
+            if (!contracted[edgeTarget[e]]) outEdges[v][kept++] = e;
+        }
+        outCount[v] = kept;
+        kept = 0;
+        for (int i = 0; i < inCount[v]; i++) {
+            int e = inEdges[v][i];
+            if (!contracted[edgeSource[e]]) inEdges[v][kept++] = e;
+        }
+        inCount[v] = kept;
+    }
+
+    // Counts (and if apply, adds) the shortcuts needed to remove v from the remaining graph
+    private int contract(int v, boolean apply) {
+        int shortcuts = 0;
+        for (int i = 0; i < inCount[v]; i++) {
+            int in = inEdges[v][i];
+            int u = edgeSource[in];
+            if (contracted[u]) {
+                continue;
+            }
+            double maxOut = -1;
+            int targets = 0;
+            witnessRound++;
+            for (int j = 0; j < outCount[v]; j++) {
+                int w = edgeTarget[outEdges[v][j]];
+                if (!contracted[w] && w != u) {
+                    maxOut = Math.max(maxOut, edgeWeight[outEdges[v][j]]);
+                    if (witnessTarget[w] != witnessRound) {
+                        witnessTarget[w] = witnessRound;
+                        targets++;
+                    }
+                }
+            }
+            if (maxOut < 0) {
+                continue;
+            }
+            double viaIn = edgeWeight[in];
+            witnessSearch(u, v, viaIn + maxOut, targets, apply ? witnessSettleLimit : SIMULATION_SETTLE_LIMIT);
+            for (int j = 0; j < outCount[v]; j++) {
+                int out = outEdges[v][j];
+                int w = edgeTarget[out];
+                if (contracted[w] || w == u) {
+                    continue;
+                }
+                double via = viaIn + edgeWeight[out];
+                if (witness.distance(w) <= via) {
+                    continue; // a path avoiding v is at least as short
+                }
+                shortcuts++;
+                if (apply && !hasEdgeAtMost(u, w, via)) {
+                    addEdge(u, w, via, in, out);
+                }
+            }
+        }
+        return shortcuts;
+    }
+
+    // Dijkstra from source on the remaining graph without `skipped`, bounded by distance and settle count
+    private void witnessSearch(int source, int skipped, double maxDistance, int targets, int settleLimit) {
+        witness.begin(nodeCount);
+        IndexedDaryHeap heap = witness.heap();
+        witness.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+        int settled = 0;
+        while (!heap.isEmpty() && heap.peekKey() <= maxDistance && settled++ < settleLimit) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            if (witnessTarget[current] == witnessRound && --targets == 0) {
+                return; // every target's distance is final
+            }
+            for (int i = 0; i < outCount[current]; i++) {
+                int e = outEdges[current][i];
+                int next = edgeTarget[e];
+                if (next == skipped || contracted[next]) {
+                    continue;
+                }
+                double newDist = currentDist + edgeWeight[e];
+                if (newDist < witness.distance(next)) {
+                    witness.update(next, newDist, current);
+                    heap.insertOrDecrease(next, newDist);
+                }
+            }
+        }
+    }
+
+    private boolean hasEdgeAtMost(int u, int w, double weight) {
+        for (int i = 0; i < outCount[u]; i++) {
+            int e = outEdges[u][i];
+            if (edgeTarget[e] == w && edgeWeight[e] <= weight) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addEdge(int source, int target, double weight, int first, int second) {
+        if (edgeCount == edgeSource.length) {
+            int capacity = edgeCount * 2;
+            edgeSource = Arrays.copyOf(edgeSource, capacity);
+            edgeTarget = Arrays.copyOf(edgeTarget, capacity);
+            edgeWeight = Arrays.copyOf(edgeWeight, capacity);
+            childA = Arrays.copyOf(childA, capacity);
+            childB = Arrays.copyOf(childB, capacity);
+        }
+        int e = edgeCount++;
+        edgeSource[e] = source;
+        edgeTarget[e] = target;
+        edgeWeight[e] = weight;
+        childA[e] = first;
+        childB[e] = second;
+
+        if (outCount[source] == outEdges[source].length) {
+            outEdges[source] = Arrays.copyOf(outEdges[source], outCount[source] * 2);
+        }
+        outEdges[source][outCount[source]++] = e;
+        if (inCount[target] == inEdges[target].length) {
+            inEdges[target] = Arrays.copyOf(inEdges[target], inCount[target] * 2);
+        }
+        inEdges[target][inCount[target]++] = e;
+    }
+}
@@ -0,0 +1,150 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import metrics.EngineMetrics;
+import metrics.QueryEvent;
+import metrics.RoutingMetrics;
+import model.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Point-to-point query on a ContractionHierarchy: a forward Dijkstra from the source that only
+// follows upward edges and a backward Dijkstra from the target that only follows downward edges.
+// The shortest path's highest-ranked node is settled by both; each side stops once its queue
+// minimum reaches the best distance found. Nodes reached on a non-shortest distance are
+// stalled (see stalled) instead of expanded. Shortcuts on the result are unpacked into the
+// original node sequence. Settled counts are typically a few hundred even on large networks.
+public final class ContractionHierarchyEngine implements ShortestPathEngine {
+
+    private static final EngineMetrics METRICS = RoutingMetrics.engine("ch");
+
+    private final ContractionHierarchy ch;
+
+    public ContractionHierarchyEngine(ContractionHierarchy ch) {
+        this.ch = ch;
+    }
+
+    @Override
+    public PathResult findShortestPath(int source, int target, SearchWorkspace workspace) {
+        DijkstraAlgorithm.checkNode(ch.graph(), source);
+        DijkstraAlgorithm.checkNode(ch.graph(), target);
+        int n = ch.nodeCount();
+
+        QueryEvent event = RoutingMetrics.ENABLED ? METRICS.begin(source, target) : null;
+
+        // Predecessor slots hold the CH edge id used to reach a node, for unpacking
+        SearchWorkspace fwd = workspace;
+        SearchWorkspace bwd = workspace.backward();
+        fwd.begin(n);
+        bwd.begin(n);
+        IndexedDaryHeap fwdHeap = fwd.heap();
+        IndexedDaryHeap bwdHeap = bwd.heap();
+        fwd.update(source, 0.0, -1);
+        fwdHeap.insertOrDecrease(source, 0.0);
+        bwd.update(target, 0.0, -1);
+        bwdHeap.insertOrDecrease(target, 0.0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        int settled = 0;
+        long relaxed = 0;
+
+        while (true) {
+            boolean fwdOpen = !fwdHeap.isEmpty() && fwdHeap.peekKey() < best;
+            boolean bwdOpen = !bwdHeap.isEmpty() && bwdHeap.peekKey() < best;
+            if (!fwdOpen && !bwdOpen) {
+                break;
+            }
+            boolean forward = fwdOpen && (!bwdOpen || fwdHeap.peekKey() <= bwdHeap.peekKey());
+            SearchWorkspace side = forward ? fwd : bwd;
+            SearchWorkspace other = forward ? bwd : fwd;
+
+            double currentDist = side.heap().peekKey();
+            int current = side.heap().poll();
+            settled++;
+            double through = currentDist + other.distance(current);
+            if (through < best) {
+                best = through;
+                meeting = current;
+            }
+
+            if (stalled(side, current, currentDist, forward)) {
+                continue;
+            }
+            if (RoutingMetrics.ENABLED) {
+                relaxed += forward ? ch.endUpEdge(current) - ch.firstUpEdge(current)
+                        : ch.endDownEdge(current) - ch.firstDownEdge(current);
+            }
+            if (forward) {
+                for (int i = ch.firstUpEdge(current), end = ch.endUpEdge(current); i < end; i++) {
+                    int e = ch.upEdge(i);
+                    relax(fwd, ch.edgeTarget(e), currentDist + ch.edgeWeight(e), e);
+                }
+            } else {
+                for (int i = ch.firstDownEdge(current), end = ch.endDownEdge(current); i < end; i++) {
+                    int e = ch.downEdge(i);
+                    relax(bwd, ch.edgeSource(e), currentDist + ch.edgeWeight(e), e);
+                }
+            }
+        }
+
+        PathResult result = meeting < 0
+                ? new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false, settled)
+                : new PathResult(unpackPath(fwd, bwd, source, meeting), best, true, settled);
+        if (RoutingMetrics.ENABLED) {
+            workspace.finishQuery(METRICS, event, relaxed, true, result);
+        }
+        return result;
+    }
+
+    // Stall-on-demand: current's distance is not shortest if a higher-ranked node already reached by
+    // this side gives a shorter one through an edge pointing at current (a downward edge for the
+    // forward search, an upward one for the backward search). Its edges need not be relaxed; the
+    // node itself still counted as a meeting candidate above, which stays correct because the
+    // candidate's distance is only an upper bound.
+    private boolean stalled(SearchWorkspace side, int current, double currentDist, boolean forward) {
+        if (forward) {
+            for (int i = ch.firstDownEdge(current), end = ch.endDownEdge(current); i < end; i++) {
+                int e = ch.downEdge(i);
+                if (side.distance(ch.edgeSource(e)) + ch.edgeWeight(e) < currentDist) {
+                    return true;
+                }
+            }
+        } else {
+            for (int i = ch.firstUpEdge(current), end = ch.endUpEdge(current); i < end; i++) {
+                int e = ch.upEdge(i);
+                if (side.distance(ch.edgeTarget(e)) + ch.edgeWeight(e) < currentDist) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void relax(SearchWorkspace side, int node, double newDist, int edge) {
+        if (newDist < side.distance(node)) {
+            side.update(node, newDist, edge);
+            side.heap().insertOrDecrease(node, newDist);
+        }
+    }
+
+    private List<Node> unpackPath(SearchWorkspace fwd, SearchWorkspace bwd, int source, int meeting) {
+        List<Integer> upEdges = new ArrayList<>();
+        for (int at = meeting; fwd.predecessor(at) != -1; at = ch.edgeSource(fwd.predecessor(at))) {
+            upEdges.add(fwd.predecessor(at));
+        }
+        Collections.reverse(upEdges);
+
+        List<Node> path = new ArrayList<>();
+        path.add(ch.graph().node(source));
+        for (int e : upEdges) {
+            ch.unpack(e, path);
+        }
+        for (int at = meeting; bwd.predecessor(at) != -1; at = ch.edgeTarget(bwd.predecessor(at))) {
+            ch.unpack(bwd.predecessor(at), path);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,91 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import model.Graph;
+import model.IndexedGraph;
+import model.SpatialIndex;
+import model.SpatialIndex.EdgeMatch;
+
+import java.util.Collections;
+
+// Routes between raw GPS positions. Each position is snapped to the closest point on a street
+// (not just the closest junction, which can be far down a long block), the route leaves the
+// origin street through either end that can be driven and enters the destination street the
+// same way, and the partial street lengths are added to the network distance.
+// At most four engine queries per route; the engine must search the graph's current snapshot
+// (e.g. DijkstraAlgorithm over the same Graph).
+public final class CoordinateRouter {
+
+    // path: junction-to-junction part of the route; totalDistance includes the partial streets
+    public record CoordinateRoute(EdgeMatch origin, EdgeMatch destination, PathResult path, double totalDistance) {}
+
+    private final Graph graph;
+    private final ShortestPathEngine engine;
+
+    public CoordinateRouter(Graph graph, ShortestPathEngine engine) {
+        this.graph = graph;
+        this.engine = engine;
+    }
+
+    public CoordinateRoute route(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        SpatialIndex index = graph.getSpatialIndex();
+        IndexedGraph g = graph.getIndexedGraph();
+        EdgeMatch origin = index.nearestEdge(fromLatitude, fromLongitude);
+        EdgeMatch destination = index.nearestEdge(toLatitude, toLongitude);
+        if (origin == null || destination == null) {
+            throw new IllegalStateException("Graph has no streets to snap to");
+        }
+
+        // ways off the origin street (node, cost) and onto the destination street
+        int[] exitNodes = {origin.to(), origin.from()};
+        double[] exitCosts = {partial(1 - origin.fraction(), g.weight(origin.edge())),
+                partial(origin.fraction(), weightOf(g, origin.to(), origin.from()))};
+        int[] entryNodes = {destination.from(), destination.to()};
+        double[] entryCosts = {partial(destination.fraction(), g.weight(destination.edge())),
+                partial(1 - destination.fraction(), weightOf(g, destination.to(), destination.from()))};
+
+        double best = Double.POSITIVE_INFINITY;
+        PathResult bestPath = new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false, 0);
+        if (origin.edge() == destination.edge()) { // both on one street: maybe no junction at all
+            double delta = destination.fraction() - origin.fraction();
+            double along = delta >= 0 ? partial(delta, g.weight(origin.edge()))
+                    : partial(-delta, weightOf(g, origin.to(), origin.from()));
+            if (along < best) {
+                best = along;
+                bestPath = new PathResult(Collections.emptyList(), along, true, 0);
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 2; j++) {
+                if (exitCosts[i] + entryCosts[j] >= best) {
+                    continue; // also skips closed or one-way directions (infinite cost)
+                }
+                PathResult path = engine.findShortestPath(exitNodes[i], entryNodes[j]);
+                double total = exitCosts[i] + path.getTotalDistance() + entryCosts[j];
+                if (total < best) {
+                    best = total;
+                    bestPath = path;
+                }
+            }
+        }
+        return new CoordinateRoute(origin, destination, bestPath, best);
+    }
+
+    // Cost of driving `fraction` of a street of the given weight: nothing when the point is at the
+    // junction itself, even against a one-way direction (0 * +Infinity would be NaN, and NaN
+    // compares false everywhere, so the route would be silently dropped)
+    private static double partial(double fraction, double weight) {
+        return fraction == 0 ? 0 : fraction * weight;
+    }
+
+    // Weight of the edge from -> to, +Infinity if there is none (one-way street)
+    private static double weightOf(IndexedGraph g, int from, int to) {
+        double weight = Double.POSITIVE_INFINITY;
+        for (int e = g.firstEdge(from), end = g.endEdge(from); e < end; e++) {
+            if (g.target(e) == to) {
+                weight = Math.min(weight, g.weight(e));
+            }
+        }
+        return weight;
+    }
+}
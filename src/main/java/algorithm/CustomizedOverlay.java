@@ -0,0 +1,313 @@
+package algorithm;
+
+import model.EdgeWeightUpdates;
+import model.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// The metric half of the overlay (CRP customization): for every cell of every level of a
+// MultiLevelPartition, the shortest distance inside the cell between each pair of its boundary
+// nodes, as a k x k clique matrix. Level 1 is computed by Dijkstra on the original edges of the
+// cell, level L by Dijkstra on the level L-1 cliques and cut edges inside the cell, so each
+// level only searches a few boundary nodes per subcell. Cells of one level are independent and
+// are customized in parallel on the pool, level by level.
+//
+// Immutable once built. After a weight change, recustomize() redoes only the cells that contain
+// a changed edge, and a parent cell only if one of its subcells' cliques came out different (or
+// it contains a changed cut edge itself); the partition is shared with this overlay.
+public final class CustomizedOverlay {
+
+    private static final int CELLS_PER_TASK = 4;
+
+    private final MultiLevelPartition partition;
+    private final IndexedGraph graph;
+    private final double[][] cliques; // per level (index level - 1), see MultiLevelPartition.cliqueStart
+
+    private final ConcurrentLinkedQueue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    private CustomizedOverlay(MultiLevelPartition partition, IndexedGraph graph, double[][] cliques) {
+        this.partition = partition;
+        this.graph = graph;
+        this.cliques = cliques;
+    }
+
+    // The graph must have the partition's topology (the graph it was built on, or a reweighted snapshot of it)
+    public static CustomizedOverlay customize(MultiLevelPartition partition, IndexedGraph graph, ForkJoinPool pool) {
+        return customize(partition, graph, null, null, pool);
+    }
+
+    // Same weights as update.current() from scratch, but reusing every clique untouched by the update
+    public CustomizedOverlay recustomize(EdgeWeightUpdates.Applied update, ForkJoinPool pool) {
+        if (update.previous() != graph) {
+            throw new IllegalArgumentException("Update was not applied to the snapshot this overlay was customized for");
+        }
+        boolean[][] dirty = new boolean[partition.levels()][];
+        for (int level = 1; level <= partition.levels(); level++) {
+            dirty[level - 1] = new boolean[partition.cellCount(level)];
+        }
+        int[] edges = update.changedEdges();
+        int[] sources = update.changedEdgeSources();
+        for (int i = 0; i < edges.length; i++) {
+            int u = sources[i];
+            int v = graph.target(edges[i]);
+            // an edge inside a cell changes that cell's clique; a cut edge only matters one level up
+            for (int level = 1; level <= partition.levels(); level++) {
+                if (partition.cell(u, level) == partition.cell(v, level)) {
+                    dirty[level - 1][partition.cell(u, level)] = true;
+                }
+            }
+        }
+        return customize(partition, update.current(), cliques, dirty, pool);
+    }
+
+    private static CustomizedOverlay customize(MultiLevelPartition partition, IndexedGraph graph,
+                                               double[][] previous, boolean[][] dirty, ForkJoinPool pool) {
+        if (graph.nodeCount() != partition.nodeCount()) {
+            throw new IllegalArgumentException("Partition has " + partition.nodeCount()
+                    + " nodes but the graph has " + graph.nodeCount());
+        }
+        double[][] cliques = new double[partition.levels()][];
+        CustomizedOverlay overlay = new CustomizedOverlay(partition, graph, cliques);
+        boolean[] changed = null; // cells of the level below whose clique changed
+        for (int level = 1; level <= partition.levels(); level++) {
+            cliques[level - 1] = previous == null ? new double[partition.cliqueEntries(level)]
+                    : previous[level - 1].clone();
+            boolean[] redo = dirty == null ? null : dirty[level - 1];
+            if (redo != null && changed != null) {
+                for (int cell = 0; cell < changed.length; cell++) {
+                    if (changed[cell]) {
+                        redo[partition.parentCell(cell)] = true;
+                    }
+                }
+            }
+            changed = redo == null ? null : new boolean[partition.cellCount(level)];
+            pool.invoke(overlay.new CellRange(level, 0, partition.cellCount(level), redo, changed));
+        }
+        return overlay;
+    }
+
+    public MultiLevelPartition partition() {
+        return partition;
+    }
+
+    public IndexedGraph graph() {
+        return graph;
+    }
+
+    // Bytes held by the clique matrices
+    public long cliqueBytes() {
+        long entries = 0;
+        for (double[] clique : cliques) {
+            entries += clique.length;
+        }
+        return entries * Double.BYTES;
+    }
+
+    // One Dijkstra per boundary node of the cell, stopping once every boundary node is settled.
+    // Returns whether any entry differs from what the clique held before.
+    private boolean customizeCell(int level, int cell, SearchWorkspace workspace) {
+        int first = partition.boundaryStart(level, cell);
+        int k = partition.boundaryEnd(level, cell) - first;
+        int matrix = partition.cliqueStart(level, cell);
+        double[] clique = cliques[level - 1];
+        boolean changed = false;
+        for (int i = 0; i < k; i++) {
+            int source = partition.boundaryNode(level, first + i);
+            search(source, -1, level - 1, level, cell, k, workspace);
+            for (int j = 0; j < k; j++) {
+                double distance = workspace.distance(partition.boundaryNode(level, first + j));
+                if (clique[matrix + i * k + j] != distance) {
+                    clique[matrix + i * k + j] = distance;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    // Dijkstra from source that expands every node at `expansionLevel` and never leaves `cell` of
+    // `level`, until target (if >= 0) or `boundaryTargets` boundary nodes of the cell are settled
+    void search(int source, int target, int expansionLevel, int level, int cell, int boundaryTargets,
+                SearchWorkspace workspace) {
+        workspace.begin(graph.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+        int remaining = boundaryTargets;
+        while (!heap.isEmpty()) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            if (current == target) {
+                return;
+            }
+            if (target < 0 && partition.boundaryIndex(level, current) >= 0 && --remaining == 0) {
+                return;
+            }
+            relax(current, currentDist, expansionLevel, level, cell, workspace);
+        }
+    }
+
+    // Relaxes the arcs of v on overlay level `expansionLevel` (0: original edges; otherwise the
+    // clique of v's cell on that level plus original edges leaving it). Arcs into nodes outside
+    // `cell` of `level` are skipped, level 0 meaning no restriction. Returns the arcs looked at.
+    int relax(int v, double dv, int expansionLevel, int level, int cell, SearchWorkspace workspace) {
+        IndexedDaryHeap heap = workspace.heap();
+        int arcs = 0;
+        int ownCell = -1;
+        if (expansionLevel > 0) {
+            ownCell = partition.cell(v, expansionLevel);
+            int first = partition.boundaryStart(expansionLevel, ownCell);
+            int k = partition.boundaryEnd(expansionLevel, ownCell) - first;
+            int row = partition.cliqueStart(expansionLevel, ownCell) + partition.boundaryIndex(expansionLevel, v) * k;
+            double[] clique = cliques[expansionLevel - 1];
+            for (int j = 0; j < k; j++) {
+                int w = partition.boundaryNode(expansionLevel, first + j);
+                double newDist = dv + clique[row + j];
+                if (newDist < workspace.distance(w)) {
+                    workspace.update(w, newDist, v);
+                    heap.insertOrDecrease(w, newDist);
+                }
+            }
+            arcs += k;
+        }
+        for (int e = graph.firstEdge(v), end = graph.endEdge(v); e < end; e++) {
+            int w = graph.target(e);
+            if (expansionLevel > 0 && partition.cell(w, expansionLevel) == ownCell) {
+                continue; // covered by the clique
+            }
+            if (level > 0 && partition.cell(w, level) != cell) {
+                continue;
+            }
+            double newDist = dv + graph.weight(e);
+            if (newDist < workspace.distance(w)) {
+                workspace.update(w, newDist, v);
+                heap.insertOrDecrease(w, newDist);
+            }
+            arcs++;
+        }
+        return arcs;
+    }
+
+    // relax() for a backward query search (no cell restriction): the clique column of v instead
+    // of its row, and the original edges entering v from outside its cell
+    int relaxBackward(int v, double dv, int expansionLevel, SearchWorkspace workspace) {
+        IndexedDaryHeap heap = workspace.heap();
+        int arcs = 0;
+        int ownCell = -1;
+        if (expansionLevel > 0) {
+            ownCell = partition.cell(v, expansionLevel);
+            int first = partition.boundaryStart(expansionLevel, ownCell);
+            int k = partition.boundaryEnd(expansionLevel, ownCell) - first;
+            int column = partition.cliqueStart(expansionLevel, ownCell) + partition.boundaryIndex(expansionLevel, v);
+            double[] clique = cliques[expansionLevel - 1];
+            for (int j = 0; j < k; j++) {
+                int w = partition.boundaryNode(expansionLevel, first + j);
+                double newDist = dv + clique[column + j * k];
+                if (newDist < workspace.distance(w)) {
+                    workspace.update(w, newDist, v);
+                    heap.insertOrDecrease(w, newDist);
+                }
+            }
+            arcs += k;
+        }
+        IndexedGraph reverse = graph.reverse();
+        for (int e = reverse.firstEdge(v), end = reverse.endEdge(v); e < end; e++) {
+            int w = reverse.target(e);
+            if (expansionLevel > 0 && partition.cell(w, expansionLevel) == ownCell) {
+                continue;
+            }
+            double newDist = dv + reverse.weight(e);
+            if (newDist < workspace.distance(w)) {
+                workspace.update(w, newDist, v);
+                heap.insertOrDecrease(w, newDist);
+            }
+            arcs++;
+        }
+        return arcs;
+    }
+
+    // Appends the original nodes strictly after `from` up to and including `to`, for an overlay
+    // arc from -> to taken at expansionLevel (a clique entry when both lie in one cell there)
+    void unpack(int from, int to, int expansionLevel, SearchWorkspace workspace, IntList out) {
+        if (expansionLevel == 0 || partition.cell(from, expansionLevel) != partition.cell(to, expansionLevel)) {
+            out.add(to);
+            return;
+        }
+        int cell = partition.cell(from, expansionLevel);
+        search(from, to, expansionLevel - 1, expansionLevel, cell, 0, workspace);
+        IntList hops = new IntList();
+        for (int at = to; at != -1; at = workspace.predecessor(at)) {
+            hops.add(at);
+        }
+        // the workspace is reused by the nested unpacking, so the hops are copied out first
+        for (int i = hops.size() - 1; i > 0; i--) {
+            unpack(hops.get(i), hops.get(i - 1), expansionLevel - 1, workspace, out);
+        }
+    }
+
+    // Growable int array for unpacked paths
+    static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class CellRange extends RecursiveAction {
+        private final int level;
+        private final int from;
+        private final int to;
+        private final boolean[] dirty; // null: every cell
+        private final boolean[] changed; // out, per cell; null when not needed
+
+        CellRange(int level, int from, int to, boolean[] dirty, boolean[] changed) {
+            this.level = level;
+            this.from = from;
+            this.to = to;
+            this.dirty = dirty;
+            this.changed = changed;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CELLS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new CellRange(level, from, mid, dirty, changed), new CellRange(level, mid, to, dirty, changed));
+                return;
+            }
+            SearchWorkspace workspace = workspaces.poll();
+            if (workspace == null) {
+                workspace = new SearchWorkspace();
+            }
+            try {
+                for (int cell = from; cell < to; cell++) {
+                    if (dirty == null || dirty[cell]) {
+                        boolean different = customizeCell(level, cell, workspace);
+                        if (changed != null) {
+                            changed[cell] = different;
+                        }
+                    }
+                }
+            } finally {
+                workspaces.offer(workspace);
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package algorithm;
+
+import model.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Parallel single-source shortest paths by delta-stepping (Meyer & Sanders). Tentative distances
+// are grouped into buckets of width delta; the lowest non-empty bucket is settled by relaxing
+// its light edges (weight <= delta) in parallel rounds until it stops refilling, then the heavy
+// edges of everything it settled in one more parallel round. Within a bucket the relaxation
+// order does not matter, so each round splits the frontier across the pool.
+//
+// Distances live in an AtomicLongArray of double bits: for non-negative doubles (and +Infinity)
+// the bit patterns order like the values, so a relaxation is a CAS-min loop on longs. Every
+// node's final distance is min over in-edges of (final distance of the source + weight), the
+// same sums Dijkstra computes, so results are bit-for-bit identical to the sequential engines.
+// Worth it for full trees on large graphs; for a single target DijkstraAlgorithm stops earlier.
+public final class DeltaSteppingEngine {
+
+    private static final int NODES_PER_TASK = 512;
+    private static final long INFINITE = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+    private static final int ON_PLATEAU = -2; // parents(): reachable, but no strictly closer tight parent
+
+    private final IndexedGraph graph;
+    private final double delta;
+    private final ForkJoinPool pool;
+
+    public DeltaSteppingEngine(IndexedGraph graph, double delta, ForkJoinPool pool) {
+        if (!(delta > 0) || Double.isInfinite(delta)) {
+            throw new IllegalArgumentException("delta must be positive and finite, got " + delta);
+        }
+        this.graph = graph;
+        this.delta = delta;
+        this.pool = pool;
+    }
+
+    // Bucket width of a few average edges: wide enough for parallel rounds, narrow enough that
+    // few nodes are relaxed before their final distance is known
+    public static double suggestedDelta(IndexedGraph graph) {
+        double sum = 0;
+        int finite = 0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            double w = graph.weight(e);
+            if (w < Double.POSITIVE_INFINITY) {
+                sum += w;
+                finite++;
+            }
+        }
+        return finite == 0 || sum == 0 ? 1.0 : 3 * sum / finite;
+    }
+
+    public double delta() {
+        return delta;
+    }
+
+    // Distance from source to every node (+Infinity where unreachable)
+    public double[] distances(int source) {
+        DijkstraAlgorithm.checkNode(graph, source);
+        int n = graph.nodeCount();
+        Search search = new Search(n);
+        search.dist.set(source, 0L); // bits of 0.0
+        search.enqueue(source, 0);
+        for (int bucket = 0; bucket < search.buckets.size(); bucket++) {
+            IntList settled = new IntList();
+            IntList frontier;
+            while ((frontier = search.takeFrontier(bucket, settled)) != null) {
+                search.relaxAll(frontier, true);
+            }
+            search.relaxAll(settled, false);
+        }
+        double[] out = new double[n];
+        for (int v = 0; v < n; v++) {
+            out[v] = Double.longBitsToDouble(search.dist.get(v));
+        }
+        return out;
+    }
+
+    // A shortest-path parent for each node given its final distances (-1 for the source and for
+    // unreachable nodes), in parallel over the reversed graph: the first tight in-edge from a
+    // strictly closer node. Nodes reached only over zero-weight edges from nodes at the same
+    // distance have none; picking any tight in-edge there could close a cycle (u -> v -> u at
+    // weight 0), so those plateaus are linked sequentially, breadth-first from their entry nodes.
+    public int[] parents(int source, double[] distances) {
+        int[] parent = new int[graph.nodeCount()];
+        pool.invoke(new ParentRange(graph.reverse(), source, distances, parent, 0, parent.length));
+        linkPlateaus(distances, parent);
+        return parent;
+    }
+
+    private void linkPlateaus(double[] distances, int[] parent) {
+        IndexedGraph reverse = graph.reverse();
+        IntList queue = new IntList();
+        for (int v = 0; v < parent.length; v++) {
+            if (parent[v] != ON_PLATEAU) {
+                continue;
+            }
+            for (int e = reverse.firstEdge(v), end = reverse.endEdge(v); e < end; e++) {
+                int u = reverse.target(e);
+                if (parent[u] != ON_PLATEAU && distances[u] + reverse.weight(e) == distances[v]) {
+                    parent[v] = u;
+                    queue.add(v);
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            int u = queue.get(i);
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                int v = graph.target(e);
+                if (parent[v] == ON_PLATEAU && distances[u] + graph.weight(e) == distances[v]) {
+                    parent[v] = u;
+                    queue.add(v);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class ParentRange extends RecursiveAction {
+        private final IndexedGraph reverse;
+        private final int source;
+        private final double[] distances;
+        private final int[] parent;
+        private final int from;
+        private final int to;
+
+        ParentRange(IndexedGraph reverse, int source, double[] distances, int[] parent, int from, int to) {
+            this.reverse = reverse;
+            this.source = source;
+            this.distances = distances;
+            this.parent = parent;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 8 * NODES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParentRange(reverse, source, distances, parent, from, mid),
+                        new ParentRange(reverse, source, distances, parent, mid, to));
+                return;
+            }
+            for (int v = from; v < to; v++) {
+                parent[v] = -1;
+                if (v == source || distances[v] == Double.POSITIVE_INFINITY) {
+                    continue;
+                }
+                parent[v] = ON_PLATEAU;
+                for (int e = reverse.firstEdge(v), end = reverse.endEdge(v); e < end; e++) {
+                    int u = reverse.target(e);
+                    if (distances[u] < distances[v] && distances[u] + reverse.weight(e) == distances[v]) {
+                        parent[v] = u;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // State of one run: atomic distances, buckets of queued nodes and the marks that dedupe them
+    private final class Search {
+        final AtomicLongArray dist;
+        final List<IntList> buckets = new ArrayList<>();
+        final int[] queuedIn;  // bucket a node was last queued in, -1 once taken out
+        final int[] settledIn; // bucket whose settled list holds the node
+        final ConcurrentLinkedQueue<IntList> improved = new ConcurrentLinkedQueue<>();
+
+        Search(int n) {
+            dist = new AtomicLongArray(n);
+            for (int v = 0; v < n; v++) {
+                dist.set(v, INFINITE);
+            }
+            queuedIn = new int[n];
+            settledIn = new int[n];
+            Arrays.fill(queuedIn, -1);
+            Arrays.fill(settledIn, -1);
+        }
+
+        void enqueue(int v, int bucket) {
+            if (queuedIn[v] == bucket) {
+                return;
+            }
+            queuedIn[v] = bucket;
+            while (buckets.size() <= bucket) {
+                buckets.add(null);
+            }
+            IntList list = buckets.get(bucket);
+            if (list == null) {
+                list = new IntList();
+                buckets.set(bucket, list);
+            }
+            list.add(v);
+        }
+
+        // Nodes still in the bucket (stale entries whose distance dropped lower are skipped),
+        // also recorded as settled by it; null once the bucket is empty
+        IntList takeFrontier(int bucket, IntList settled) {
+            IntList queued = buckets.get(bucket);
+            if (queued == null || queued.size() == 0) {
+                return null;
+            }
+            buckets.set(bucket, null);
+            IntList frontier = new IntList();
+            for (int i = 0; i < queued.size(); i++) {
+                int v = queued.get(i);
+                if (queuedIn[v] != bucket) {
+                    continue;
+                }
+                queuedIn[v] = -1;
+                frontier.add(v);
+                if (settledIn[v] != bucket) {
+                    settledIn[v] = bucket;
+                    settled.add(v);
+                }
+            }
+            return frontier.size() == 0 ? null : frontier;
+        }
+
+        // Relaxes the light (or heavy) edges of all nodes in parallel, then queues every node
+        // whose distance improved into the bucket of its new distance
+        void relaxAll(IntList nodes, boolean light) {
+            if (nodes.size() <= NODES_PER_TASK) {
+                improved.add(relaxRange(nodes, 0, nodes.size(), light));
+            } else {
+                pool.invoke(new Relax(nodes, 0, nodes.size(), light));
+            }
+            IntList changed;
+            while ((changed = improved.poll()) != null) {
+                for (int i = 0; i < changed.size(); i++) {
+                    int v = changed.get(i);
+                    enqueue(v, bucketOf(Double.longBitsToDouble(dist.get(v))));
+                }
+            }
+        }
+
+        IntList relaxRange(IntList nodes, int from, int to, boolean light) {
+            IntList changed = new IntList();
+            for (int i = from; i < to; i++) {
+                int u = nodes.get(i);
+                double du = Double.longBitsToDouble(dist.get(u));
+                for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                    double w = graph.weight(e);
+                    if ((w <= delta) != light) {
+                        continue;
+                    }
+                    int v = graph.target(e);
+                    if (relax(v, du + w)) {
+                        changed.add(v);
+                    }
+                }
+            }
+            return changed;
+        }
+
+        // CAS-min on the double bits; true if this call lowered the distance
+        boolean relax(int v, double newDist) {
+            long bits = Double.doubleToRawLongBits(newDist);
+            long current = dist.get(v);
+            while (bits < current) {
+                if (dist.compareAndSet(v, current, bits)) {
+                    return true;
+                }
+                current = dist.get(v);
+            }
+            return false;
+        }
+
+        int bucketOf(double distance) {
+            return (int) Math.min(Integer.MAX_VALUE - 1, distance / delta);
+        }
+
+        @SuppressWarnings("serial")
+        private final class Relax extends RecursiveAction {
+            private final IntList nodes;
+            private final int from;
+            private final int to;
+            private final boolean light;
+
+            Relax(IntList nodes, int from, int to, boolean light) {
+                this.nodes = nodes;
+                this.from = from;
+                this.to = to;
+                this.light = light;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > NODES_PER_TASK) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new Relax(nodes, from, mid, light), new Relax(nodes, mid, to, light));
+                    return;
+                }
+                improved.add(relaxRange(nodes, from, to, light));
+            }
+        }
+    }
+
+    // Growable int array for frontiers and bucket contents
+    static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
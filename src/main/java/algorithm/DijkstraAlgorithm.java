@@ -1,10 +1,15 @@
 package algorithm;
 
+import metrics.EngineMetrics;
+import metrics.QueryEvent;
+import metrics.RoutingMetrics;
 import model.Edge;
 import model.Graph;
+import model.IndexedGraph;
 import model.Node;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 // Time Complexity:
 // - Initialization of distances and previousNodes: O(V), where V is the number of nodes.
@@ -14,10 +19,17 @@ import java.util.*;
 // Space Complexity:
 // - Graph representation (adjacency list): O(V + E).
 // - Auxiliary data structures (distances, previousNodes, priority queue, etc.): O(V).
-// - Simulation steps storage: O(E).
+// - Simulation steps storage: O(E) when recorded into a list, O(1) with StepListener.NONE.
 // - Overall: O(V + E).
 
-public class DijkstraAlgorithm {
+// findShortestPath(int, int) is the allocation-free fast path: it runs on the CSR arrays with
+// primitive dist/pred arrays and an indexed 4-ary heap (true O(log V) decrease-key), and reuses
+// a per-thread SearchWorkspace so only the returned path is allocated.
+
+public class DijkstraAlgorithm implements ShortestPathEngine {
+
+    private static final EngineMetrics METRICS = RoutingMetrics.engine("dijkstra");
+    private static final EngineMetrics TRACED_METRICS = RoutingMetrics.engine("dijkstra-traced"); // with step listener
 
     private final Graph graph;
 
@@ -36,16 +48,23 @@ public class DijkstraAlgorithm {
         private final List<Node> path;
         private final double totalDistance;
         private final boolean reachable; 
+        private final int settledNodes; // search-space size, -1 if the engine did not count it
 
         public PathResult(List<Node> path, double totalDistance, boolean reachable) {
+            this(path, totalDistance, reachable, -1);
+        }
+
+        public PathResult(List<Node> path, double totalDistance, boolean reachable, int settledNodes) {
             this.path = Collections.unmodifiableList(path);
             this.totalDistance = totalDistance;
             this.reachable = reachable;
+            this.settledNodes = settledNodes;
         }
 
         public List<Node> getPath() { return path; }
         public double getTotalDistance() { return totalDistance; }
         public boolean isReachable() { return reachable; }
+        public int getSettledNodes() { return settledNodes; }
 
         // Returns a string representation of the path and distance
         @Override
@@ -75,90 +94,148 @@ public class DijkstraAlgorithm {
 
     public record SimulationResult(PathResult finalPathResult, List<StepEvent> steps) {}
 
-    // Dijkstra's algorithm with simulation steps
+    // Dijkstra's algorithm with simulation steps, all of them materialized in a list
     public SimulationResult findShortestPathWithSimulation(Node start, Node end) {
-        Map<Node, Double> distances = new HashMap<>(); 
-        Map<Node, Node> previousNodes = new HashMap<>();
-        
-        Set<Node> nodesInQueue = new HashSet<>();
-        PriorityQueue<Node> queue = new PriorityQueue<>(
-            Comparator.comparingDouble(distances::get)
-        );
         List<StepEvent> simulationSteps = new ArrayList<>();
+        PathResult finalResult = findShortestPath(start, end, simulationSteps::add);
+        return new SimulationResult(finalResult, simulationSteps);
+    }
 
+    // Dijkstra's algorithm reporting each step to the listener as it happens.
+    // Event objects are only created when listener.isEnabled(), so StepListener.NONE costs nothing.
+    public PathResult findShortestPath(Node start, Node end, StepListener listener) {
+        return findShortestPath(start, end, listener, SearchWorkspace.forCurrentThread());
+    }
 
-        for (Node node : graph.getNodes()) {
-            distances.put(node, Double.POSITIVE_INFINITY);
-            previousNodes.put(node, null);
-        }
-
+    public PathResult findShortestPath(Node start, Node end, StepListener listener, SearchWorkspace workspace) {
+        IndexedGraph g = graph.getIndexedGraph();
         if (start == null) {
              System.err.println("Start node is null!");
-             return new SimulationResult(new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false), simulationSteps);
+             return new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false);
+        }
+        int source = g.idOf(start.getName());
+        int target = end == null ? -1 : g.idOf(end.getName());
+        if (source < 0 || target < 0) {
+            return new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false);
+        }
+
+        QueryEvent event = RoutingMetrics.ENABLED ? TRACED_METRICS.begin(source, target) : null;
+        workspace.begin(g.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+        if (listener.isEnabled()) {
+            listener.onStep(new QueueUpdateEvent(start, 0.0));
         }
 
-        distances.put(start, 0.0);
-        queue.add(start);
-        nodesInQueue.add(start);
-        simulationSteps.add(new QueueUpdateEvent(start, 0.0));
+        int settled = 0;
+        long relaxed = 0;
 
         // Main loop of Dijkstra's algorithm
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
-            nodesInQueue.remove(current); 
-            simulationSteps.add(new NodeVisitedEvent(current, distances.get(current)));
-
-        
-            if (current.equals(end)) {
-                break; 
+        while (!heap.isEmpty()) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            settled++;
+            if (listener.isCancelled()) {
+                throw new CancellationException("Search from " + start.getName() + " cancelled");
+            }
+            if (listener.isEnabled()) {
+                listener.onStep(new NodeVisitedEvent(g.node(current), currentDist));
             }
 
-            if (Double.isInfinite(distances.get(current))) {
+            if (current == target) {
                 break;
             }
+            if (RoutingMetrics.ENABLED) {
+                relaxed += g.endEdge(current) - g.firstEdge(current);
+            }
 
-            for (Edge edge : graph.getEdgesFromNode(current)) {
-                Node neighbor = edge.getDestination();
-                double newDist = distances.get(current) + edge.getDistance();
+            for (int e = g.firstEdge(current), last = g.endEdge(current); e < last; e++) {
+                int neighbor = g.target(e);
+                double newDist = currentDist + g.weight(e);
                 boolean updated = false;
 
-                if (newDist < distances.get(neighbor)) {
-                    distances.put(neighbor, newDist);
-                    previousNodes.put(neighbor, current);
+                if (newDist < workspace.distance(neighbor)) {
+                    workspace.update(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
                     updated = true;
-                   
-                    if (nodesInQueue.contains(neighbor)) {
-                         queue.remove(neighbor); 
+                    if (listener.isEnabled()) {
+                        listener.onStep(new QueueUpdateEvent(g.node(neighbor), newDist));
                     }
-                    queue.add(neighbor);
-                    nodesInQueue.add(neighbor);
-                    simulationSteps.add(new QueueUpdateEvent(neighbor, newDist)); 
                 }
-                 simulationSteps.add(new EdgeRelaxedEvent(edge, neighbor, newDist, updated));
+                if (listener.isEnabled()) {
+                    Node neighborNode = g.node(neighbor);
+                    Edge edge = new Edge(g.node(current), neighborNode, g.weight(e));
+                    listener.onStep(new EdgeRelaxedEvent(edge, neighborNode, newDist, updated));
+                }
             }
         }
 
-        // Build path
-        List<Node> path = new ArrayList<>();
-        boolean reachable = distances.get(end) != Double.POSITIVE_INFINITY;
-        if (reachable) {
-             for (Node at = end; at != null; at = previousNodes.get(at)) {
-                 path.add(at);
-             }
-             Collections.reverse(path);
-             
-             if (path.isEmpty() && start.equals(end)) {
-                 path.add(start);
-             } else if (!path.isEmpty() && !path.get(0).equals(start)) {
-                 
-                  System.err.println("Path reconstruction error: Path doesn't start with the start node.");
-                  
-                   reachable = false;
-                   path.clear();
-             }
+        PathResult result = buildPath(g, workspace, source, target, settled);
+        if (RoutingMetrics.ENABLED) {
+            workspace.finishQuery(TRACED_METRICS, event, relaxed, false, result);
         }
+        return result;
+    }
 
-        PathResult finalResult = new PathResult(path, distances.get(end), reachable);
-        return new SimulationResult(finalResult, simulationSteps);
+    // Fast path on node ids: no step recording, no boxing, no per-query clearing
+    @Override
+    public PathResult findShortestPath(int source, int target, SearchWorkspace workspace) {
+        IndexedGraph g = graph.getIndexedGraph();
+        checkNode(g, source);
+        checkNode(g, target);
+
+        QueryEvent event = RoutingMetrics.ENABLED ? METRICS.begin(source, target) : null;
+        workspace.begin(g.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+        int settled = 0;
+        long relaxed = 0;
+
+        while (!heap.isEmpty()) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            settled++;
+            if (current == target) {
+                break;
+            }
+            if (RoutingMetrics.ENABLED) {
+                relaxed += g.endEdge(current) - g.firstEdge(current);
+            }
+            for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                int neighbor = g.target(e);
+                double newDist = currentDist + g.weight(e);
+                if (newDist < workspace.distance(neighbor)) {
+                    workspace.update(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+        PathResult result = buildPath(g, workspace, source, target, settled);
+        if (RoutingMetrics.ENABLED) {
+            workspace.finishQuery(METRICS, event, relaxed, false, result);
+        }
+        return result;
+    }
+
+    static void checkNode(IndexedGraph g, int node) {
+        if (node < 0 || node >= g.nodeCount()) {
+            throw new IllegalArgumentException("Node id " + node + " is out of range [0, " + g.nodeCount() + ")");
+        }
+    }
+
+    // Walks the predecessor chain of a finished search back from target
+    static PathResult buildPath(IndexedGraph g, SearchWorkspace workspace, int source, int target, int settled) {
+        double distance = workspace.distance(target);
+        if (distance == Double.POSITIVE_INFINITY) {
+            return new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false, settled);
+        }
+        List<Node> path = new ArrayList<>();
+        for (int at = target; at != -1; at = workspace.predecessor(at)) {
+            path.add(g.node(at));
+        }
+        Collections.reverse(path);
+        return new PathResult(path, distance, true, settled);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,113 @@
+package algorithm;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Dense rows x cols table of distances (row = source, col = target), row-major.
+// Unreachable pairs hold Double.POSITIVE_INFINITY. Different rows may be written concurrently.
+public interface DistanceMatrix {
+
+    int rows();
+
+    int cols();
+
+    double get(int row, int col);
+
+    void set(int row, int col, double distance);
+
+    static InMemory inMemory(int rows, int cols) {
+        return new InMemory(rows, cols);
+    }
+
+    // Backed by a memory-mapped file of rows * cols little-endian doubles
+    static Mapped mapped(Path file, int rows, int cols) throws IOException {
+        return new Mapped(file, rows, cols);
+    }
+
+    final class InMemory implements DistanceMatrix {
+        private final int rows;
+        private final int cols;
+        private final double[] values;
+
+        InMemory(int rows, int cols) {
+            long size = (long) rows * cols;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Matrix too large for an array (" + size + " cells), use a mapped matrix");
+            }
+            this.rows = rows;
+            this.cols = cols;
+            this.values = new double[(int) size];
+            Arrays.fill(values, Double.POSITIVE_INFINITY);
+        }
+
+        @Override public int rows() { return rows; }
+        @Override public int cols() { return cols; }
+        @Override public double get(int row, int col) { return values[row * cols + col]; }
+        @Override public void set(int row, int col, double distance) { values[row * cols + col] = distance; }
+
+        // The backing row-major array
+        public double[] values() { return values; }
+    }
+
+    // Split into 1 GiB mappings, since one MappedByteBuffer cannot exceed 2 GB
+    final class Mapped implements DistanceMatrix, AutoCloseable {
+        private static final int SEGMENT_SHIFT = 27; // 2^27 doubles per segment
+        private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+        private final int rows;
+        private final int cols;
+        private final MappedByteBuffer[] segments;
+        private final DoubleBuffer[] views;
+
+        Mapped(Path file, int rows, int cols) throws IOException {
+            this.rows = rows;
+            this.cols = cols;
+            long cells = (long) rows * cols;
+            int count = (int) ((cells + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+            segments = new MappedByteBuffer[count];
+            views = new DoubleBuffer[count];
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (int i = 0; i < count; i++) {
+                    long first = (long) i << SEGMENT_SHIFT;
+                    long length = Math.min(cells - first, 1L << SEGMENT_SHIFT);
+                    segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, first * 8, length * 8);
+                    segments[i].order(ByteOrder.LITTLE_ENDIAN);
+                    views[i] = segments[i].asDoubleBuffer();
+                    for (int j = 0; j < length; j++) {
+                        views[i].put(j, Double.POSITIVE_INFINITY);
+                    }
+                }
+            }
+        }
+
+        @Override public int rows() { return rows; }
+        @Override public int cols() { return cols; }
+
+        @Override
+        public double get(int row, int col) {
+            long index = (long) row * cols + col;
+            return views[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+        }
+
+        @Override
+        public void set(int row, int col, double distance) {
+            long index = (long) row * cols + col;
+            views[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), distance);
+        }
+
+        // Flushes all written rows to the file
+        @Override
+        public void close() {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import model.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Origin x destination distance tables.
+//
+// One-to-many mode (plain graph): one Dijkstra per source that stops as soon as every target is
+// settled, instead of one point-to-point search per pair.
+// Bucket mode (with a ContractionHierarchy): one upward backward search per target drops
+// (target, distance) entries into buckets at every node it settles; one upward forward search
+// per source then scans the buckets of the nodes it settles. Cost is O(|S| + |T|) small CH
+// searches plus bucket scans, instead of |S| full Dijkstra runs, which pays off for large tables.
+//
+// Sources are processed in parallel with fork/join; rows go to a DistanceMatrix (array or mapped
+// file). PathResults are only built for the cells the caller asks for.
+public final class DistanceMatrixEngine {
+
+    public record MatrixCell(int row, int col) {}
+
+    private static final int ROWS_PER_TASK = 4;
+
+    private final IndexedGraph graph;
+    private final ContractionHierarchy ch; // null: one-to-many mode
+    private final ForkJoinPool pool;
+    private final Queue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    public DistanceMatrixEngine(IndexedGraph graph) {
+        this(graph, null, ForkJoinPool.commonPool());
+    }
+
+    public DistanceMatrixEngine(ContractionHierarchy ch) {
+        this(ch.graph(), ch, ForkJoinPool.commonPool());
+    }
+
+    public DistanceMatrixEngine(IndexedGraph graph, ContractionHierarchy ch, ForkJoinPool pool) {
+        this.graph = graph;
+        this.ch = ch;
+        this.pool = pool;
+    }
+
+    // Distances from one source to each target, with a single early-terminating search
+    public double[] oneToMany(int source, int[] targets) {
+        boolean[] isTarget = new boolean[graph.nodeCount()];
+        int distinct = markTargets(targets, isTarget);
+        SearchWorkspace workspace = SearchWorkspace.forCurrentThread();
+        searchToTargets(source, isTarget, distinct, workspace);
+        double[] row = new double[targets.length];
+        for (int j = 0; j < targets.length; j++) {
+            row[j] = workspace.distance(targets[j]);
+        }
+        return row;
+    }
+
+    public DistanceMatrix.InMemory matrix(int[] sources, int[] targets) {
+        DistanceMatrix.InMemory out = DistanceMatrix.inMemory(sources.length, targets.length);
+        compute(sources, targets, out, null);
+        return out;
+    }
+
+    // Fills out (sources.length x targets.length) and returns the paths for pathCells (may be null)
+    public Map<MatrixCell, PathResult> compute(int[] sources, int[] targets, DistanceMatrix out,
+                                               Collection<MatrixCell> pathCells) {
+        if (out.rows() != sources.length || out.cols() != targets.length) {
+            throw new IllegalArgumentException("Matrix is " + out.rows() + "x" + out.cols()
+                    + " but the query is " + sources.length + "x" + targets.length);
+        }
+        for (int s : sources) DijkstraAlgorithm.checkNode(graph, s);
+        for (int t : targets) DijkstraAlgorithm.checkNode(graph, t);
+
+        int[][] pathColsByRow = new int[sources.length][];
+        if (pathCells != null) {
+            for (MatrixCell cell : pathCells) {
+                int[] cols = pathColsByRow[cell.row()];
+                cols = cols == null ? new int[1] : Arrays.copyOf(cols, cols.length + 1);
+                cols[cols.length - 1] = cell.col();
+                pathColsByRow[cell.row()] = cols;
+            }
+        }
+
+        Map<MatrixCell, PathResult> paths = new ConcurrentHashMap<>();
+        if (ch == null) {
+            boolean[] isTarget = new boolean[graph.nodeCount()];
+            int distinct = markTargets(targets, isTarget);
+            forEachRow(sources.length, (row, workspace) -> {
+                int settled = searchToTargets(sources[row], isTarget, distinct, workspace);
+                for (int j = 0; j < targets.length; j++) {
+                    out.set(row, j, workspace.distance(targets[j]));
+                }
+                if (pathColsByRow[row] != null) {
+                    for (int col : pathColsByRow[row]) {
+                        paths.put(new MatrixCell(row, col),
+                                DijkstraAlgorithm.buildPath(graph, workspace, sources[row], targets[col], settled));
+                    }
+                }
+            });
+        } else {
+            Buckets buckets = fillBuckets(targets);
+            ShortestPathEngine pathEngine = new ContractionHierarchyEngine(ch);
+            forEachRow(sources.length, (row, workspace) -> {
+                double[] best = new double[targets.length];
+                Arrays.fill(best, Double.POSITIVE_INFINITY);
+                upwardSearch(sources[row], true, workspace, (node, distance) -> {
+                    for (int i = buckets.offsets[node], end = buckets.offsets[node + 1]; i < end; i++) {
+                        int col = buckets.cols[i];
+                        best[col] = Math.min(best[col], distance + buckets.distances[i]);
+                    }
+                });
+                for (int j = 0; j < targets.length; j++) {
+                    out.set(row, j, best[j]);
+                }
+                if (pathColsByRow[row] != null) {
+                    for (int col : pathColsByRow[row]) {
+                        paths.put(new MatrixCell(row, col),
+                                pathEngine.findShortestPath(sources[row], targets[col], workspace));
+                    }
+                }
+            });
+        }
+        return paths;
+    }
+
+    private static int markTargets(int[] targets, boolean[] isTarget) {
+        int distinct = 0;
+        for (int t : targets) {
+            if (!isTarget[t]) {
+                isTarget[t] = true;
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    // Dijkstra from source until every marked target is settled (or nothing is left to settle).
+    // Returns the number of settled nodes.
+    private int searchToTargets(int source, boolean[] isTarget, int remaining, SearchWorkspace workspace) {
+        workspace.begin(graph.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+        int settled = 0;
+        while (!heap.isEmpty() && remaining > 0) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            settled++;
+            if (isTarget[current]) {
+                remaining--;
+            }
+            for (int e = graph.firstEdge(current), end = graph.endEdge(current); e < end; e++) {
+                int neighbor = graph.target(e);
+                double newDist = currentDist + graph.weight(e);
+                if (newDist < workspace.distance(neighbor)) {
+                    workspace.update(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+        return settled;
+    }
+
+    // Bucket entries grouped by node in CSR form
+    private static final class Buckets {
+        int[] offsets;
+        int[] cols;
+        double[] distances;
+    }
+
+    // One backward upward search per target, then a counting sort of all entries by node
+    private Buckets fillBuckets(int[] targets) {
+        int n = graph.nodeCount();
+        int[][] nodesByTarget = new int[targets.length][];
+        double[][] distancesByTarget = new double[targets.length][];
+        forEachRow(targets.length, (col, workspace) -> {
+            int[] size = {0};
+            int[][] nodes = {new int[64]};
+            double[][] distances = {new double[64]};
+            upwardSearch(targets[col], false, workspace, (node, distance) -> {
+                if (size[0] == nodes[0].length) {
+                    nodes[0] = Arrays.copyOf(nodes[0], size[0] * 2);
+                    distances[0] = Arrays.copyOf(distances[0], size[0] * 2);
+                }
+                nodes[0][size[0]] = node;
+                distances[0][size[0]++] = distance;
+            });
+            nodesByTarget[col] = Arrays.copyOf(nodes[0], size[0]);
+            distancesByTarget[col] = Arrays.copyOf(distances[0], size[0]);
+        });
+
+        Buckets buckets = new Buckets();
+        buckets.offsets = new int[n + 1];
+        for (int[] nodes : nodesByTarget) {
+            for (int node : nodes) buckets.offsets[node + 1]++;
+        }
+        for (int u = 0; u < n; u++) {
+            buckets.offsets[u + 1] += buckets.offsets[u];
+        }
+        int total = buckets.offsets[n];
+        buckets.cols = new int[total];
+        buckets.distances = new double[total];
+        int[] cursor = Arrays.copyOf(buckets.offsets, n);
+        for (int col = 0; col < targets.length; col++) {
+            int[] nodes = nodesByTarget[col];
+            for (int i = 0; i < nodes.length; i++) {
+                int slot = cursor[nodes[i]]++;
+                buckets.cols[slot] = col;
+                buckets.distances[slot] = distancesByTarget[col][i];
+            }
+        }
+        return buckets;
+    }
+
+    private interface SettledVisitor {
+        void settled(int node, double distance);
+    }
+
+    private interface RowTask {
+        void run(int row, SearchWorkspace workspace);
+    }
+
+    // Full upward CH search (forward on upward edges, or backward on downward edges)
+    private void upwardSearch(int start, boolean forward, SearchWorkspace workspace, SettledVisitor visitor) {
+        workspace.begin(graph.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(start, 0.0, -1);
+        heap.insertOrDecrease(start, 0.0);
+        while (!heap.isEmpty()) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            visitor.settled(current, currentDist);
+            int first = forward ? ch.firstUpEdge(current) : ch.firstDownEdge(current);
+            int end = forward ? ch.endUpEdge(current) : ch.endDownEdge(current);
+            for (int i = first; i < end; i++) {
+                int e = forward ? ch.upEdge(i) : ch.downEdge(i);
+                int next = forward ? ch.edgeTarget(e) : ch.edgeSource(e);
+                double newDist = currentDist + ch.edgeWeight(e);
+                if (newDist < workspace.distance(next)) {
+                    workspace.update(next, newDist, e);
+                    heap.insertOrDecrease(next, newDist);
+                }
+            }
+        }
+    }
+
+    private void forEachRow(int rows, RowTask task) {
+        pool.invoke(new RowRange(0, rows, task));
+    }
+
+    @SuppressWarnings("serial")
+    private final class RowRange extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final RowTask task;
+
+        RowRange(int from, int to, RowTask task) {
+            this.from = from;
+            this.to = to;
+            this.task = task;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RowRange(from, mid, task), new RowRange(mid, to, task));
+                return;
+            }
+            SearchWorkspace workspace = workspaces.poll();
+            if (workspace == null) {
+                workspace = new SearchWorkspace();
+            }
+            try {
+                for (int row = from; row < to; row++) {
+                    task.run(row, workspace);
+                }
+            } finally {
+                workspaces.offer(workspace);
+            }
+        }
+    }
+}
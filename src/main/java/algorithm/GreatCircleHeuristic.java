@@ -0,0 +1,54 @@
+package algorithm;
+
+import model.GeoUtils;
+import model.IndexedGraph;
+
+// Great-circle (haversine) lower bound between two nodes' latitude/longitude.
+// Edge weights in the data are not guaranteed to be at least the straight-line distance
+// (hand-entered road lengths can be shorter than the coordinates suggest), so the bound is
+// scaled by the smallest weight/great-circle ratio over all edges. That keeps it admissible
+// and consistent on any input: scale * gc(u, v) <= w(u, v) for every edge.
+public final class GreatCircleHeuristic implements Heuristic {
+
+    private final double[] phi;    // latitude, radians
+    private final double[] lambda; // longitude, radians
+    private final double[] cosPhi;
+    private final double scale;    // meters of weight per meter of great-circle distance
+
+    public GreatCircleHeuristic(IndexedGraph graph) {
+        int n = graph.nodeCount();
+        phi = new double[n];
+        lambda = new double[n];
+        cosPhi = new double[n];
+        for (int i = 0; i < n; i++) {
+            phi[i] = Math.toRadians(graph.latitude(i));
+            lambda[i] = Math.toRadians(graph.longitude(i));
+            cosPhi[i] = Math.cos(phi[i]);
+        }
+
+        double minRatio = 1.0;
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                double straight = distanceMeters(u, graph.target(e));
+                if (straight > 0) {
+                    minRatio = Math.min(minRatio, graph.weight(e) / straight);
+                }
+            }
+        }
+        scale = Math.max(0.0, minRatio) * (1 - 1e-9); // absorb rounding in the trigonometry
+    }
+
+    @Override
+    public double lowerBound(int from, int to) {
+        return scale * distanceMeters(from, to);
+    }
+
+    public double scale() { return scale; }
+
+    private double distanceMeters(int u, int v) {
+        double sinDPhi = Math.sin((phi[v] - phi[u]) / 2);
+        double sinDLambda = Math.sin((lambda[v] - lambda[u]) / 2);
+        double a = sinDPhi * sinDPhi + cosPhi[u] * cosPhi[v] * sinDLambda * sinDLambda;
+        return 2 * GeoUtils.EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,15 @@
+package algorithm;
+
+// Lower bound on shortest-path distances used to direct A* style searches.
+// Implementations must be consistent (h(u, t) <= w(u, v) + h(v, t) for every edge, and the
+// symmetric condition for the source side), otherwise the engines may return longer paths.
+@FunctionalInterface
+public interface Heuristic {
+
+    // No goal direction: A* degenerates to Dijkstra
+    Heuristic ZERO = (from, to) -> 0.0;
+
+    // Lower bound on the distance from node `from` to node `to`; +Infinity if `to` is provably
+    // unreachable from `from`, and the engines then do not expand that node at all
+    double lowerBound(int from, int to);
+}
@@ -0,0 +1,148 @@
+package algorithm;
+
+import metrics.RoutingMetrics;
+
+import java.util.Arrays;
+
+// Indexed d-ary min-heap of node ids keyed by double distances.
+// positions[node] tracks where each node sits in the heap, so decrease-key is a real
+// O(log_d V) sift-up instead of PriorityQueue.remove's O(V) scan, and no key is ever boxed.
+// A 4-ary layout keeps the children of a slot in one cache line and halves the tree height.
+public final class IndexedDaryHeap {
+
+    private final int arity;
+    private int[] nodes = new int[0];
+    private double[] keys = new double[0];
+    private int[] positions = new int[0]; // -1 when the node is not in the heap
+    private int size;
+    // operations since the last clear(), only counted with RoutingMetrics.ENABLED
+    private long inserts;
+    private long decreases;
+    private long polls;
+
+    public IndexedDaryHeap(int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2: " + arity);
+        }
+        this.arity = arity;
+    }
+
+    // Makes room for node ids 0..nodeCount-1; only grows, so reuse across queries is free
+    public void ensureCapacity(int nodeCount) {
+        if (positions.length < nodeCount) {
+            int old = positions.length;
+            positions = Arrays.copyOf(positions, nodeCount);
+            Arrays.fill(positions, old, nodeCount, -1);
+            nodes = Arrays.copyOf(nodes, nodeCount);
+            keys = Arrays.copyOf(keys, nodeCount);
+        }
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+
+    public boolean contains(int node) {
+        return positions[node] >= 0;
+    }
+
+    public int peek() { return nodes[0]; }
+    public double peekKey() { return keys[0]; }
+
+    // Inserts the node, or lowers its key if it is already queued with a larger one.
+    // Returns true if the heap changed.
+    public boolean insertOrDecrease(int node, double key) {
+        int pos = positions[node];
+        if (pos < 0) {
+            pos = size++;
+            if (RoutingMetrics.ENABLED) {
+                inserts++;
+            }
+        } else if (key >= keys[pos]) {
+            return false;
+        } else if (RoutingMetrics.ENABLED) {
+            decreases++;
+        }
+        siftUp(pos, node, key);
+        return true;
+    }
+
+    // Inserts the node or moves it to the new key in either direction
+    public void changeKey(int node, double key) {
+        int pos = positions[node];
+        if (pos < 0) {
+            siftUp(size++, node, key);
+        } else if (key < keys[pos]) {
+            siftUp(pos, node, key);
+        } else {
+            siftDown(pos, node, key);
+        }
+    }
+
+    public int poll() {
+        if (RoutingMetrics.ENABLED) {
+            polls++;
+        }
+        int top = nodes[0];
+        positions[top] = -1;
+        int last = --size;
+        if (last > 0) {
+            siftDown(0, nodes[last], keys[last]);
+        }
+        return top;
+    }
+
+    // Only the entries still queued need resetting, not the whole positions array
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[nodes[i]] = -1;
+        }
+        size = 0;
+        if (RoutingMetrics.ENABLED) {
+            inserts = decreases = polls = 0;
+        }
+    }
+
+    public long inserts() { return inserts; }
+    public long decreases() { return decreases; }
+    public long polls() { return polls; }
+
+    private void siftUp(int pos, int node, double key) {
+        while (pos > 0) {
+            int parent = (pos - 1) / arity;
+            if (keys[parent] <= key) {
+                break;
+            }
+            move(nodes[parent], keys[parent], pos);
+            pos = parent;
+        }
+        move(node, key, pos);
+    }
+
+    private void siftDown(int pos, int node, double key) {
+        while (true) {
+            int first = pos * arity + 1;
+            if (first >= size) {
+                break;
+            }
+            int end = Math.min(first + arity, size);
+            int best = first;
+            for (int c = first + 1; c < end; c++) {
+                if (keys[c] < keys[best]) {
+                    best = c;
+                }
+            }
+            if (keys[best] >= key) {
+                break;
+            }
+            move(nodes[best], keys[best], pos);
+            pos = best;
+        }
+        move(node, key, pos);
+    }
+
+    private void move(int node, double key, int pos) {
+        nodes[pos] = node;
+        keys[pos] = key;
+        positions[node] = pos;
+    }
+}
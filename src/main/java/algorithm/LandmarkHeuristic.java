@@ -0,0 +1,462 @@
+package algorithm;
+
+import model.IndexedGraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// ALT lower bounds (A*, Landmarks, Triangle inequality). For a handful of landmark nodes L the
+// exact distances d(L, v) and d(v, L) to every node are precomputed; then for any u, t
+//   d(u, t) >= d(u, L) - d(t, L)   and   d(u, t) >= d(L, t) - d(L, u)
+// and the bound is the best of these over all landmarks. Unlike the great-circle bound it
+// knows about rivers, ring roads and one-way streets, because it is made of real distances.
+//
+// Tables are floats, interleaved per node (the 2k values of a node share a cache line or two),
+// 8 bytes per node and landmark. Float rounding can push a difference up by at most one ulp of
+// the largest distance, so that much is subtracted from every bound to keep it admissible; the
+// engines re-insert a node if a later path is shorter, so they stay exact with it.
+// The tables hold for the weights they were computed on and for any snapshot that only raises
+// weights or closes edges; after a weight decrease they must be recomputed.
+public final class LandmarkHeuristic implements Heuristic {
+
+    static final int MAGIC = 0x4C465053; // "SPFL" read as little endian
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int START_ATTEMPTS = 8;
+
+    public enum Selection {
+        // each landmark is the node farthest from the ones chosen so far
+        FARTHEST,
+        // Goldberg-Werneck: from a random root, descend into the shortest-path subtree where the
+        // current bounds are weakest and take its leaf
+        AVOID
+    }
+
+    private final int nodeCount;
+    private final int[] landmarks;
+    private final float[] toLandmark;   // [v * k + l] = d(v, L_l)
+    private final float[] fromLandmark; // [v * k + l] = d(L_l, v)
+    private final double slack;
+
+    private LandmarkHeuristic(int nodeCount, int[] landmarks, float[] toLandmark, float[] fromLandmark) {
+        this.nodeCount = nodeCount;
+        this.landmarks = landmarks;
+        this.toLandmark = toLandmark;
+        this.fromLandmark = fromLandmark;
+        float largest = 0;
+        for (float d : toLandmark) {
+            if (d != Float.POSITIVE_INFINITY) largest = Math.max(largest, d);
+        }
+        for (float d : fromLandmark) {
+            if (d != Float.POSITIVE_INFINITY) largest = Math.max(largest, d);
+        }
+        slack = Math.ulp(largest);
+    }
+
+    // Selects `count` landmarks and computes both tables; the 2 * count full searches run on the pool
+    public static LandmarkHeuristic compute(IndexedGraph graph, int count, Selection selection, long seed,
+                                            ForkJoinPool pool) {
+        int n = graph.nodeCount();
+        if (count < 1 || count > n) {
+            throw new IllegalArgumentException("Landmark count must be in [1, " + n + "], got " + count);
+        }
+        // columns[2l] = d(v, L_l) for every v, columns[2l + 1] = d(L_l, v); selection may fill some
+        float[][] columns = new float[2 * count][];
+        int[] landmarks = selection == Selection.FARTHEST
+                ? selectFarthest(graph, count, seed) : selectAvoid(graph, count, seed, columns);
+        List<RecursiveAction> searches = new ArrayList<>();
+        for (int i = 0; i < 2 * count; i++) {
+            if (columns[i] != null) {
+                continue;
+            }
+            int column = i;
+            searches.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    fillColumn(graph, landmarks[column / 2], column, columns, new SearchWorkspace());
+                }
+            });
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(searches);
+            }
+        });
+        float[] to = new float[n * count];
+        float[] from = new float[n * count];
+        for (int l = 0; l < count; l++) {
+            float[] toColumn = columns[2 * l];
+            float[] fromColumn = columns[2 * l + 1];
+            for (int v = 0; v < n; v++) {
+                to[v * count + l] = toColumn[v];
+                from[v * count + l] = fromColumn[v];
+            }
+        }
+        return new LandmarkHeuristic(n, landmarks, to, from);
+    }
+
+    @Override
+    public double lowerBound(int from, int to) {
+        int k = landmarks.length;
+        int u = from * k;
+        int t = to * k;
+        double best = 0;
+        for (int l = 0; l < k; l++) {
+            float tToL = toLandmark[t + l];
+            if (tToL != Float.POSITIVE_INFINITY) { // u cannot reach L but t can: u cannot reach t
+                best = Math.max(best, (double) toLandmark[u + l] - tToL);
+            }
+            float lToU = fromLandmark[u + l];
+            if (lToU != Float.POSITIVE_INFINITY) { // L reaches u but not t: neither does u
+                best = Math.max(best, (double) fromLandmark[t + l] - lToU);
+            }
+        }
+        return best == Double.POSITIVE_INFINITY ? best : Math.max(0.0, best - slack);
+    }
+
+    public int[] landmarks() {
+        return landmarks.clone();
+    }
+
+    public long tableBytes() {
+        return 4L * (toLandmark.length + fromLandmark.length);
+    }
+
+    // Little endian: int magic "SPFL", int version, int nodeCount, int edgeCount, int landmarkCount,
+    // int padding, long fingerprint of the graph's edges and weights, then int landmarks[k],
+    // float toLandmark[n * k], float fromLandmark[n * k]
+    public void save(Path file, IndexedGraph graph) throws IOException {
+        checkSize(graph);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + 4 * landmarks.length).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(nodeCount).putInt(graph.edgeCount())
+                    .putInt(landmarks.length).putInt(0).putLong(fingerprint(graph));
+            for (int l : landmarks) {
+                header.putInt(l);
+            }
+            writeFully(channel, header.flip());
+            writeFloats(channel, toLandmark);
+            writeFloats(channel, fromLandmark);
+        }
+    }
+
+    // Tables saved for this graph; rejects files written for other nodes, edges or weights
+    public static LandmarkHeuristic load(Path file, IndexedGraph graph) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, HEADER_BYTES);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a landmark table file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported landmark table version " + version);
+            }
+            int n = header.getInt();
+            int m = header.getInt();
+            int k = header.getInt();
+            header.getInt();
+            long fingerprint = header.getLong();
+            if (n != graph.nodeCount() || m != graph.edgeCount() || fingerprint != fingerprint(graph)) {
+                throw new IOException("Landmark tables in " + file + " were computed for a different graph");
+            }
+            ByteBuffer ids = readFully(channel, 4 * k);
+            int[] landmarks = new int[k];
+            for (int l = 0; l < k; l++) {
+                landmarks[l] = ids.getInt();
+            }
+            float[] to = new float[n * k];
+            float[] from = new float[n * k];
+            readFully(channel, 4 * to.length).asFloatBuffer().get(to);
+            readFully(channel, 4 * from.length).asFloatBuffer().get(from);
+            return new LandmarkHeuristic(n, landmarks, to, from);
+        }
+    }
+
+    private void checkSize(IndexedGraph graph) {
+        if (graph.nodeCount() != nodeCount) {
+            throw new IllegalArgumentException("Tables have " + nodeCount + " nodes, the graph " + graph.nodeCount());
+        }
+    }
+
+    // First landmark: farthest from a random node of the largest component found among a few
+    // tries; each next one maximizes the distance to the nearest chosen landmark (one
+    // multi-source search per landmark), ignoring edge direction
+    private static int[] selectFarthest(IndexedGraph graph, int count, long seed) {
+        int n = graph.nodeCount();
+        int[] landmarks = new int[count];
+        SearchWorkspace workspace = new SearchWorkspace();
+        UndirectedGraph undirected = new UndirectedGraph(graph);
+        Random random = new Random(seed);
+        int start = random.nextInt(n);
+        int reach = undirected.search(new int[] {start}, workspace);
+        for (int attempt = 1; attempt < START_ATTEMPTS && reach < n / 2; attempt++) {
+            int candidate = random.nextInt(n);
+            int candidateReach = undirected.search(new int[] {candidate}, workspace);
+            if (candidateReach > reach) {
+                start = candidate;
+                reach = candidateReach;
+            }
+        }
+        int[] sources = {start};
+        for (int l = 0; l < count; l++) {
+            undirected.search(sources, workspace);
+            landmarks[l] = farthest(workspace, n, landmarks, l);
+            sources = Arrays.copyOf(landmarks, l + 1);
+        }
+        return landmarks;
+    }
+
+    // Reached node with the largest distance. Unreached nodes are skipped: road data has many
+    // tiny disconnected pockets, and a landmark in one of them bounds nothing elsewhere.
+    private static int farthest(SearchWorkspace workspace, int n, int[] chosen, int chosenCount) {
+        int best = -1;
+        double bestDistance = -1;
+        for (int v = 0; v < n; v++) {
+            double d = workspace.distance(v);
+            if (d > bestDistance && d < Double.POSITIVE_INFINITY && !contains(chosen, chosenCount, v)) {
+                best = v;
+                bestDistance = d;
+            }
+        }
+        for (int v = 0; best < 0 && v < n; v++) { // everything reached is taken already
+            if (!contains(chosen, chosenCount, v)) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    // Goldberg & Werneck's avoid: for a random root r, weight each node by how far the current
+    // bound from r is below the true distance; a subtree of r's shortest-path tree that contains
+    // a landmark is worthless. From the node with the heaviest subtree, walk down to a leaf via
+    // the heaviest children and take that leaf. The first landmark is chosen as in FARTHEST.
+    // The columns of every landmark whose bounds were needed are left in `columns`.
+    private static int[] selectAvoid(IndexedGraph graph, int count, long seed, float[][] columns) {
+        int n = graph.nodeCount();
+        Random random = new Random(seed);
+        int[] landmarks = new int[count];
+        landmarks[0] = selectFarthest(graph, 1, seed)[0];
+        SearchWorkspace workspace = new SearchWorkspace();
+        int[] settleOrder = new int[n];
+        double[] size = new double[n];
+        boolean[] hasLandmark = new boolean[n];
+        int[] childStart = new int[n + 1];
+        int[] children = new int[n];
+        for (int l = 1; l < count; l++) {
+            fillColumn(graph, landmarks[l - 1], 2 * (l - 1), columns, workspace);
+            fillColumn(graph, landmarks[l - 1], 2 * (l - 1) + 1, columns, workspace);
+            int root = random.nextInt(n);
+            for (int attempt = 1; attempt < START_ATTEMPTS && columns[1][root] == Float.POSITIVE_INFINITY; attempt++) {
+                root = random.nextInt(n); // prefer a root the first landmark reaches, not a stray pocket
+            }
+            int settled = search(graph, root, workspace, settleOrder);
+            Arrays.fill(size, 0);
+            Arrays.fill(hasLandmark, false);
+            for (int i = 0; i < l; i++) {
+                hasLandmark[landmarks[i]] = true;
+            }
+            for (int i = settled - 1; i >= 0; i--) { // children are settled after their parents
+                int v = settleOrder[i];
+                if (hasLandmark[v]) {
+                    size[v] = 0;
+                } else {
+                    size[v] += workspace.distance(v) - bound(columns, l, root, v);
+                }
+                int parent = workspace.predecessor(v);
+                if (parent >= 0) {
+                    hasLandmark[parent] |= hasLandmark[v];
+                    size[parent] += size[v];
+                }
+            }
+            int at = -1;
+            for (int i = 0; i < settled; i++) {
+                int v = settleOrder[i];
+                if (!hasLandmark[v] && (at < 0 || size[v] > size[at])) {
+                    at = v;
+                }
+            }
+            if (at < 0) { // every subtree holds a landmark: fall back to the farthest node
+                new UndirectedGraph(graph).search(Arrays.copyOf(landmarks, l), workspace);
+                landmarks[l] = farthest(workspace, n, landmarks, l);
+                continue;
+            }
+            // descend to a leaf through the heaviest child; children grouped by parent, CSR style
+            Arrays.fill(childStart, 0);
+            for (int i = 0; i < settled; i++) {
+                int parent = workspace.predecessor(settleOrder[i]);
+                if (parent >= 0) childStart[parent + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                childStart[v + 1] += childStart[v];
+            }
+            int[] cursor = Arrays.copyOf(childStart, n);
+            for (int i = 0; i < settled; i++) {
+                int parent = workspace.predecessor(settleOrder[i]);
+                if (parent >= 0) children[cursor[parent]++] = settleOrder[i];
+            }
+            while (childStart[at] < childStart[at + 1]) {
+                int next = children[childStart[at]];
+                for (int c = childStart[at]; c < childStart[at + 1]; c++) {
+                    if (size[children[c]] > size[next]) next = children[c];
+                }
+                at = next;
+            }
+            landmarks[l] = at;
+        }
+        return landmarks;
+    }
+
+    // Landmark bound from `from` to `to` using the first `landmarks` landmarks' columns
+    private static double bound(float[][] columns, int landmarks, int from, int to) {
+        double best = 0;
+        for (int l = 0; l < landmarks; l++) {
+            float[] toL = columns[2 * l];
+            float[] fromL = columns[2 * l + 1];
+            if (toL[to] != Float.POSITIVE_INFINITY) {
+                best = Math.max(best, (double) toL[from] - toL[to]);
+            }
+            if (fromL[from] != Float.POSITIVE_INFINITY) {
+                best = Math.max(best, (double) fromL[to] - fromL[from]);
+            }
+        }
+        return best;
+    }
+
+    // Even columns: backward search from the landmark (distances to it), odd: forward search
+    private static void fillColumn(IndexedGraph graph, int landmark, int column, float[][] columns,
+                                   SearchWorkspace workspace) {
+        search(column % 2 == 0 ? graph.reverse() : graph, landmark, workspace, null);
+        float[] distances = new float[graph.nodeCount()];
+        for (int v = 0; v < distances.length; v++) {
+            distances[v] = (float) workspace.distance(v);
+        }
+        columns[column] = distances;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    // Full Dijkstra from source; distances and tree stay in the workspace, settled nodes are
+    // written to settleOrder in order (if not null). Returns the settled count.
+    private static int search(IndexedGraph g, int source, SearchWorkspace workspace, int[] settleOrder) {
+        workspace.begin(g.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            if (settleOrder != null) {
+                settleOrder[settled] = current;
+            }
+            settled++;
+            for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                int neighbor = g.target(e);
+                double newDist = currentDist + g.weight(e);
+                if (newDist < workspace.distance(neighbor)) {
+                    workspace.update(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+        return settled;
+    }
+
+    // Order-sensitive hash of the edge targets and weights
+    static long fingerprint(IndexedGraph graph) {
+        long h = 1125899906842597L;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            h = 31 * h + graph.endEdge(u);
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                h = 31 * h + graph.target(e);
+                h = 31 * h + Double.doubleToLongBits(graph.weight(e));
+            }
+        }
+        return h;
+    }
+
+    private static void writeFloats(FileChannel channel, float[] values) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < values.length; ) {
+            int batch = Math.min(values.length - i, chunk.capacity() / 4);
+            chunk.clear();
+            chunk.asFloatBuffer().put(values, i, batch);
+            chunk.limit(4 * batch);
+            writeFully(channel, chunk);
+            i += batch;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, int bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Landmark table file is truncated");
+            }
+        }
+        return buffer.flip();
+    }
+
+    // Both edge directions of a graph, for landmark spreading on one-way networks
+    private static final class UndirectedGraph {
+        private final IndexedGraph forward;
+        private final IndexedGraph backward;
+
+        UndirectedGraph(IndexedGraph graph) {
+            this.forward = graph;
+            this.backward = graph.reverse();
+        }
+
+        // Multi-source Dijkstra: afterwards the workspace holds each node's distance to the nearest
+        // source. Returns the number of nodes reached.
+        int search(int[] sources, SearchWorkspace workspace) {
+            workspace.begin(forward.nodeCount());
+            IndexedDaryHeap heap = workspace.heap();
+            for (int s : sources) {
+                workspace.update(s, 0.0, -1);
+                heap.insertOrDecrease(s, 0.0);
+            }
+            int settled = 0;
+            while (!heap.isEmpty()) {
+                double currentDist = heap.peekKey();
+                int current = heap.poll();
+                settled++;
+                for (int pass = 0; pass < 2; pass++) {
+                    IndexedGraph g = pass == 0 ? forward : backward;
+                    for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                        int neighbor = g.target(e);
+                        double newDist = currentDist + g.weight(e);
+                        if (newDist < workspace.distance(neighbor)) {
+                            workspace.update(neighbor, newDist, current);
+                            heap.insertOrDecrease(neighbor, newDist);
+                        }
+                    }
+                }
+            }
+            return settled;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import model.EdgeWeightUpdates;
+import model.Graph;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Shortest-path trees of the hot sources (depots, hospitals, ...) kept current while traffic
+// updates stream in. apply() publishes the new Graph snapshot and repairs every tracked tree
+// incrementally (ShortestPathTree.repaired) instead of recomputing it.
+//
+// Readers never lock: tree(source) returns an immutable tree together with the snapshot it was
+// computed on (tree.graph()), and all trees of one update are published at once. Updates made
+// directly through Graph.applyUpdates are picked up on the next apply() with a full recompute.
+public final class LiveShortestPathTrees {
+
+    private final Graph graph;
+    private volatile Map<Integer, ShortestPathTree> trees = Map.of();
+    private final SearchWorkspace workspace = new SearchWorkspace(); // writers are serialized
+    private long lastRepairSettled;
+
+    public LiveShortestPathTrees(Graph graph) {
+        this.graph = graph;
+    }
+
+    public synchronized void track(int source) {
+        if (!trees.containsKey(source)) {
+            Map<Integer, ShortestPathTree> next = new HashMap<>(trees);
+            next.put(source, ShortestPathTree.compute(graph.getIndexedGraph(), source, workspace));
+            trees = Map.copyOf(next);
+        }
+    }
+
+    public synchronized void untrack(int source) {
+        Map<Integer, ShortestPathTree> next = new HashMap<>(trees);
+        next.remove(source);
+        trees = Map.copyOf(next);
+    }
+
+    // Current tree of a tracked source, or null
+    public ShortestPathTree tree(int source) {
+        return trees.get(source);
+    }
+
+    // Path from a tracked source, answered from its tree without a search
+    public PathResult findShortestPath(int source, int target) {
+        ShortestPathTree tree = trees.get(source);
+        if (tree == null) {
+            throw new IllegalArgumentException("Source " + source + " is not tracked");
+        }
+        return tree.pathTo(target);
+    }
+
+    public synchronized EdgeWeightUpdates.Applied apply(EdgeWeightUpdates updates) {
+        EdgeWeightUpdates.Applied applied = graph.applyUpdates(updates);
+        Map<Integer, ShortestPathTree> next = new HashMap<>();
+        long settled = 0;
+        for (Map.Entry<Integer, ShortestPathTree> entry : trees.entrySet()) {
+            ShortestPathTree repaired = entry.getValue().repaired(applied, workspace);
+            settled += repaired.settledNodes();
+            next.put(entry.getKey(), repaired);
+        }
+        trees = Map.copyOf(next);
+        lastRepairSettled = settled;
+        return applied;
+    }
+
+    // Nodes settled by all repairs of the last apply(), to compare with full recomputation
+    public synchronized long lastRepairSettled() {
+        return lastRepairSettled;
+    }
+}
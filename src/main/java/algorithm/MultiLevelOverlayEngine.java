@@ -0,0 +1,110 @@
+package algorithm;
+
+import algorithm.CustomizedOverlay.IntList;
+import algorithm.DijkstraAlgorithm.PathResult;
+import metrics.EngineMetrics;
+import metrics.QueryEvent;
+import metrics.RoutingMetrics;
+import model.IndexedGraph;
+import model.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Point-to-point query on a CustomizedOverlay: bidirectional Dijkstra that uses original edges
+// only inside the level-1 cells of the source and target, and everywhere else the highest
+// overlay level whose cell excludes both endpoints (that cell's boundary clique plus the cut
+// edges leaving it; the backward search takes the same arcs reversed). The search space is the
+// two endpoint cells plus a few boundary nodes per level, instead of everything closer than the
+// target. Overlay arcs on the result are unpacked cell by cell, down to original edges.
+public final class MultiLevelOverlayEngine implements ShortestPathEngine {
+
+    private static final EngineMetrics METRICS = RoutingMetrics.engine("overlay");
+
+    private final CustomizedOverlay overlay;
+
+    public MultiLevelOverlayEngine(CustomizedOverlay overlay) {
+        this.overlay = overlay;
+    }
+
+    @Override
+    public PathResult findShortestPath(int source, int target, SearchWorkspace workspace) {
+        IndexedGraph g = overlay.graph();
+        MultiLevelPartition partition = overlay.partition();
+        DijkstraAlgorithm.checkNode(g, source);
+        DijkstraAlgorithm.checkNode(g, target);
+
+        QueryEvent event = RoutingMetrics.ENABLED ? METRICS.begin(source, target) : null;
+        SearchWorkspace fwd = workspace;
+        SearchWorkspace bwd = workspace.backward();
+        fwd.begin(g.nodeCount());
+        bwd.begin(g.nodeCount());
+        fwd.update(source, 0.0, -1);
+        fwd.heap().insertOrDecrease(source, 0.0);
+        bwd.update(target, 0.0, -1);
+        bwd.heap().insertOrDecrease(target, 0.0);
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        int settled = 0;
+        long relaxed = 0;
+
+        // stop once no path through an unsettled node can beat the best meeting found
+        while (!fwd.heap().isEmpty() && !bwd.heap().isEmpty()
+                && fwd.heap().peekKey() + bwd.heap().peekKey() < best) {
+            boolean forward = fwd.heap().peekKey() <= bwd.heap().peekKey();
+            SearchWorkspace side = forward ? fwd : bwd;
+            SearchWorkspace other = forward ? bwd : fwd;
+            double currentDist = side.heap().peekKey();
+            int current = side.heap().poll();
+            settled++;
+            double through = currentDist + other.distance(current);
+            if (through < best) {
+                best = through;
+                meeting = current;
+            }
+            int level = partition.queryLevel(current, source, target);
+            relaxed += forward ? overlay.relax(current, currentDist, level, 0, 0, fwd)
+                    : overlay.relaxBackward(current, currentDist, level, bwd);
+        }
+
+        PathResult result = meeting < 0
+                ? new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false, settled)
+                : new PathResult(unpackPath(fwd, bwd, source, target, meeting), best, true, settled);
+        if (RoutingMetrics.ENABLED) {
+            workspace.finishQuery(METRICS, event, relaxed, true, result);
+        }
+        return result;
+    }
+
+    // The overlay path is copied out of both searches first; the unpacking searches then reuse the
+    // backward workspace. Every arc, forward or backward, unpacks at its tail's query level (a
+    // clique arc has the same level at both ends, a cut edge is an original edge at either).
+    private List<Node> unpackPath(SearchWorkspace fwd, SearchWorkspace bwd, int source, int target, int meeting) {
+        IntList overlayPath = new IntList();
+        for (int at = meeting; at != -1; at = fwd.predecessor(at)) {
+            overlayPath.add(at);
+        }
+        IntList forwardHalf = overlayPath;
+        overlayPath = new IntList();
+        for (int i = forwardHalf.size() - 1; i >= 0; i--) {
+            overlayPath.add(forwardHalf.get(i));
+        }
+        for (int at = bwd.predecessor(meeting); at != -1; at = bwd.predecessor(at)) {
+            overlayPath.add(at);
+        }
+        MultiLevelPartition partition = overlay.partition();
+        IntList nodes = new IntList();
+        nodes.add(source);
+        for (int i = 0; i + 1 < overlayPath.size(); i++) {
+            int from = overlayPath.get(i);
+            overlay.unpack(from, overlayPath.get(i + 1), partition.queryLevel(from, source, target), bwd, nodes);
+        }
+        IndexedGraph g = overlay.graph();
+        List<Node> path = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            path.add(g.node(nodes.get(i)));
+        }
+        return path;
+    }
+}
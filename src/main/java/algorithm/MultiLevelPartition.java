@@ -0,0 +1,296 @@
+package algorithm;
+
+import model.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Nested multi-level partition of a road network for the overlay engine (CRP-style), built by
+// recursive inertial bisection on node coordinates: each part is split at the median along
+// whichever of four directions (east, north and the two diagonals) cuts the fewest edges.
+// Every split goes down to the same depth, so a node's bisection path is one int, its leaf:
+// level-1 cells are the leaves, and the level-L cell of a node is its leaf with the lowest
+// (L - 1) * BITS_PER_LEVEL bits dropped (each level groups 2^BITS_PER_LEVEL cells of the one below).
+//
+// Only topology is stored here (cells and their boundary nodes), so one partition serves every
+// weight snapshot of a graph; the metric-dependent part is CustomizedOverlay.
+public final class MultiLevelPartition {
+
+    static final int BITS_PER_LEVEL = 4;
+
+    private static final int DIRECTIONS = 4;
+    private static final double[] DIRECTION_X = {1, 0, Math.sqrt(0.5), Math.sqrt(0.5)};
+    private static final double[] DIRECTION_Y = {0, 1, Math.sqrt(0.5), -Math.sqrt(0.5)};
+    private static final int SEQUENTIAL_SPLIT = 4096; // smaller parts are bisected on one thread
+
+    private final int nodeCount;
+    private final int levels;
+    private final int[] leaf;
+    // per level (index level - 1): boundary nodes grouped by cell, CSR style
+    private final int[][] boundaryStart;
+    private final int[][] boundary;
+    private final int[][] boundaryIndex; // node -> position in its cell's boundary list, or -1
+    private final int[][] cliqueStart;   // cell -> offset of its k x k clique matrix
+
+    private MultiLevelPartition(IndexedGraph graph, int depth, int levels, int[] leaf) {
+        this.nodeCount = graph.nodeCount();
+        this.levels = levels;
+        this.leaf = leaf;
+        boundaryStart = new int[levels][];
+        boundary = new int[levels][];
+        boundaryIndex = new int[levels][];
+        cliqueStart = new int[levels][];
+        IndexedGraph reverse = graph.reverse();
+        for (int level = 1; level <= levels; level++) {
+            int cells = 1 << (depth - shift(level));
+            int[] index = new int[nodeCount];
+            int[] start = new int[cells + 1];
+            for (int v = 0; v < nodeCount; v++) {
+                boolean cut = crossesCell(graph, v, level) || crossesCell(reverse, v, level);
+                index[v] = cut ? 0 : -1;
+                if (cut) {
+                    start[cell(v, level) + 1]++;
+                }
+            }
+            for (int c = 0; c < cells; c++) {
+                start[c + 1] += start[c];
+            }
+            int[] nodes = new int[start[cells]];
+            int[] cursor = Arrays.copyOf(start, cells);
+            for (int v = 0; v < nodeCount; v++) {
+                if (index[v] == 0) {
+                    int c = cell(v, level);
+                    index[v] = cursor[c] - start[c];
+                    nodes[cursor[c]++] = v;
+                }
+            }
+            int[] clique = new int[cells + 1];
+            for (int c = 0; c < cells; c++) {
+                int k = start[c + 1] - start[c];
+                clique[c + 1] = Math.addExact(clique[c], k * k);
+            }
+            boundaryStart[level - 1] = start;
+            boundary[level - 1] = nodes;
+            boundaryIndex[level - 1] = index;
+            cliqueStart[level - 1] = clique;
+        }
+    }
+
+    // Level-1 cells of at most cellSize nodes and up to maxLevels levels. Every level above the
+    // first must have at least 2^BITS_PER_LEVEL cells: a top level of two or four huge cells has
+    // boundaries too large to pay off in queries and is the costliest to re-customize, so the
+    // graph gets fewer levels instead (and a graph of at most cellSize nodes gets none).
+    public static MultiLevelPartition build(IndexedGraph graph, int cellSize, int maxLevels, ForkJoinPool pool) {
+        if (cellSize < 1 || maxLevels < 1) {
+            throw new IllegalArgumentException("Need cellSize >= 1 and maxLevels >= 1, got " + cellSize + ", " + maxLevels);
+        }
+        int n = graph.nodeCount();
+        int depth = 0;
+        while (depth < 27 && ((long) n + (1L << depth) - 1 >> depth) > cellSize) {
+            depth++;
+        }
+        int levels = depth == 0 ? 0 : Math.min(maxLevels, Math.max(1, depth / BITS_PER_LEVEL));
+
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double meanLatitude = 0;
+        for (int v = 0; v < n; v++) {
+            meanLatitude += graph.latitude(v) / n;
+        }
+        double lonScale = Math.cos(Math.toRadians(meanLatitude));
+        for (int v = 0; v < n; v++) {
+            xs[v] = graph.longitude(v) * lonScale;
+            ys[v] = graph.latitude(v);
+        }
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) {
+            order[v] = v;
+        }
+        int[] leaf = new int[n];
+        pool.invoke(new Bisection(graph, xs, ys, order, new int[n], leaf, 0, n, depth, 1));
+        return new MultiLevelPartition(graph, depth, levels, leaf);
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int levels() {
+        return levels;
+    }
+
+    public int cellCount(int level) {
+        return boundaryStart[level - 1].length - 1;
+    }
+
+    public int cell(int node, int level) {
+        return leaf[node] >>> shift(level);
+    }
+
+    // The cell one level up that contains `cell`
+    int parentCell(int cell) {
+        return cell >>> BITS_PER_LEVEL;
+    }
+
+    // Boundary nodes (an edge to or from another cell) summed over the cells of a level
+    public int boundaryNodeCount(int level) {
+        return boundary[level - 1].length;
+    }
+
+    int cliqueEntries(int level) {
+        int[] start = cliqueStart[level - 1];
+        return start[start.length - 1];
+    }
+
+    int boundaryStart(int level, int cell) {
+        return boundaryStart[level - 1][cell];
+    }
+
+    int boundaryEnd(int level, int cell) {
+        return boundaryStart[level - 1][cell + 1];
+    }
+
+    int boundaryNode(int level, int position) {
+        return boundary[level - 1][position];
+    }
+
+    int boundaryIndex(int level, int node) {
+        return boundaryIndex[level - 1][node];
+    }
+
+    int cliqueStart(int level, int cell) {
+        return cliqueStart[level - 1][cell];
+    }
+
+    // Level at which a query from source to target searches node v: the highest level whose cell
+    // around v holds neither endpoint, or 0 when v shares a level-1 cell with one of them
+    int queryLevel(int v, int source, int target) {
+        return Math.min(divergence(leaf[v] ^ leaf[source]), divergence(leaf[v] ^ leaf[target]));
+    }
+
+    // Highest level whose cells differ, for two leaves that differ in the given bits
+    private int divergence(int differentBits) {
+        if (differentBits == 0) {
+            return 0;
+        }
+        int highestBit = 31 - Integer.numberOfLeadingZeros(differentBits);
+        return Math.min(levels, highestBit / BITS_PER_LEVEL + 1);
+    }
+
+    private static int shift(int level) {
+        return (level - 1) * BITS_PER_LEVEL;
+    }
+
+    private boolean crossesCell(IndexedGraph g, int v, int level) {
+        int c = cell(v, level);
+        for (int e = g.firstEdge(v), end = g.endEdge(v); e < end; e++) {
+            if (cell(g.target(e), level) != c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Splits order[from, to) at its median, then both halves, until `depth` splits are made.
+    // Parts are disjoint node sets, so the shared side marks never race; `id` is unique per part.
+    @SuppressWarnings("serial")
+    private static final class Bisection extends RecursiveAction {
+        private final IndexedGraph graph;
+        private final double[] xs;
+        private final double[] ys;
+        private final int[] order;
+        private final int[] side;
+        private final int[] leaf;
+        private final int from;
+        private final int to;
+        private final int depth;
+        private final int id;
+
+        Bisection(IndexedGraph graph, double[] xs, double[] ys, int[] order, int[] side, int[] leaf,
+                  int from, int to, int depth, int id) {
+            this.graph = graph;
+            this.xs = xs;
+            this.ys = ys;
+            this.order = order;
+            this.side = side;
+            this.leaf = leaf;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.id = id;
+        }
+
+        @Override
+        protected void compute() {
+            if (depth == 0) {
+                int cell = id ^ Integer.highestOneBit(id); // the bisection path without the leading 1
+                for (int i = from; i < to; i++) {
+                    leaf[order[i]] = cell;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            long[] keys = new long[to - from];
+            long[] bestKeys = null;
+            long bestCut = Long.MAX_VALUE;
+            for (int d = 0; d < DIRECTIONS; d++) {
+                sortAlong(d, keys);
+                long cut = cutEdges(keys, mid - from, 2 * (DIRECTIONS * id + d));
+                if (cut < bestCut) {
+                    bestCut = cut;
+                    bestKeys = keys.clone();
+                }
+            }
+            for (int i = from; i < to; i++) {
+                order[i] = (int) bestKeys[i - from];
+            }
+            Bisection low = new Bisection(graph, xs, ys, order, side, leaf, from, mid, depth - 1, 2 * id);
+            Bisection high = new Bisection(graph, xs, ys, order, side, leaf, mid, to, depth - 1, 2 * id + 1);
+            if (to - from <= SEQUENTIAL_SPLIT) {
+                low.compute();
+                high.compute();
+            } else {
+                invokeAll(low, high);
+            }
+        }
+
+        // The part's nodes ordered by projection onto a direction, packed (quantized key, node)
+        private void sortAlong(int direction, long[] keys) {
+            double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double p = project(direction, order[i]);
+                lo = Math.min(lo, p);
+                hi = Math.max(hi, p);
+            }
+            for (int i = from; i < to; i++) {
+                double p = project(direction, order[i]);
+                long quantized = hi > lo ? (long) ((p - lo) / (hi - lo) * Integer.MAX_VALUE) : 0;
+                keys[i - from] = (quantized << 32) | order[i];
+            }
+            Arrays.sort(keys);
+        }
+
+        private double project(int direction, int v) {
+            return DIRECTION_X[direction] * xs[v] + DIRECTION_Y[direction] * ys[v];
+        }
+
+        // Edges between the first `split` nodes of keys and the rest, marking sides with a token
+        // no other evaluation uses
+        private long cutEdges(long[] keys, int split, int token) {
+            for (int i = 0; i < keys.length; i++) {
+                side[(int) keys[i]] = i < split ? token : token + 1;
+            }
+            long cut = 0;
+            for (int i = 0; i < split; i++) {
+                int u = (int) keys[i];
+                for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                    if (side[graph.target(e)] == token + 1) {
+                        cut++;
+                    }
+                }
+            }
+            return cut;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import model.Graph;
+import model.IndexedGraph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Result cache in front of a ShortestPathEngine, for workloads that repeat popular (source, target) pairs.
+//
+// - Keys are node-id pairs; values are PathResults, or whole ShortestPathTrees for sources that
+//   keep missing with different targets (after treeAfterMisses misses a full tree is computed,
+//   and every later target of that source is answered from it). Trees are only built while one
+//   fits the byte budget of a stripe (maxBytes / 16).
+// - Bounded by entry count and by estimated bytes, evicting least recently used entries.
+// - Split into independently locked LRU stripes, so concurrent queries rarely contend.
+// - Tied to a Graph: when Graph.getVersion() changes, the engine is rebuilt for the new snapshot
+//   and every entry is dropped. Entries carry the version they were computed on, so a search
+//   that was still running on the old snapshot cannot put a stale result back.
+//
+// The engine factory runs once per graph version (e.g. AStarEngine::new, or a CH build).
+public final class PathCache implements ShortestPathEngine {
+
+    public record Stats(long hits, long treeHits, long misses, long evictions, long invalidations,
+                        long entries, long bytes) {
+        public double hitRate() {
+            long total = hits + treeHits + misses;
+            return total == 0 ? 0 : (double) (hits + treeHits) / total;
+        }
+    }
+
+    private static final int STRIPES = 16;
+    private static final int NO_TARGET = -1; // key of a source's tree
+    private static final int MISS_COUNTERS = 4096; // per-source miss counts, hashed, approximate
+
+    private record State(long version, IndexedGraph graph, ShortestPathEngine engine) {}
+
+    private record Entry(long version, Object value, long bytes) {}
+
+    private final Graph graph;
+    private final Function<IndexedGraph, ShortestPathEngine> engineFactory;
+    private final int treeAfterMisses;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicIntegerArray sourceMisses = new AtomicIntegerArray(MISS_COUNTERS);
+    private volatile State state;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder treeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public PathCache(Graph graph, Function<IndexedGraph, ShortestPathEngine> engineFactory, int maxEntries, long maxBytes) {
+        this(graph, engineFactory, maxEntries, maxBytes, 8);
+    }
+
+    // treeAfterMisses = 0 never caches trees
+    public PathCache(Graph graph, Function<IndexedGraph, ShortestPathEngine> engineFactory, int maxEntries,
+                     long maxBytes, int treeAfterMisses) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        this.graph = graph;
+        this.engineFactory = engineFactory;
+        this.treeAfterMisses = treeAfterMisses;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxEntries / STRIPES), Math.max(1, maxBytes / STRIPES));
+        }
+        long version = graph.getVersion();
+        IndexedGraph snapshot = graph.getIndexedGraph();
+        state = new State(version, snapshot, engineFactory.apply(snapshot));
+    }
+
+    @Override
+    public PathResult findShortestPath(int source, int target, SearchWorkspace workspace) {
+        State s = current();
+        long pairKey = key(source, target);
+        Object cached = stripeOf(pairKey).get(pairKey, s.version);
+        if (cached != null) {
+            hits.increment();
+            return (PathResult) cached;
+        }
+
+        long treeKey = key(source, NO_TARGET);
+        ShortestPathTree tree = (ShortestPathTree) stripeOf(treeKey).get(treeKey, s.version);
+        PathResult result;
+        if (tree != null) {
+            treeHits.increment();
+            result = tree.pathTo(target);
+        } else {
+            misses.increment();
+            if (treeAfterMisses > 0 && treeFits(s.graph) && countMiss(source)) {
+                tree = ShortestPathTree.compute(s.graph, source, workspace);
+                stripeOf(treeKey).put(treeKey, new Entry(s.version, tree, tree.bytes()));
+                result = tree.pathTo(target);
+            } else {
+                result = s.engine.findShortestPath(source, target, workspace);
+            }
+        }
+        stripeOf(pairKey).put(pairKey, new Entry(s.version, result, bytesOf(result)));
+        return result;
+    }
+
+    // Drops every entry; the engine and snapshot stay (those follow Graph.getVersion())
+    public synchronized void invalidateAll() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+        for (int i = 0; i < MISS_COUNTERS; i++) {
+            sourceMisses.set(i, 0);
+        }
+        invalidations.increment();
+    }
+
+    public Stats stats() {
+        long entries = 0;
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                entries += stripe.map.size();
+                bytes += stripe.bytes;
+            }
+        }
+        return new Stats(hits.sum(), treeHits.sum(), misses.sum(), evictions.sum(), invalidations.sum(), entries, bytes);
+    }
+
+    private State current() {
+        State s = state;
+        if (s.version == graph.getVersion()) {
+            return s;
+        }
+        synchronized (this) {
+            long version = graph.getVersion(); // read before the snapshot, see Graph.publish
+            s = state;
+            if (s.version != version) {
+                IndexedGraph snapshot = graph.getIndexedGraph();
+                s = new State(version, snapshot, engineFactory.apply(snapshot));
+                state = s;
+                invalidateAll();
+            }
+            return s;
+        }
+    }
+
+    // A tree bigger than one stripe's byte budget would be computed only for put() to refuse it;
+    // such sources get point queries instead
+    private boolean treeFits(IndexedGraph g) {
+        return ShortestPathTree.bytesFor(g.nodeCount()) <= stripes[0].maxBytes;
+    }
+
+    // True once every treeAfterMisses misses of (a hash bucket of) this source
+    private boolean countMiss(int source) {
+        int slot = (source * 0x9E3779B9 >>> 20) & (MISS_COUNTERS - 1);
+        if (sourceMisses.incrementAndGet(slot) < treeAfterMisses) {
+            return false;
+        }
+        sourceMisses.set(slot, 0);
+        return true;
+    }
+
+    private static long key(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    private Stripe stripeOf(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 60) & (STRIPES - 1)];
+    }
+
+    // Node objects are shared with the graph, so a path costs about one reference per node
+    private static long bytesOf(PathResult result) {
+        return 96 + 8L * result.getPath().size();
+    }
+
+    // One LRU segment: an access-ordered LinkedHashMap under its own lock
+    private final class Stripe {
+        final LinkedHashMap<Long, Entry> map = new LinkedHashMap<>(64, 0.75f, true);
+        final int maxEntries;
+        final long maxBytes;
+        long bytes;
+
+        Stripe(int maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Object get(long key, long version) {
+            Entry entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.version() != version) {
+                map.remove(key);
+                bytes -= entry.bytes();
+                return null;
+            }
+            return entry.value();
+        }
+
+        synchronized void put(long key, Entry entry) {
+            if (entry.bytes() > maxBytes) {
+                return; // would evict the whole stripe
+            }
+            Entry old = map.put(key, entry);
+            if (old != null) {
+                bytes -= old.bytes();
+            }
+            bytes += entry.bytes();
+            Iterator<Map.Entry<Long, Entry>> eldest = map.entrySet().iterator();
+            while (map.size() > maxEntries || bytes > maxBytes) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                bytes -= evicted.bytes();
+                evictions.increment();
+            }
+        }
+
+        synchronized void clear() {
+            map.clear();
+            bytes = 0;
+        }
+    }
+}
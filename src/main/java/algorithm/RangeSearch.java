@@ -0,0 +1,95 @@
+package algorithm;
+
+import model.IndexedGraph;
+
+import java.util.Arrays;
+
+// Isochrone / service-area queries: every node within a distance budget of one or more sources.
+// A Dijkstra that never queues a node beyond the budget and stops once the heap is empty, so the
+// cost depends on the size of the region, not of the graph. Several sources are seeded together
+// at distance 0 and searched in one pass; each node's distance is then to its nearest source.
+// Like the point-to-point engines it runs on a reusable SearchWorkspace, and the result holds
+// only the region, so repeated queries on a large graph allocate nothing of graph size.
+public final class RangeSearch {
+
+    // The reached nodes in settle order (so by increasing distance) with their distances, and the
+    // boundary: edges leaving a reached node that the budget runs out on, with the fraction of the
+    // edge still within budget (in [0, 1)). A boundary edge's target may still be reached another way.
+    public record Range(double budget, int[] nodes, double[] distances,
+                        int[] boundarySources, int[] boundaryEdges, double[] boundaryFractions) {
+
+        public int size() {
+            return nodes.length;
+        }
+    }
+
+    private final IndexedGraph graph;
+
+    public RangeSearch(IndexedGraph graph) {
+        this.graph = graph;
+    }
+
+    public Range within(int source, double budget) {
+        return within(new int[] {source}, budget, SearchWorkspace.forCurrentThread());
+    }
+
+    public Range within(int[] sources, double budget) {
+        return within(sources, budget, SearchWorkspace.forCurrentThread());
+    }
+
+    // The workspace must not be used by another search at the same time
+    public Range within(int[] sources, double budget, SearchWorkspace workspace) {
+        if (!(budget >= 0)) {
+            throw new IllegalArgumentException("Budget must be non-negative: " + budget);
+        }
+        workspace.begin(graph.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        for (int source : sources) {
+            DijkstraAlgorithm.checkNode(graph, source);
+            workspace.update(source, 0.0, -1);
+            heap.insertOrDecrease(source, 0.0);
+        }
+
+        int[] nodes = new int[Math.max(16, sources.length)];
+        int reached = 0;
+        int[] boundarySources = new int[16];
+        int[] boundaryEdges = new int[16];
+        int boundary = 0;
+        while (!heap.isEmpty()) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            if (reached == nodes.length) {
+                nodes = Arrays.copyOf(nodes, 2 * reached);
+            }
+            nodes[reached++] = current;
+            for (int e = graph.firstEdge(current), end = graph.endEdge(current); e < end; e++) {
+                int neighbor = graph.target(e);
+                double newDist = currentDist + graph.weight(e);
+                if (newDist > budget) {
+                    if (boundary == boundaryEdges.length) {
+                        boundarySources = Arrays.copyOf(boundarySources, 2 * boundary);
+                        boundaryEdges = Arrays.copyOf(boundaryEdges, 2 * boundary);
+                    }
+                    boundarySources[boundary] = current;
+                    boundaryEdges[boundary++] = e;
+                } else if (newDist < workspace.distance(neighbor)) {
+                    workspace.update(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+
+        double[] distances = new double[reached];
+        for (int i = 0; i < reached; i++) {
+            distances[i] = workspace.distance(nodes[i]);
+        }
+        double[] fractions = new double[boundary];
+        for (int i = 0; i < boundary; i++) {
+            double weight = graph.weight(boundaryEdges[i]);
+            fractions[i] = weight == Double.POSITIVE_INFINITY ? 0
+                    : (budget - workspace.distance(boundarySources[i])) / weight;
+        }
+        return new Range(budget, Arrays.copyOf(nodes, reached), distances,
+                Arrays.copyOf(boundarySources, boundary), Arrays.copyOf(boundaryEdges, boundary), fractions);
+    }
+}
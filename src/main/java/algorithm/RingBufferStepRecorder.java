@@ -0,0 +1,47 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.StepEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Keeps only the most recent `capacity` steps of a search, so tracing a query on a large
+// graph costs a fixed amount of memory. Older steps are overwritten and counted as dropped.
+public final class RingBufferStepRecorder implements StepListener {
+
+    private final StepEvent[] buffer;
+    private long recorded; // total steps seen, including overwritten ones
+
+    public RingBufferStepRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.buffer = new StepEvent[capacity];
+    }
+
+    @Override
+    public void onStep(StepEvent event) {
+        buffer[(int) (recorded % buffer.length)] = event;
+        recorded++;
+    }
+
+    // Retained steps, oldest first
+    public List<StepEvent> steps() {
+        int retained = (int) Math.min(recorded, buffer.length);
+        List<StepEvent> steps = new ArrayList<>(retained);
+        long first = recorded - retained;
+        for (long i = first; i < recorded; i++) {
+            steps.add(buffer[(int) (i % buffer.length)]);
+        }
+        return steps;
+    }
+
+    public long recordedCount() { return recorded; }
+    public long droppedCount() { return Math.max(0, recorded - buffer.length); }
+
+    public void clear() {
+        Arrays.fill(buffer, null);
+        recorded = 0;
+    }
+}
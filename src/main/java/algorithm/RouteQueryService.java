@@ -0,0 +1,134 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+
+// Fans batches of (source, target) queries out over an executor.
+// The engine works on an immutable graph snapshot, so the only per-thread state is the search
+// workspace; workspaces are pooled and handed to one chunk of queries at a time, which keeps
+// them reusable on virtual threads too (a ThreadLocal would give every virtual thread its own).
+// Each batch is cut into a few chunks per core so all cores stay busy until the end.
+public final class RouteQueryService implements AutoCloseable {
+
+    public record RouteRequest(int source, int target) {}
+
+    // A result tagged with the position of its request in the batch
+    public record RouteResult(int index, PathResult result) {}
+
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final ShortestPathEngine engine;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final boolean ownsExecutor;
+    private final Queue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    public RouteQueryService(ShortestPathEngine engine, ExecutorService executor, int parallelism) {
+        this(engine, executor, parallelism, false);
+    }
+
+    private RouteQueryService(ShortestPathEngine engine, ExecutorService executor, int parallelism, boolean ownsExecutor) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        this.engine = engine;
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    // Fixed pool of platform threads, shut down by close()
+    public static RouteQueryService withThreads(ShortestPathEngine engine, int threads) {
+        return new RouteQueryService(engine, Executors.newFixedThreadPool(threads), threads, true);
+    }
+
+    // One virtual thread per chunk, scheduled on the JVM's carrier threads; shut down by close()
+    public static RouteQueryService withVirtualThreads(ShortestPathEngine engine) {
+        return new RouteQueryService(engine, Executors.newVirtualThreadPerTaskExecutor(),
+                Runtime.getRuntime().availableProcessors(), true);
+    }
+
+    // Runs every request and returns the results in request order
+    public List<PathResult> routeAll(List<RouteRequest> requests) {
+        PathResult[] results = new PathResult[requests.size()];
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        forEachChunk(requests.size(), (from, to) -> chunks.add(CompletableFuture.runAsync(
+                () -> runChunk(requests, from, to, (index, result) -> results[index] = result), executor)));
+        CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).join();
+        return List.of(results);
+    }
+
+    // Streams results as they complete (not in request order); RouteResult.index() identifies the request.
+    // A failed query surfaces as a CompletionException from the stream.
+    public Stream<RouteResult> stream(List<RouteRequest> requests) {
+        BlockingQueue<Object> completed = new LinkedBlockingQueue<>();
+        forEachChunk(requests.size(), (from, to) -> CompletableFuture
+                .runAsync(() -> runChunk(requests, from, to, (index, result) -> completed.add(new RouteResult(index, result))), executor)
+                .exceptionally(error -> {
+                    completed.add(error);
+                    return null;
+                }));
+        return Stream.generate(() -> take(completed)).limit(requests.size());
+    }
+
+    private static RouteResult take(BlockingQueue<Object> completed) {
+        try {
+            Object next = completed.take();
+            if (next instanceof Throwable error) {
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            return (RouteResult) next;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private interface ChunkConsumer {
+        void accept(int from, int to);
+    }
+
+    private interface ResultConsumer {
+        void accept(int index, PathResult result);
+    }
+
+    private void forEachChunk(int size, ChunkConsumer consumer) {
+        int chunkSize = Math.max(1, (size + parallelism * CHUNKS_PER_WORKER - 1) / (parallelism * CHUNKS_PER_WORKER));
+        for (int from = 0; from < size; from += chunkSize) {
+            consumer.accept(from, Math.min(size, from + chunkSize));
+        }
+    }
+
+    private void runChunk(List<RouteRequest> requests, int from, int to, ResultConsumer sink) {
+        SearchWorkspace workspace = workspaces.poll();
+        if (workspace == null) {
+            workspace = new SearchWorkspace();
+        }
+        try {
+            for (int i = from; i < to; i++) {
+                RouteRequest request = requests.get(i);
+                sink.accept(i, engine.findShortestPath(request.source(), request.target(), workspace));
+            }
+        } finally {
+            workspaces.offer(workspace);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import metrics.EngineMetrics;
+import metrics.QueryEvent;
+import metrics.QueryStats;
+
+import java.util.Arrays;
+
+// Reusable per-search state: tentative distances, predecessors and the heap.
+// Instead of clearing dist/pred before every query, each entry carries the generation that
+// wrote it; begin() just bumps the generation, so a steady-state query allocates nothing.
+// Not thread-safe: one workspace per thread (see forCurrentThread()).
+public final class SearchWorkspace {
+
+    private static final ThreadLocal<SearchWorkspace> PER_THREAD = ThreadLocal.withInitial(SearchWorkspace::new);
+
+    private static final int HEAP_ARITY = 4;
+
+    private double[] dist = new double[0];
+    private int[] pred = new int[0];
+    private int[] stamp = new int[0];
+    private int generation;
+    private final IndexedDaryHeap heap = new IndexedDaryHeap(HEAP_ARITY);
+    private SearchWorkspace backward; // second search state for bidirectional engines
+    private QueryStats lastStats;
+
+    public static SearchWorkspace forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    // Starts a new search over a graph with nodeCount nodes
+    public void begin(int nodeCount) {
+        if (stamp.length < nodeCount) {
+            dist = Arrays.copyOf(dist, nodeCount);
+            pred = Arrays.copyOf(pred, nodeCount);
+            stamp = Arrays.copyOf(stamp, nodeCount);
+        }
+        heap.ensureCapacity(nodeCount);
+        heap.clear();
+        if (++generation == 0) { // wrapped around: stale stamps could collide, clear once
+            Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+    }
+
+    public double distance(int node) {
+        return stamp[node] == generation ? dist[node] : Double.POSITIVE_INFINITY;
+    }
+
+    // Predecessor on the current search tree, or -1
+    public int predecessor(int node) {
+        return stamp[node] == generation ? pred[node] : -1;
+    }
+
+    public void update(int node, double distance, int predecessor) {
+        dist[node] = distance;
+        pred[node] = predecessor;
+        stamp[node] = generation;
+    }
+
+    public IndexedDaryHeap heap() {
+        return heap;
+    }
+
+    // Effort and latency of the last query run on this workspace; null unless RoutingMetrics.ENABLED
+    public QueryStats lastQueryStats() {
+        return lastStats;
+    }
+
+    // Ends a query's metrics: heap counts from this workspace (plus the backward one for
+    // bidirectional searches), settled count and outcome from the result
+    void finishQuery(EngineMetrics metrics, QueryEvent event, long relaxedEdges, boolean bidirectional,
+                     PathResult result) {
+        IndexedDaryHeap other = bidirectional ? backward().heap() : null;
+        lastStats = metrics.end(event, result.getSettledNodes(), relaxedEdges,
+                heap.inserts() + (other == null ? 0 : other.inserts()),
+                heap.decreases() + (other == null ? 0 : other.decreases()),
+                heap.polls() + (other == null ? 0 : other.polls()),
+                result.isReachable(), result.getTotalDistance());
+    }
+
+    // Companion workspace for the backward half of a bidirectional search, created on first use
+    public SearchWorkspace backward() {
+        if (backward == null) {
+            backward = new SearchWorkspace();
+        }
+        return backward;
+    }
+}
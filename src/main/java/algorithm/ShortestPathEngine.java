@@ -0,0 +1,16 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+
+// Common entry point for the point-to-point engines (Dijkstra, A*, bidirectional variants, ...).
+// Every engine returns the same PathResult, including how many nodes it settled, so engines
+// can be swapped and their search spaces compared on the same queries.
+public interface ShortestPathEngine {
+
+    default PathResult findShortestPath(int source, int target) {
+        return findShortestPath(source, target, SearchWorkspace.forCurrentThread());
+    }
+
+    // The workspace must not be used by another search at the same time
+    PathResult findShortestPath(int source, int target, SearchWorkspace workspace);
+}
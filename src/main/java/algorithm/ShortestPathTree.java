@@ -0,0 +1,200 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import model.EdgeWeightUpdates;
+import model.IndexedGraph;
+import model.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Complete single-source shortest-path tree (distance and predecessor of every node), copied out
+// of a workspace so it outlives the search. One tree answers "same source, any target" queries
+// with a predecessor walk instead of a new search; it costs 12 bytes per node.
+//
+// Trees are immutable. repaired() turns a tree into the tree of the next graph snapshot after a
+// batch of live weight changes, touching only the part of the tree the changes affect
+// (dynamic SSSP in the style of Ramalingam and Reps):
+// - a weight increase on a tree edge (u, v) invalidates the subtree under v; those nodes are
+//   reset and re-seeded from their best neighbour outside the subtree,
+// - a weight decrease on (u, v) that shortens v seeds v,
+// - one Dijkstra pass from the seeds then settles exactly the nodes whose distance changed.
+// The arrays are copied first (one memcpy), so readers of the old tree are never disturbed.
+public final class ShortestPathTree {
+
+    private final IndexedGraph graph;
+    private final int source;
+    private final double[] dist;
+    private final int[] pred;
+    private final int settledNodes; // work done to build this tree
+
+    private ShortestPathTree(IndexedGraph graph, int source, double[] dist, int[] pred, int settledNodes) {
+        this.graph = graph;
+        this.source = source;
+        this.dist = dist;
+        this.pred = pred;
+        this.settledNodes = settledNodes;
+    }
+
+    // Full Dijkstra from source (no target, no early exit)
+    public static ShortestPathTree compute(IndexedGraph g, int source, SearchWorkspace workspace) {
+        DijkstraAlgorithm.checkNode(g, source);
+        int n = g.nodeCount();
+        workspace.begin(n);
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, 0.0);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            settled++;
+            for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                int neighbor = g.target(e);
+                double newDist = currentDist + g.weight(e);
+                if (newDist < workspace.distance(neighbor)) {
+                    workspace.update(neighbor, newDist, current);
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+        double[] dist = new double[n];
+        int[] pred = new int[n];
+        for (int u = 0; u < n; u++) {
+            dist[u] = workspace.distance(u);
+            pred[u] = workspace.predecessor(u);
+        }
+        return new ShortestPathTree(g, source, dist, pred, settled);
+    }
+
+    // This tree on update.current(); falls back to a full computation if the tree was not built
+    // on update.previous() (e.g. a reload happened in between)
+    public ShortestPathTree repaired(EdgeWeightUpdates.Applied update, SearchWorkspace workspace) {
+        IndexedGraph g = update.current();
+        if (update.previous() != graph) {
+            return compute(g, source, workspace);
+        }
+        int n = g.nodeCount();
+        double[] dist = this.dist.clone();
+        int[] pred = this.pred.clone();
+        int[] changedEdges = update.changedEdges();
+        int[] changedSources = update.changedEdgeSources();
+
+        // subtrees below tree edges that got more expensive; node-level parent links, so a
+        // parallel edge can make this conservative, never wrong
+        boolean[] affected = new boolean[n];
+        int[] affectedNodes = new int[16];
+        int affectedCount = 0;
+        for (int i = 0; i < changedEdges.length; i++) {
+            int e = changedEdges[i];
+            int u = changedSources[i];
+            int v = g.target(e);
+            double oldWeight = graph.weight(e);
+            if (g.weight(e) > oldWeight && pred[v] == u && !affected[v] && dist[u] + oldWeight == dist[v]) {
+                affected[v] = true;
+                affectedNodes = push(affectedNodes, affectedCount++, v);
+            }
+        }
+        for (int i = 0; i < affectedCount; i++) { // the list doubles as the DFS work list
+            int x = affectedNodes[i];
+            for (int e = g.firstEdge(x), end = g.endEdge(x); e < end; e++) {
+                int y = g.target(e);
+                if (pred[y] == x && !affected[y]) {
+                    affected[y] = true;
+                    affectedNodes = push(affectedNodes, affectedCount++, y);
+                }
+            }
+        }
+
+        workspace.begin(n);
+        IndexedDaryHeap heap = workspace.heap();
+        for (int i = 0; i < affectedCount; i++) {
+            int y = affectedNodes[i];
+            dist[y] = Double.POSITIVE_INFINITY;
+            pred[y] = -1;
+        }
+        IndexedGraph backward = g.reverse();
+        for (int i = 0; i < affectedCount; i++) {
+            int y = affectedNodes[i];
+            for (int r = backward.firstEdge(y), end = backward.endEdge(y); r < end; r++) {
+                int x = backward.target(r);
+                double candidate = dist[x] + backward.weight(r);
+                if (!affected[x] && candidate < dist[y]) {
+                    dist[y] = candidate;
+                    pred[y] = x;
+                }
+            }
+            if (dist[y] < Double.POSITIVE_INFINITY) {
+                heap.insertOrDecrease(y, dist[y]);
+            }
+        }
+        for (int i = 0; i < changedEdges.length; i++) {
+            int e = changedEdges[i];
+            int u = changedSources[i];
+            int v = g.target(e);
+            double candidate = dist[u] + g.weight(e);
+            if (candidate < dist[v]) {
+                dist[v] = candidate;
+                pred[v] = u;
+                heap.insertOrDecrease(v, candidate);
+            }
+        }
+
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            double currentDist = heap.peekKey();
+            int current = heap.poll();
+            settled++;
+            for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                int neighbor = g.target(e);
+                double newDist = currentDist + g.weight(e);
+                if (newDist < dist[neighbor]) {
+                    dist[neighbor] = newDist;
+                    pred[neighbor] = current;
+                    heap.insertOrDecrease(neighbor, newDist);
+                }
+            }
+        }
+        return new ShortestPathTree(g, source, dist, pred, settled);
+    }
+
+    private static int[] push(int[] array, int index, int value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, index * 2);
+        }
+        array[index] = value;
+        return array;
+    }
+
+    public IndexedGraph graph() { return graph; }
+    public int source() { return source; }
+    public double distance(int node) { return dist[node]; }
+    public int predecessor(int node) { return pred[node]; }
+    public int settledNodes() { return settledNodes; }
+
+    // Approximate heap footprint, for size-bounded caches
+    public long bytes() {
+        return bytesFor(dist.length);
+    }
+
+    // bytes() of any tree over a graph of nodeCount nodes, known before computing one
+    public static long bytesFor(int nodeCount) {
+        return 48 + 16 + 8L * nodeCount + 16 + 4L * nodeCount;
+    }
+
+    // Path to target; settledNodes is 0 because no search runs
+    public PathResult pathTo(int target) {
+        DijkstraAlgorithm.checkNode(graph, target);
+        if (dist[target] == Double.POSITIVE_INFINITY) {
+            return new PathResult(Collections.emptyList(), Double.POSITIVE_INFINITY, false, 0);
+        }
+        List<Node> path = new ArrayList<>();
+        for (int at = target; at != -1; at = pred[at]) {
+            path.add(graph.node(at));
+        }
+        Collections.reverse(path);
+        return new PathResult(path, dist[target], true, 0);
+    }
+}
@@ -0,0 +1,27 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.StepEvent;
+
+// Receives simulation steps while a search runs.
+// The search only builds an event object when isEnabled() is true, so queries that pass
+// StepListener.NONE pay one (constant-folded) branch per step and allocate nothing for tracing.
+@FunctionalInterface
+public interface StepListener {
+
+    StepListener NONE = new StepListener() {
+        @Override public boolean isEnabled() { return false; }
+        @Override public void onStep(StepEvent event) {}
+    };
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    // Checked once per settled node; a search whose listener is cancelled stops with a
+    // CancellationException instead of running to the end unobserved
+    default boolean isCancelled() {
+        return false;
+    }
+
+    void onStep(StepEvent event);
+}
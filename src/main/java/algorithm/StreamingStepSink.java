@@ -0,0 +1,96 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.DijkstraAlgorithm.StepEvent;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// Hands steps from a search running on a worker thread to a consumer (the UI) as they happen.
+// The producer calls onStep(...) and finally complete(...) or fail(...); the consumer polls.
+// Once isComplete() has been observed true, a poll() that returns null means the stream is drained.
+// With a capacity, the producer waits while that many steps are pending, so a search on a large
+// graph holds a bounded backlog instead of its whole step list. cancel() also stops the search.
+public final class StreamingStepSink implements StepListener {
+
+    private static final long WAIT_NANOS = 200_000; // producer re-check interval while the backlog is full
+
+    private final Queue<StepEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final int capacity;
+    private volatile PathResult result;
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+
+    public StreamingStepSink() {
+        this(Integer.MAX_VALUE);
+    }
+
+    public StreamingStepSink(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !cancelled;
+    }
+
+    @Override
+    public void onStep(StepEvent event) {
+        while (pendingCount.get() >= capacity && !cancelled) {
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        if (!cancelled) {
+            pending.add(event);
+            pendingCount.incrementAndGet();
+        }
+    }
+
+    public void complete(PathResult finalResult) {
+        result = finalResult;
+    }
+
+    public void fail(Throwable error) {
+        failure = error;
+    }
+
+    // Stops recording and the search; steps already queued are discarded
+    public void cancel() {
+        cancelled = true;
+        // through poll(), so pendingCount stays in step with a consumer that is still polling
+        while (poll() != null) { }
+    }
+
+    public StepEvent poll() {
+        StepEvent event = pending.poll();
+        if (event != null) {
+            pendingCount.decrementAndGet();
+        }
+        return event;
+    }
+
+    // Moves up to maxSteps queued steps into out, returns how many were moved
+    public int drainTo(Collection<? super StepEvent> out, int maxSteps) {
+        int moved = 0;
+        StepEvent event;
+        while (moved < maxSteps && (event = poll()) != null) {
+            out.add(event);
+            moved++;
+        }
+        return moved;
+    }
+
+    // Steps produced but not yet polled
+    public int pendingCount() { return pendingCount.get(); }
+
+    public boolean isComplete() { return result != null || failure != null; }
+    @Override public boolean isCancelled() { return cancelled; }
+    public PathResult result() { return result; }
+    public Throwable failure() { return failure; }
+}
@@ -0,0 +1,87 @@
+package algorithm;
+
+import algorithm.DijkstraAlgorithm.PathResult;
+import metrics.EngineMetrics;
+import metrics.QueryEvent;
+import metrics.RoutingMetrics;
+import model.IndexedGraph;
+import model.TravelTimeProfiles;
+
+// Earliest-arrival queries for a departure time on time-dependent travel times.
+// The search is Dijkstra (or A*) on arrival times: entering an edge at the time the search
+// reached its tail gives the time at its head. Because every profile is FIFO, waiting never
+// helps and the first time a node is settled is its earliest arrival, so this is as exact as the
+// static engines. The A* variant uses the great-circle bound scaled to the fastest possible
+// seconds per meter, which holds at every time of day.
+// Results are in seconds: PathResult.getTotalDistance() is the travel time from the departure.
+public final class TimeDependentEngine {
+
+    private static final EngineMetrics METRICS = RoutingMetrics.engine("time-dependent");
+
+    private final TravelTimeProfiles profiles;
+    private final Heuristic heuristic; // seconds
+
+    private TimeDependentEngine(TravelTimeProfiles profiles, Heuristic heuristic) {
+        this.profiles = profiles;
+        this.heuristic = heuristic;
+    }
+
+    public static TimeDependentEngine dijkstra(TravelTimeProfiles profiles) {
+        return new TimeDependentEngine(profiles, Heuristic.ZERO);
+    }
+
+    public static TimeDependentEngine aStar(TravelTimeProfiles profiles) {
+        GreatCircleHeuristic meters = new GreatCircleHeuristic(profiles.graph());
+        double secondsPerMeter = profiles.minSecondsPerMeter();
+        return new TimeDependentEngine(profiles, (from, to) -> secondsPerMeter * meters.lowerBound(from, to));
+    }
+
+    public PathResult earliestArrival(int source, int target, double departure) {
+        return earliestArrival(source, target, departure, SearchWorkspace.forCurrentThread());
+    }
+
+    // departure in seconds since midnight; the workspace must not be used by another search at the same time
+    public PathResult earliestArrival(int source, int target, double departure, SearchWorkspace workspace) {
+        IndexedGraph g = profiles.graph();
+        DijkstraAlgorithm.checkNode(g, source);
+        DijkstraAlgorithm.checkNode(g, target);
+
+        QueryEvent event = RoutingMetrics.ENABLED ? METRICS.begin(source, target) : null;
+        workspace.begin(g.nodeCount());
+        IndexedDaryHeap heap = workspace.heap();
+        workspace.update(source, 0.0, -1);
+        heap.insertOrDecrease(source, heuristic.lowerBound(source, target));
+        int settled = 0;
+        long relaxed = 0;
+
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            settled++;
+            if (current == target) {
+                break;
+            }
+            double elapsed = workspace.distance(current);
+            double now = departure + elapsed;
+            if (RoutingMetrics.ENABLED) {
+                relaxed += g.endEdge(current) - g.firstEdge(current);
+            }
+            for (int e = g.firstEdge(current), end = g.endEdge(current); e < end; e++) {
+                int neighbor = g.target(e);
+                double newElapsed = elapsed + profiles.travelTime(e, now);
+                if (newElapsed < workspace.distance(neighbor)) {
+                    double bound = heuristic.lowerBound(neighbor, target);
+                    if (bound == Double.POSITIVE_INFINITY) {
+                        continue;
+                    }
+                    workspace.update(neighbor, newElapsed, current);
+                    heap.insertOrDecrease(neighbor, newElapsed + bound);
+                }
+            }
+        }
+        PathResult result = DijkstraAlgorithm.buildPath(g, workspace, source, target, settled);
+        if (RoutingMetrics.ENABLED) {
+            workspace.finishQuery(METRICS, event, relaxed, false, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+package main;
+
+import algorithm.AlternativeRouteEngine;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.Heuristic;
+import algorithm.AStarEngine;
+import algorithm.SearchWorkspace;
+import algorithm.ShortestPathEngine;
+import model.CsrGraph;
+import model.GraphReordering;
+import model.Node;
+import model.RoadNetworkGenerator;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+// Latency of k alternative routes: k separate Dijkstra runs (the cost of any scheme that reroutes
+// once per alternative, e.g. penalizing the previous route), Yen's k shortest paths, and plateau
+// alternatives. Routes found, their stretch against the shortest route and their overlap are
+// shown per mode; the first route of every mode is cross-checked against Dijkstra.
+// Usage: AlternativeRouteReport [nodes] [queries] [k] [maxOverlap] [maxStretch]
+public class AlternativeRouteReport {
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        double maxOverlap = args.length > 3 ? Double.parseDouble(args[3]) : 0.5;
+        double maxStretch = args.length > 4 ? Double.parseDouble(args[4]) : 1.3;
+
+        CsrGraph graph = GraphReordering.reorder(RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L),
+                GraphReordering.Order.HILBERT);
+        System.out.println(String.format("Graph: %d nodes, %d directed edges; k=%d, max overlap %.2f, max stretch %.2f",
+                graph.nodeCount(), graph.edgeCount(), k, maxOverlap, maxStretch));
+
+        // reachable pairs only, so every mode has something to find
+        ShortestPathEngine dijkstra = new AStarEngine(graph, Heuristic.ZERO);
+        Random random = new Random(7L);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        double[] expected = new double[queries];
+        for (int q = 0; q < queries; ) {
+            int s = random.nextInt(graph.nodeCount());
+            int t = random.nextInt(graph.nodeCount());
+            PathResult result = dijkstra.findShortestPath(s, t);
+            if (s != t && result.isReachable()) {
+                sources[q] = s;
+                targets[q] = t;
+                expected[q] = result.getTotalDistance();
+                q++;
+            }
+        }
+
+        AlternativeRouteEngine engine = new AlternativeRouteEngine(graph);
+        SearchWorkspace workspace = new SearchWorkspace();
+        System.out.println(String.format("%-22s %12s %8s %12s %12s %11s", "mode", "ms/query", "routes",
+                "avg stretch", "avg overlap", "mismatches"));
+        for (String mode : new String[] {k + " dijkstra runs", "yen", "plateau"}) {
+            double millis = 0;
+            List<List<PathResult>> found = null;
+            for (int round = 0; round < 2; round++) {
+                List<List<PathResult>> routes = new ArrayList<>(queries);
+                long start = System.nanoTime();
+                for (int q = 0; q < queries; q++) {
+                    if (mode.equals("yen")) {
+                        routes.add(engine.kShortest(sources[q], targets[q], k, workspace));
+                    } else if (mode.equals("plateau")) {
+                        routes.add(engine.alternatives(sources[q], targets[q], k, maxOverlap, maxStretch, workspace));
+                    } else {
+                        PathResult result = null;
+                        for (int i = 0; i < k; i++) {
+                            result = dijkstra.findShortestPath(sources[q], targets[q], workspace);
+                        }
+                        routes.add(List.of(result));
+                    }
+                }
+                millis = (System.nanoTime() - start) / 1e6 / queries;
+                found = routes;
+            }
+            long count = 0;
+            long alternatives = 0;
+            double stretch = 0;
+            double overlap = 0;
+            int mismatches = 0;
+            for (int q = 0; q < queries; q++) {
+                List<PathResult> routes = found.get(q);
+                count += routes.size();
+                double got = routes.get(0).getTotalDistance();
+                if (got != expected[q] && Math.abs(got - expected[q]) > 1e-6 * Math.max(1.0, expected[q])) {
+                    mismatches++;
+                }
+                for (int i = 1; i < routes.size(); i++) {
+                    alternatives++;
+                    stretch += routes.get(i).getTotalDistance() / got;
+                    overlap += sharedNodes(routes.get(0), routes.get(i));
+                }
+            }
+            System.out.println(String.format("%-22s %12.3f %8.2f %12s %12s %11d", mode, millis, (double) count / queries,
+                    alternatives == 0 ? "-" : String.format("%.3f", stretch / alternatives),
+                    alternatives == 0 ? "-" : String.format("%.2f", overlap / alternatives), mismatches));
+        }
+    }
+
+    // Fraction of the alternative's junctions that are also on the shortest route
+    private static double sharedNodes(PathResult shortest, PathResult alternative) {
+        Set<Node> onShortest = new HashSet<>(shortest.getPath());
+        int shared = 0;
+        for (Node node : alternative.getPath()) {
+            if (onShortest.contains(node)) {
+                shared++;
+            }
+        }
+        return (double) shared / alternative.getPath().size();
+    }
+}
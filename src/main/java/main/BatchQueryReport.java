@@ -0,0 +1,58 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.GreatCircleHeuristic;
+import algorithm.RouteQueryService;
+import algorithm.RouteQueryService.RouteRequest;
+import algorithm.ShortestPathEngine;
+import model.CsrGraph;
+import model.RoadNetworkGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Batch query throughput on one shared graph for 1..N platform threads and for virtual threads.
+// Usage: BatchQueryReport [gridSide] [queries] [maxThreads]
+public class BatchQueryReport {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        CsrGraph graph = RoadNetworkGenerator.grid(side, side, 150.0, 0.05, 42L);
+        ShortestPathEngine engine = new AStarEngine(graph, new GreatCircleHeuristic(graph));
+        System.out.println("Graph: " + graph.nodeCount() + " nodes, " + graph.edgeCount() + " directed edges, "
+                + queries + " queries per batch");
+
+        Random random = new Random(42L);
+        List<RouteRequest> batch = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            batch.add(new RouteRequest(random.nextInt(graph.nodeCount()), random.nextInt(graph.nodeCount())));
+        }
+
+        double single = 0;
+        System.out.println(String.format("%-18s %14s %10s", "Executor", "queries/s", "speedup"));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            try (RouteQueryService service = RouteQueryService.withThreads(engine, threads)) {
+                double throughput = measure(service, batch);
+                if (threads == 1) {
+                    single = throughput;
+                }
+                System.out.println(String.format("%-18s %14.0f %9.2fx", threads + " threads", throughput, throughput / single));
+            }
+        }
+        try (RouteQueryService service = RouteQueryService.withVirtualThreads(engine)) {
+            double throughput = measure(service, batch);
+            System.out.println(String.format("%-18s %14.0f %9.2fx", "virtual threads", throughput, throughput / single));
+        }
+    }
+
+    private static double measure(RouteQueryService service, List<RouteRequest> batch) {
+        service.routeAll(batch); // warm up
+        long start = System.nanoTime();
+        service.routeAll(batch);
+        return batch.size() / ((System.nanoTime() - start) / 1e9);
+    }
+}
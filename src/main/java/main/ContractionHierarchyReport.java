@@ -0,0 +1,99 @@
+package main;
+
+import algorithm.ContractionHierarchy;
+import algorithm.ContractionHierarchyBuilder;
+import algorithm.ContractionHierarchyEngine;
+import algorithm.DijkstraAlgorithm;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.ShortestPathEngine;
+import model.CsrGraph;
+import model.Graph;
+import model.Node;
+import model.RoadNetworkGenerator;
+
+import java.util.List;
+import java.util.Random;
+
+// Builds a Contraction Hierarchy over a synthetic grid city, cross-checks it against
+// DijkstraAlgorithm on random pairs (distance and unpacked path length) and prints preprocessing
+// time and average query latency of both (second of two passes, so both are JIT-compiled).
+// Usage: ContractionHierarchyReport [gridSide] [queries] [seed]
+public class ContractionHierarchyReport {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        CsrGraph graph = RoadNetworkGenerator.grid(side, side, 150.0, 0.05, seed);
+        System.out.println("Graph: " + graph.nodeCount() + " nodes, " + graph.edgeCount() + " directed edges");
+
+        long buildStart = System.nanoTime();
+        ContractionHierarchy ch = new ContractionHierarchyBuilder(graph).build();
+        long buildNanos = System.nanoTime() - buildStart;
+        System.out.println(String.format("Preprocessing: %.1f ms, %d shortcuts", buildNanos / 1e6, ch.shortcutCount()));
+
+        Graph loaded = new Graph();
+        loaded.load(graph);
+        ShortestPathEngine dijkstra = new DijkstraAlgorithm(loaded);
+        ShortestPathEngine chEngine = new ContractionHierarchyEngine(ch);
+
+        Random random = new Random(seed);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = random.nextInt(graph.nodeCount());
+            targets[i] = random.nextInt(graph.nodeCount());
+        }
+
+        PathResult[] expected = new PathResult[queries];
+        PathResult[] actual = new PathResult[queries];
+        long dijkstraNanos = run(dijkstra, sources, targets, expected);
+        long chNanos = run(chEngine, sources, targets, actual);
+        long dijkstraSettled = 0;
+        long chSettled = 0;
+        int mismatches = 0;
+        for (int i = 0; i < queries; i++) {
+            double want = expected[i].getTotalDistance();
+            double got = actual[i].getTotalDistance();
+            boolean same = want == got || Math.abs(want - got) <= 1e-6 * Math.max(1.0, want);
+            dijkstraSettled += expected[i].getSettledNodes();
+            chSettled += actual[i].getSettledNodes();
+            if (!same || actual[i].isReachable() && Math.abs(pathLength(graph, actual[i].getPath()) - got) > 1e-6 * Math.max(1.0, got)) {
+                mismatches++;
+            }
+        }
+
+        System.out.println(String.format("Dijkstra: %.3f ms/query, %.1f settled", dijkstraNanos / 1e6 / queries, (double) dijkstraSettled / queries));
+        System.out.println(String.format("CH:       %.3f ms/query, %.1f settled", chNanos / 1e6 / queries, (double) chSettled / queries));
+        System.out.println("Cross-check mismatches: " + mismatches + " / " + queries);
+    }
+
+    // Runs every query twice and returns the nanoseconds of the second pass
+    private static long run(ShortestPathEngine engine, int[] sources, int[] targets, PathResult[] out) {
+        long nanos = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < sources.length; i++) {
+                out[i] = engine.findShortestPath(sources[i], targets[i]);
+            }
+            nanos = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    // Sum of the cheapest original edge between consecutive path nodes
+    private static double pathLength(CsrGraph graph, List<Node> path) {
+        double length = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            int u = graph.idOf(path.get(i).getName());
+            int v = graph.idOf(path.get(i + 1).getName());
+            double best = Double.POSITIVE_INFINITY;
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                if (graph.target(e) == v) best = Math.min(best, graph.weight(e));
+            }
+            length += best;
+        }
+        return length;
+    }
+}
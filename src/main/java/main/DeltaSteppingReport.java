@@ -0,0 +1,132 @@
+package main;
+
+import algorithm.AllPairsDriver;
+import algorithm.DeltaSteppingEngine;
+import algorithm.SearchWorkspace;
+import algorithm.ShortestPathTree;
+import model.CsrGraph;
+import model.GraphReordering;
+import model.RoadNetworkGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Full shortest-path trees by delta-stepping on 1, 2, 4, ... cores against sequential Dijkstra
+// (ShortestPathTree.compute), and the all-pairs driver writing a matrix file on the same core
+// counts. Delta-stepping distances must equal Dijkstra's exactly; all-pairs rows are spot-checked.
+// Usage: DeltaSteppingReport [nodes] [sources] [allPairsNodes]
+public class DeltaSteppingReport {
+
+    public static void main(String[] args) throws IOException {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int sources = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int allPairsNodes = args.length > 2 ? Integer.parseInt(args[2]) : 3_000;
+
+        CsrGraph graph = GraphReordering.reorder(RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L),
+                GraphReordering.Order.HILBERT);
+        double delta = DeltaSteppingEngine.suggestedDelta(graph);
+        System.out.println(String.format("Graph: %d nodes, %d directed edges; delta %.1f m; %d cores available",
+                graph.nodeCount(), graph.edgeCount(), delta, Runtime.getRuntime().availableProcessors()));
+
+        Random random = new Random(7L);
+        int[] roots = random.ints(sources, 0, graph.nodeCount()).toArray();
+        SearchWorkspace workspace = new SearchWorkspace();
+        double[][] expected = new double[sources][];
+        double dijkstraMillis = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int s = 0; s < sources; s++) {
+                ShortestPathTree tree = ShortestPathTree.compute(graph, roots[s], workspace);
+                expected[s] = new double[graph.nodeCount()];
+                for (int v = 0; v < graph.nodeCount(); v++) {
+                    expected[s][v] = tree.distance(v);
+                }
+            }
+            dijkstraMillis = (System.nanoTime() - start) / 1e6 / sources;
+        }
+
+        System.out.println(String.format("%-24s %6s %12s %9s %11s", "sssp", "cores", "ms/tree", "speedup", "mismatches"));
+        System.out.println(String.format("%-24s %6d %12.1f %9s %11s", "dijkstra", 1, dijkstraMillis, "1.00", "-"));
+        for (int cores : coreCounts()) {
+            ForkJoinPool pool = new ForkJoinPool(cores);
+            try {
+                DeltaSteppingEngine engine = new DeltaSteppingEngine(graph, delta, pool);
+                double millis = 0;
+                int mismatches = 0;
+                for (int round = 0; round < 2; round++) {
+                    mismatches = 0;
+                    long start = System.nanoTime();
+                    for (int s = 0; s < sources; s++) {
+                        double[] got = engine.distances(roots[s]);
+                        for (int v = 0; v < got.length; v++) {
+                            if (got[v] != expected[s][v]) {
+                                mismatches++;
+                            }
+                        }
+                    }
+                    millis = (System.nanoTime() - start) / 1e6 / sources;
+                }
+                System.out.println(String.format("%-24s %6d %12.1f %9.2f %11d", "delta-stepping", cores, millis,
+                        dijkstraMillis / millis, mismatches));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        CsrGraph small = GraphReordering.reorder(RoadNetworkGenerator.randomGeometric(allPairsNodes, 150.0, 6.0, 42L),
+                GraphReordering.Order.HILBERT);
+        int n = small.nodeCount();
+        Path file = Files.createTempFile("all-pairs", ".matrix");
+        try {
+            System.out.println();
+            System.out.println(String.format("%-24s %6s %12s %9s %11s", "all-pairs (" + n + " nodes)", "cores",
+                    "ms", "speedup", "MB written"));
+            double baseline = 0;
+            for (int cores : coreCounts()) {
+                ForkJoinPool pool = new ForkJoinPool(cores);
+                try {
+                    long start = System.nanoTime();
+                    long bytes = new AllPairsDriver(small, pool).writeMatrix(file);
+                    double millis = (System.nanoTime() - start) / 1e6;
+                    if (cores == 1) {
+                        baseline = millis;
+                    }
+                    System.out.println(String.format("%-24s %6d %12.1f %9.2f %11.1f", "rows to file", cores, millis,
+                            baseline / millis, bytes / 1e6));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            int mismatches = 0;
+            for (int s = 0; s < 20; s++) {
+                int source = random.nextInt(n);
+                double[] row = AllPairsDriver.readRow(file, source, n);
+                ShortestPathTree tree = ShortestPathTree.compute(small, source, workspace);
+                for (int v = 0; v < n; v++) {
+                    if (row[v] != tree.distance(v)) {
+                        mismatches++;
+                    }
+                }
+            }
+            System.out.println("  20 rows spot-checked against Dijkstra: " + mismatches + " mismatches");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // 1, 2, 4, ... up to and including the available processors
+    private static List<Integer> coreCounts() {
+        int available = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+        for (int p = 1; p < available; p *= 2) {
+            counts.add(p);
+        }
+        counts.add(available);
+        return counts;
+    }
+}
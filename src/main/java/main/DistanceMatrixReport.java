@@ -0,0 +1,76 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.ContractionHierarchy;
+import algorithm.ContractionHierarchyBuilder;
+import algorithm.DistanceMatrix;
+import algorithm.DistanceMatrixEngine;
+import algorithm.Heuristic;
+import algorithm.ShortestPathEngine;
+import model.CsrGraph;
+import model.RoadNetworkGenerator;
+
+import java.util.Random;
+
+// Time to fill an origin x destination table: one search per pair, one-to-many per source,
+// and CH buckets (CH preprocessing reported separately).
+// Usage: DistanceMatrixReport [gridSide] [sources] [targets]
+public class DistanceMatrixReport {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 120;
+        int sources = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int targets = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        CsrGraph graph = RoadNetworkGenerator.grid(side, side, 150.0, 0.05, 42L);
+        System.out.println("Graph: " + graph.nodeCount() + " nodes, " + graph.edgeCount() + " directed edges, "
+                + sources + "x" + targets + " matrix");
+
+        Random random = new Random(42L);
+        int[] from = random.ints(sources, 0, graph.nodeCount()).toArray();
+        int[] to = random.ints(targets, 0, graph.nodeCount()).toArray();
+
+        ShortestPathEngine pairwise = new AStarEngine(graph, Heuristic.ZERO);
+        long start = System.nanoTime();
+        DistanceMatrix.InMemory reference = DistanceMatrix.inMemory(sources, targets);
+        for (int i = 0; i < sources; i++) {
+            for (int j = 0; j < targets; j++) {
+                reference.set(i, j, pairwise.findShortestPath(from[i], to[j]).getTotalDistance());
+            }
+        }
+        double pairMillis = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        DistanceMatrix.InMemory oneToMany = new DistanceMatrixEngine(graph).matrix(from, to);
+        double oneToManyMillis = (System.nanoTime() - start) / 1e6;
+
+        start = System.nanoTime();
+        ContractionHierarchy ch = new ContractionHierarchyBuilder(graph).build();
+        double chMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        DistanceMatrix.InMemory buckets = new DistanceMatrixEngine(ch).matrix(from, to);
+        double bucketMillis = (System.nanoTime() - start) / 1e6;
+
+        System.out.println(String.format("%-22s %12s %10s %12s", "Mode", "time (ms)", "speedup", "mismatches"));
+        System.out.println(String.format("%-22s %12.1f %9.2fx %12s", "search per pair", pairMillis, 1.0, "-"));
+        System.out.println(String.format("%-22s %12.1f %9.2fx %12d", "one-to-many", oneToManyMillis,
+                pairMillis / oneToManyMillis, mismatches(reference, oneToMany)));
+        System.out.println(String.format("%-22s %12.1f %9.2fx %12d", "CH buckets", bucketMillis,
+                pairMillis / bucketMillis, mismatches(reference, buckets)));
+        System.out.println(String.format("CH preprocessing: %.1f ms", chMillis));
+    }
+
+    private static int mismatches(DistanceMatrix expected, DistanceMatrix actual) {
+        int count = 0;
+        for (int i = 0; i < expected.rows(); i++) {
+            for (int j = 0; j < expected.cols(); j++) {
+                double a = expected.get(i, j);
+                double b = actual.get(i, j);
+                if (a != b && Math.abs(a - b) > 1e-6 * Math.max(1.0, a)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,149 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.Heuristic;
+import model.CsrGraph;
+import model.Edge;
+import model.Graph;
+import model.IndexedGraph;
+import model.Node;
+import model.OffHeapGraph;
+import model.RoadNetworkGenerator;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Heap footprint of the same synthetic graph in three layouts:
+// the original HashMap<Node, List<Edge>>, the on-heap CsrGraph and the OffHeapGraph.
+// Also checks that the off-heap graph answers queries exactly like the CSR graph, and that
+// unloading it under a running query fails that query instead of letting it read freed memory.
+// Usage: FootprintReport [gridSide] (run with a heap large enough for all three, e.g. -Xmx4g)
+public class FootprintReport {
+
+    public static void main(String[] args) throws IOException {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        long baseline = usedHeap();
+        CsrGraph csr = RoadNetworkGenerator.grid(side, side, 150.0, 0.05, 42L);
+        csr.reverse(); // both directions, like the off-heap copy
+        long csrHeap = usedHeap() - baseline;
+        System.out.println("Graph: " + csr.nodeCount() + " nodes, " + csr.edgeCount() + " directed edges");
+
+        long before = usedHeap();
+        Map<Node, List<Edge>> adjacency = legacyLayout(csr);
+        long legacyHeap = usedHeap() - before;
+
+        Graph graph = new Graph();
+        graph.load(csr);
+        before = usedHeap();
+        long directBefore = directMemory();
+        OffHeapGraph offHeap = graph.moveOffHeap();
+        long offHeapHeap = usedHeap() - before;
+        long offHeapDirect = directMemory() - directBefore;
+
+        // Node objects are shared by the first two layouts; report them separately
+        System.out.println(String.format("%-32s %14s %14s", "Layout", "heap MB", "off-heap MB"));
+        System.out.println(String.format("%-32s %14.1f %14s", "CsrGraph + reverse (incl. Nodes)", mb(csrHeap), "-"));
+        System.out.println(String.format("%-32s %14.1f %14s", "HashMap<Node, List<Edge>> extra", mb(legacyHeap), "-"));
+        System.out.println(String.format("%-32s %14.1f %14.1f", "OffHeapGraph", mb(offHeapHeap), mb(offHeapDirect)));
+
+        int mismatches = crossCheck(csr, offHeap, 200);
+        System.out.println("Off-heap query mismatches: " + mismatches + " / 200");
+
+        // Back on the heap, then unload the off-heap snapshot while a query is still running on it
+        graph.load(csr);
+        AtomicReference<Throwable> queryFailure = new AtomicReference<>();
+        Thread query = new Thread(() -> {
+            AStarEngine engine = new AStarEngine(offHeap, Heuristic.ZERO);
+            try {
+                for (int i = 0; ; i++) {
+                    engine.findShortestPath(i % offHeap.nodeCount(), offHeap.nodeCount() - 1 - i % offHeap.nodeCount());
+                }
+            } catch (RuntimeException e) {
+                queryFailure.set(e);
+            }
+        });
+        query.start();
+        sleep(200);
+        directBefore = directMemory();
+        offHeap.close();
+        long released = directBefore - directMemory();
+        join(query);
+        System.out.println(String.format("Off-heap graph closed: %b, %.1f MB released (legacy map size %d)",
+                offHeap.isClosed(), mb(released), adjacency.size()));
+        System.out.println("Query running during close() stopped with: " + queryFailure.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // The adjacency structure Graph used before the CSR backend
+    private static Map<Node, List<Edge>> legacyLayout(IndexedGraph g) {
+        Map<Node, List<Edge>> adjacency = new HashMap<>();
+        for (int u = 0; u < g.nodeCount(); u++) {
+            List<Edge> edges = new ArrayList<>();
+            Node source = g.node(u);
+            for (int e = g.firstEdge(u); e < g.endEdge(u); e++) {
+                edges.add(new Edge(source, g.node(g.target(e)), g.weight(e)));
+            }
+            adjacency.put(source, edges);
+        }
+        return adjacency;
+    }
+
+    private static int crossCheck(IndexedGraph expected, IndexedGraph actual, int queries) {
+        AStarEngine a = new AStarEngine(expected, Heuristic.ZERO);
+        AStarEngine b = new AStarEngine(actual, Heuristic.ZERO);
+        Random random = new Random(7);
+        int mismatches = 0;
+        for (int i = 0; i < queries; i++) {
+            int s = random.nextInt(expected.nodeCount());
+            int t = random.nextInt(expected.nodeCount());
+            if (a.findShortestPath(s, t).getTotalDistance() != b.findShortestPath(s, t).getTotalDistance()) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long directMemory() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+}
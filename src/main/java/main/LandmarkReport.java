@@ -0,0 +1,97 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.BidirectionalEngine;
+import algorithm.DijkstraAlgorithm;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.GreatCircleHeuristic;
+import algorithm.LandmarkHeuristic;
+import algorithm.ShortestPathEngine;
+import model.CsrGraph;
+import model.Graph;
+import model.GraphReordering;
+import model.RoadNetworkGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Settled nodes and latency of ALT (landmark) searches against plain Dijkstra and great-circle
+// A* on the same random pairs, for both landmark selection strategies, plus table precomputation
+// and save/load times. Distances are cross-checked against Dijkstra.
+// Usage: LandmarkReport [nodes] [landmarks] [queries]
+public class LandmarkReport {
+
+    public static void main(String[] args) throws IOException {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+
+        CsrGraph csr = GraphReordering.reorder(RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L),
+                GraphReordering.Order.HILBERT);
+        Graph graph = new Graph();
+        graph.load(csr);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.println("Graph: " + csr.nodeCount() + " nodes, " + csr.edgeCount() + " directed edges; "
+                + count + " landmarks");
+
+        Random random = new Random(7L);
+        int[] sources = random.ints(queries, 0, csr.nodeCount()).toArray();
+        int[] targets = random.ints(queries, 0, csr.nodeCount()).toArray();
+        double[] expected = new double[queries];
+        DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
+        System.out.println(String.format("%-28s %12s %12s %11s", "engine", "ms/query", "settled", "mismatches"));
+        run("dijkstra", dijkstra, sources, targets, expected, true);
+        run("a* great-circle", new AStarEngine(csr, new GreatCircleHeuristic(csr)), sources, targets, expected, false);
+
+        Path file = Files.createTempFile("landmarks", ".alt");
+        try {
+            for (LandmarkHeuristic.Selection selection : LandmarkHeuristic.Selection.values()) {
+                long start = System.nanoTime();
+                LandmarkHeuristic landmarks = LandmarkHeuristic.compute(csr, count, selection, 42L, pool);
+                double computeMillis = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                landmarks.save(file, csr);
+                double saveMillis = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                landmarks = LandmarkHeuristic.load(file, csr);
+                double loadMillis = (System.nanoTime() - start) / 1e6;
+                String name = selection.name().toLowerCase();
+                run("alt " + name, new AStarEngine(csr, landmarks), sources, targets, expected, false);
+                run("bidirectional alt " + name, new BidirectionalEngine(csr, landmarks), sources, targets, expected, false);
+                System.out.println(String.format("  %s tables: %.1f MB, computed in %.1f ms, saved in %.1f ms, loaded in %.1f ms",
+                        name, landmarks.tableBytes() / 1e6, computeMillis, saveMillis, loadMillis));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Runs every query twice (the second pass is reported); the first engine fills `expected`
+    private static void run(String label, ShortestPathEngine engine, int[] sources, int[] targets,
+                            double[] expected, boolean reference) {
+        long settled = 0;
+        long start = 0;
+        int mismatches = 0;
+        for (int round = 0; round < 2; round++) {
+            settled = 0;
+            mismatches = 0;
+            start = System.nanoTime();
+            for (int q = 0; q < sources.length; q++) {
+                PathResult result = engine.findShortestPath(sources[q], targets[q]);
+                settled += result.getSettledNodes();
+                double got = result.getTotalDistance();
+                if (reference) {
+                    expected[q] = got;
+                } else if (got != expected[q] && Math.abs(got - expected[q]) > 1e-6 * Math.max(1.0, expected[q])) {
+                    mismatches++;
+                }
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        System.out.println(String.format("%-28s %12.3f %12.1f %11d", label, millis / sources.length,
+                (double) settled / sources.length, mismatches));
+    }
+}
@@ -0,0 +1,106 @@
+package main;
+
+import algorithm.LiveShortestPathTrees;
+import algorithm.SearchWorkspace;
+import algorithm.ShortestPathTree;
+import model.CsrGraph;
+import model.EdgeWeightUpdates;
+import model.Graph;
+import model.IndexedGraph;
+import model.RoadNetworkGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Incremental repair of hot-source shortest-path trees versus recomputing them, for batches of
+// random traffic updates (slowdowns, speedups, closures and re-openings). Every repaired tree
+// is checked against a full recomputation on the same snapshot.
+// Usage: LiveUpdateReport [gridSide] [hotSources] [batches]
+public class LiveUpdateReport {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int hotSources = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int batches = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        CsrGraph csr = RoadNetworkGenerator.grid(side, side, 150.0, 0.05, 42L);
+        Graph graph = new Graph();
+        graph.load(csr);
+        Random random = new Random(42L);
+        LiveShortestPathTrees live = new LiveShortestPathTrees(graph);
+        int[] sources = random.ints(hotSources, 0, csr.nodeCount()).toArray();
+        for (int source : sources) {
+            live.track(source);
+        }
+        System.out.println("Graph: " + csr.nodeCount() + " nodes, " + csr.edgeCount() + " directed edges, "
+                + hotSources + " hot sources");
+        System.out.println(String.format("%-8s %10s %12s %14s %9s %14s %14s %11s", "updates", "changed", "repair (ms)",
+                "recompute (ms)", "speedup", "repair settled", "full settled", "mismatches"));
+
+        List<int[]> closed = new ArrayList<>();
+        SearchWorkspace workspace = new SearchWorkspace();
+        for (int batchSize : new int[] {1, 10, 100, 1000}) {
+            for (int b = 0; b < batches; b++) {
+                EdgeWeightUpdates updates = randomUpdates(graph.getIndexedGraph(), batchSize, random, closed);
+
+                long start = System.nanoTime();
+                EdgeWeightUpdates.Applied applied = live.apply(updates);
+                double repairMillis = (System.nanoTime() - start) / 1e6;
+
+                start = System.nanoTime();
+                long fullSettled = 0;
+                int mismatches = 0;
+                for (int source : sources) {
+                    ShortestPathTree full = ShortestPathTree.compute(applied.current(), source, workspace);
+                    fullSettled += full.settledNodes();
+                    mismatches += mismatches(full, live.tree(source));
+                }
+                double recomputeMillis = (System.nanoTime() - start) / 1e6;
+
+                if (b == batches - 1) {
+                    System.out.println(String.format("%-8d %10d %12.2f %14.2f %8.1fx %14d %14d %11d", batchSize,
+                            applied.changedEdges().length, repairMillis, recomputeMillis, recomputeMillis / repairMillis,
+                            live.lastRepairSettled(), fullSettled, mismatches));
+                }
+            }
+        }
+    }
+
+    private static EdgeWeightUpdates randomUpdates(IndexedGraph g, int count, Random random, List<int[]> closed) {
+        EdgeWeightUpdates updates = new EdgeWeightUpdates();
+        for (int i = 0; i < count; i++) {
+            int u = random.nextInt(g.nodeCount());
+            if (g.firstEdge(u) == g.endEdge(u)) {
+                continue;
+            }
+            int e = g.firstEdge(u) + random.nextInt(g.endEdge(u) - g.firstEdge(u));
+            int v = g.target(e);
+            double kind = random.nextDouble();
+            if (kind < 0.1 && !closed.isEmpty()) {
+                int[] edge = closed.remove(closed.size() - 1);
+                updates.reopen(edge[0], edge[1]);
+            } else if (kind < 0.25) {
+                updates.close(u, v);
+                closed.add(new int[] {u, v});
+            } else if (kind < 0.65 && g.weight(e) < Double.POSITIVE_INFINITY) {
+                updates.set(u, v, g.weight(e) * (1.2 + 2 * random.nextDouble())); // congestion
+            } else if (g.weight(e) < Double.POSITIVE_INFINITY) {
+                updates.set(u, v, g.weight(e) * (0.7 + 0.3 * random.nextDouble())); // clearing up
+            }
+        }
+        return updates;
+    }
+
+    private static int mismatches(ShortestPathTree expected, ShortestPathTree actual) {
+        int count = 0;
+        for (int v = 0; v < expected.graph().nodeCount(); v++) {
+            double a = expected.distance(v);
+            double b = actual.distance(v);
+            if (a != b && Math.abs(a - b) > 1e-6 * Math.max(1.0, a)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
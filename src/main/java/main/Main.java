@@ -4,12 +4,25 @@ import javafx.application.Application;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import model.Graph;
+import model.RoadNetworkGenerator;
+import server.RoutingServer;
 import view.MapView; 
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+// Usage: Main                      the bundled Addis Ababa graph
+//        Main <file.graph>         a binary graph written by GraphConverter
+//        Main --synthetic <nodes>  a generated road network (about 6 directed edges per node)
+//        Main --headless [...]     no window: HTTP routing server, see server.RoutingServer for options
+//                                  (or run server.RoutingServer directly where JavaFX is not installed)
 public class Main extends Application {
     @Override
-    public void start(Stage primaryStage) {
-        MapView mapView = new MapView();
+    public void start(Stage primaryStage) throws IOException {
+        MapView mapView = mapViewFor(getParameters().getRaw());
         Parent root = mapView.createContent(); // Create the map view content
         
         Scene scene = new Scene(root, 800, 600); // display size of the window
@@ -19,7 +32,25 @@ public class Main extends Application {
         primaryStage.show();
     }
 
-    public static void main(String[] args) {
+    private static MapView mapViewFor(List<String> args) throws IOException {
+        if (args.isEmpty()) {
+            return new MapView();
+        }
+        Graph graph = new Graph();
+        if (args.get(0).equals("--synthetic")) {
+            int nodes = args.size() > 1 ? Integer.parseInt(args.get(1)) : 170_000;
+            graph.load(RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L));
+        } else {
+            graph.loadFromBinary(Path.of(args.get(0)));
+        }
+        return new MapView(graph);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--headless")) { // the JavaFX toolkit is never started
+            RoutingServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         launch(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.BidirectionalEngine;
+import algorithm.ContractionHierarchyBuilder;
+import algorithm.ContractionHierarchyEngine;
+import algorithm.DijkstraAlgorithm;
+import algorithm.GreatCircleHeuristic;
+import algorithm.SearchWorkspace;
+import algorithm.ShortestPathEngine;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import metrics.EngineMetrics;
+import metrics.RoutingMetrics;
+import model.Graph;
+import model.RoadNetworkGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Runs the same random queries through each engine and prints what the instrumentation saw:
+// per-engine latency percentiles and search effort (as exposed over JMX), graph load phases and
+// the number of JFR events a recording captured. Throughput is printed either way, so running
+// once with and once without -Dspf.metrics=true shows the cost of the instrumentation.
+// Usage: java [-Dspf.metrics=true] main.MetricsReport [gridSide] [queries]
+public class MetricsReport {
+
+    public static void main(String[] args) throws IOException {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        System.out.println("Metrics " + (RoutingMetrics.ENABLED ? "enabled" : "disabled (run with -Dspf.metrics=true)"));
+
+        Recording recording = null;
+        if (RoutingMetrics.ENABLED) {
+            recording = new Recording();
+            recording.enable("spf.Query");
+            recording.enable("spf.GraphLoad");
+            recording.start();
+        }
+
+        Graph graph = new Graph();
+        graph.load(RoadNetworkGenerator.grid(side, side, 150.0, 0.05, 42L));
+        graph.getSpatialIndex();
+        Map<String, ShortestPathEngine> engines = new LinkedHashMap<>();
+        engines.put("dijkstra", new DijkstraAlgorithm(graph));
+        engines.put("astar", new AStarEngine(graph.getIndexedGraph(), new GreatCircleHeuristic(graph.getIndexedGraph())));
+        engines.put("bidirectional", BidirectionalEngine.dijkstra(graph.getIndexedGraph()));
+        engines.put("ch", new ContractionHierarchyEngine(new ContractionHierarchyBuilder(graph.getIndexedGraph()).build()));
+
+        int n = graph.getIndexedGraph().nodeCount();
+        Random random = new Random(7L);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = random.nextInt(n);
+            targets[i] = random.nextInt(n);
+        }
+
+        System.out.println(String.format("%-14s %12s", "Engine", "queries/s"));
+        SearchWorkspace workspace = new SearchWorkspace();
+        for (Map.Entry<String, ShortestPathEngine> entry : engines.entrySet()) {
+            ShortestPathEngine engine = entry.getValue();
+            for (int i = 0; i < Math.min(queries, 200); i++) { // warm up
+                engine.findShortestPath(sources[i], targets[i], workspace);
+            }
+            if (RoutingMetrics.ENABLED) {
+                RoutingMetrics.engine(entry.getKey()).reset();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                engine.findShortestPath(sources[i], targets[i], workspace);
+            }
+            System.out.println(String.format("%-14s %12.0f", entry.getKey(), queries / ((System.nanoTime() - start) / 1e9)));
+        }
+        if (!RoutingMetrics.ENABLED) {
+            return;
+        }
+
+        System.out.println();
+        for (EngineMetrics metrics : RoutingMetrics.engines()) {
+            System.out.println(metrics);
+        }
+        System.out.println("Last query: " + workspace.lastQueryStats());
+        System.out.println("Load phases (ms): " + RoutingMetrics.lastLoadPhaseMillis());
+
+        recording.stop();
+        Path file = Files.createTempFile("spf-metrics", ".jfr");
+        recording.dump(file);
+        recording.close();
+        int queryEvents = 0;
+        int loadEvents = 0;
+        for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+            if (event.getEventType().getName().equals("spf.Query")) {
+                queryEvents++;
+            } else if (event.getEventType().getName().equals("spf.GraphLoad")) {
+                loadEvents++;
+            }
+        }
+        Files.delete(file);
+        System.out.println("JFR: " + queryEvents + " spf.Query and " + loadEvents + " spf.GraphLoad events recorded");
+    }
+}
@@ -0,0 +1,79 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.GreatCircleHeuristic;
+import algorithm.PathCache;
+import algorithm.ShortestPathEngine;
+import model.BinaryGraphFormat;
+import model.CsrGraph;
+import model.Graph;
+import model.RoadNetworkGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Hit rate and throughput of PathCache for a skewed (Zipf-like) query mix, at several cache sizes,
+// plus the effect of a graph reload on the cached entries.
+// Usage: PathCacheReport [gridSide] [queries] [hotSpots]
+public class PathCacheReport {
+
+    public static void main(String[] args) throws IOException {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int hotSpots = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        CsrGraph csr = RoadNetworkGenerator.grid(side, side, 150.0, 0.05, 42L);
+        Path file = Files.createTempFile("path-cache-report", ".spfg");
+        file.toFile().deleteOnExit();
+        BinaryGraphFormat.write(csr, file);
+        Graph graph = new Graph();
+        graph.loadFromBinary(file);
+
+        // popular places: a few hundred nodes, picked with probability ~ 1/rank
+        Random random = new Random(42L);
+        int[] places = random.ints(hotSpots, 0, csr.nodeCount()).toArray();
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = places[zipf(random, hotSpots)];
+            targets[i] = places[zipf(random, hotSpots)];
+        }
+
+        ShortestPathEngine uncached = new AStarEngine(csr, new GreatCircleHeuristic(csr));
+        double baseline = measure(uncached, sources, targets);
+        System.out.println(String.format("Uncached A*: %.0f queries/s", baseline));
+        System.out.println(String.format("%-10s %12s %9s %9s %10s %10s %12s", "entries", "queries/s", "speedup",
+                "hit rate", "tree hits", "evictions", "cached MB"));
+        for (int entries : new int[] {256, 1024, 4096, 16384}) {
+            PathCache cache = new PathCache(graph, g -> new AStarEngine(g, new GreatCircleHeuristic(g)),
+                    entries, 256L << 20);
+            double throughput = measure(cache, sources, targets);
+            PathCache.Stats stats = cache.stats();
+            System.out.println(String.format("%-10d %12.0f %8.2fx %8.1f%% %10d %10d %12.1f", entries, throughput,
+                    throughput / baseline, 100 * stats.hitRate(), stats.treeHits(), stats.evictions(), stats.bytes() / 1e6));
+        }
+
+        PathCache cache = new PathCache(graph, g -> new AStarEngine(g, new GreatCircleHeuristic(g)), 4096, 256L << 20);
+        measure(cache, sources, targets);
+        long before = cache.stats().entries();
+        graph.loadFromBinary(file); // new snapshot, new version
+        cache.findShortestPath(sources[0], targets[0]);
+        System.out.println("After reload: " + before + " -> " + cache.stats().entries() + " entries, "
+                + cache.stats().invalidations() + " invalidation(s)");
+    }
+
+    private static int zipf(Random random, int n) {
+        // inverse CDF of p(k) ~ 1/k, approximated by exp(u * ln n)
+        return Math.min(n - 1, (int) Math.exp(random.nextDouble() * Math.log(n)) - 1);
+    }
+
+    private static double measure(ShortestPathEngine engine, int[] sources, int[] targets) {
+        long start = System.nanoTime();
+        for (int i = 0; i < sources.length; i++) {
+            engine.findShortestPath(sources[i], targets[i]);
+        }
+        return sources.length / ((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,102 @@
+package main;
+
+import algorithm.RangeSearch;
+import algorithm.SearchWorkspace;
+import algorithm.ShortestPathTree;
+import model.CsrGraph;
+import model.GraphReordering;
+import model.RoadNetworkGenerator;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Latency and size of range (isochrone) queries for growing budgets, from one source and from
+// several sources in one pass, against a full shortest-path tree. Every reached set and its
+// distances are cross-checked against the full tree (nearest source for the multi-source case).
+// Usage: RangeSearchReport [nodes] [queries] [sourcesPerQuery]
+public class RangeSearchReport {
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int perQuery = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        CsrGraph graph = GraphReordering.reorder(RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L),
+                GraphReordering.Order.HILBERT);
+        System.out.println("Graph: " + graph.nodeCount() + " nodes, " + graph.edgeCount() + " directed edges");
+        Random random = new Random(7L);
+        int[][] sources = new int[queries][];
+        for (int q = 0; q < queries; q++) {
+            sources[q] = random.ints(perQuery, 0, graph.nodeCount()).toArray();
+        }
+
+        SearchWorkspace workspace = new SearchWorkspace();
+        long start = System.nanoTime();
+        double[][] nearest = new double[queries][graph.nodeCount()];
+        for (int q = 0; q < queries; q++) {
+            Arrays.fill(nearest[q], Double.POSITIVE_INFINITY);
+            for (int source : sources[q]) {
+                ShortestPathTree tree = ShortestPathTree.compute(graph, source, workspace);
+                for (int v = 0; v < graph.nodeCount(); v++) {
+                    nearest[q][v] = Math.min(nearest[q][v], tree.distance(v));
+                }
+            }
+        }
+        double treeMillis = (System.nanoTime() - start) / 1e6 / (queries * perQuery);
+        System.out.println(String.format("Full shortest-path tree: %.1f ms", treeMillis));
+
+        RangeSearch search = new RangeSearch(graph);
+        System.out.println(String.format("%10s %8s %12s %12s %12s %11s", "budget (m)", "sources", "ms/query",
+                "reached", "boundary", "mismatches"));
+        for (double budget : new double[] {1_000, 5_000, 20_000}) {
+            for (int count : new int[] {1, perQuery}) {
+                RangeSearch.Range[] ranges = new RangeSearch.Range[queries];
+                double millis = 0;
+                for (int round = 0; round < 2; round++) {
+                    start = System.nanoTime();
+                    for (int q = 0; q < queries; q++) {
+                        ranges[q] = search.within(count == 1 ? new int[] {sources[q][0]} : sources[q], budget, workspace);
+                    }
+                    millis = (System.nanoTime() - start) / 1e6 / queries;
+                }
+                long reached = 0;
+                long boundary = 0;
+                int mismatches = 0;
+                for (int q = 0; q < queries; q++) {
+                    reached += ranges[q].size();
+                    boundary += ranges[q].boundaryEdges().length;
+                    mismatches += check(graph, sources[q][0], budget, ranges[q], count == 1 ? null : nearest[q], workspace);
+                }
+                System.out.println(String.format("%10.0f %8d %12.3f %12.1f %12.1f %11d", budget, count, millis,
+                        (double) reached / queries, (double) boundary / queries, mismatches));
+            }
+        }
+    }
+
+    // Nodes whose range membership or distance differs from the full tree (or from the given
+    // nearest-source distances)
+    private static int check(CsrGraph graph, int source, double budget, RangeSearch.Range range,
+                             double[] nearest, SearchWorkspace workspace) {
+        double[] expected = nearest;
+        if (expected == null) {
+            ShortestPathTree tree = ShortestPathTree.compute(graph, source, workspace);
+            expected = new double[graph.nodeCount()];
+            for (int v = 0; v < expected.length; v++) {
+                expected[v] = tree.distance(v);
+            }
+        }
+        int inBudget = 0;
+        for (double d : expected) {
+            if (d <= budget) {
+                inBudget++;
+            }
+        }
+        int mismatches = Math.abs(inBudget - range.size());
+        for (int i = 0; i < range.size(); i++) {
+            if (range.distances()[i] != expected[range.nodes()[i]]) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+}
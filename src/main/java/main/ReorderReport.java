@@ -0,0 +1,87 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.BidirectionalEngine;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.Heuristic;
+import algorithm.ShortestPathEngine;
+import model.CsrGraph;
+import model.GraphReordering;
+import model.IndexedGraph;
+import model.RoadNetworkGenerator;
+
+import java.util.Random;
+
+// Query latency of the same random network under three node numberings: as generated (random,
+// like ids assigned in file order), along a Hilbert curve and in Cuthill-McKee BFS order.
+// Queries are the same junction pairs in every layout (looked up by name) and their distances
+// are cross-checked against the original numbering.
+// Usage: ReorderReport [nodes] [queries]
+public class ReorderReport {
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        CsrGraph original = RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L);
+        System.out.println("Graph: " + original.nodeCount() + " nodes, " + original.edgeCount() + " directed edges");
+        Random random = new Random(42L);
+        String[] sourceNames = new String[queries];
+        String[] targetNames = new String[queries];
+        for (int i = 0; i < queries; i++) {
+            sourceNames[i] = original.node(random.nextInt(original.nodeCount())).getName();
+            targetNames[i] = original.node(random.nextInt(original.nodeCount())).getName();
+        }
+
+        String[] labels = {"generated", "hilbert", "bfs"};
+        IndexedGraph[] layouts = new IndexedGraph[3];
+        double[] reorderMillis = new double[3];
+        layouts[0] = original;
+        for (int i = 1; i < 3; i++) {
+            long start = System.nanoTime();
+            layouts[i] = GraphReordering.reorder(original, i == 1 ? GraphReordering.Order.HILBERT : GraphReordering.Order.BFS);
+            reorderMillis[i] = (System.nanoTime() - start) / 1e6;
+        }
+
+        System.out.println(String.format("%-10s %12s %12s %16s %20s %11s", "layout", "reorder (ms)", "edge span",
+                "dijkstra (ms/q)", "bidirectional (ms/q)", "mismatches"));
+        double[] expected = null;
+        for (int i = 0; i < 3; i++) {
+            IndexedGraph g = layouts[i];
+            int[] sources = new int[queries];
+            int[] targets = new int[queries];
+            for (int q = 0; q < queries; q++) {
+                sources[q] = g.idOf(sourceNames[q]);
+                targets[q] = g.idOf(targetNames[q]);
+            }
+            double[] distances = new double[queries];
+            double dijkstraMillis = time(new AStarEngine(g, Heuristic.ZERO), sources, targets, distances);
+            double bidirectionalMillis = time(BidirectionalEngine.dijkstra(g), sources, targets, new double[queries]);
+            int mismatches = 0;
+            if (expected == null) {
+                expected = distances;
+            }
+            for (int q = 0; q < queries; q++) {
+                double want = expected[q];
+                if (want != distances[q] && Math.abs(want - distances[q]) > 1e-6 * Math.max(1.0, want)) {
+                    mismatches++;
+                }
+            }
+            System.out.println(String.format("%-10s %12.1f %12.0f %16.3f %20.3f %11d", labels[i], reorderMillis[i],
+                    GraphReordering.averageEdgeSpan(g), dijkstraMillis / queries, bidirectionalMillis / queries, mismatches));
+        }
+    }
+
+    // Milliseconds for all queries, after one warm-up pass; distances are written out
+    private static double time(ShortestPathEngine engine, int[] sources, int[] targets, double[] distances) {
+        long start = 0;
+        for (int round = 0; round < 2; round++) {
+            start = System.nanoTime();
+            for (int q = 0; q < sources.length; q++) {
+                PathResult result = engine.findShortestPath(sources[q], targets[q]);
+                distances[q] = result.getTotalDistance();
+            }
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
@@ -0,0 +1,73 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.BidirectionalEngine;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.GreatCircleHeuristic;
+import algorithm.Heuristic;
+import algorithm.ShortestPathEngine;
+import model.CsrGraph;
+import model.RoadNetworkGenerator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Compares the point-to-point engines on the same random queries over a synthetic grid city:
+// average settled nodes (search space), average query time, and a distance cross-check.
+// Usage: SearchSpaceReport [gridSide] [queries] [seed]
+public class SearchSpaceReport {
+
+    public static void main(String[] args) {
+        int side = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        CsrGraph graph = RoadNetworkGenerator.grid(side, side, 150.0, 0.05, seed);
+        System.out.println("Graph: " + graph.nodeCount() + " nodes, " + graph.edgeCount() + " directed edges");
+
+        Heuristic greatCircle = new GreatCircleHeuristic(graph);
+        Map<String, ShortestPathEngine> engines = new LinkedHashMap<>();
+        engines.put("Dijkstra", new AStarEngine(graph, Heuristic.ZERO));
+        engines.put("A*", new AStarEngine(graph, greatCircle));
+        engines.put("Bidirectional Dijkstra", BidirectionalEngine.dijkstra(graph));
+        engines.put("Bidirectional A*", new BidirectionalEngine(graph, greatCircle));
+
+        Random random = new Random(seed);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = random.nextInt(graph.nodeCount());
+            targets[i] = random.nextInt(graph.nodeCount());
+        }
+
+        double[] reference = null;
+        System.out.println(String.format("%-24s %14s %12s %10s", "Engine", "avg settled", "avg ms", "mismatches"));
+        for (Map.Entry<String, ShortestPathEngine> entry : engines.entrySet()) {
+            ShortestPathEngine engine = entry.getValue();
+            for (int i = 0; i < Math.min(queries, 20); i++) { // warm up
+                engine.findShortestPath(sources[i], targets[i]);
+            }
+            double[] distances = new double[queries];
+            long settled = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                PathResult result = engine.findShortestPath(sources[i], targets[i]);
+                distances[i] = result.getTotalDistance();
+                settled += result.getSettledNodes();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (reference == null) {
+                reference = distances;
+            }
+            int mismatches = 0;
+            for (int i = 0; i < queries; i++) {
+                if (Math.abs(distances[i] - reference[i]) > 1e-6 * Math.max(1.0, reference[i])) {
+                    mismatches++;
+                }
+            }
+            System.out.println(String.format("%-24s %14.1f %12.3f %10d", entry.getKey(),
+                    (double) settled / queries, elapsed / 1e6 / queries, mismatches));
+        }
+    }
+}
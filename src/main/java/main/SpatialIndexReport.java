@@ -0,0 +1,95 @@
+package main;
+
+import algorithm.CoordinateRouter;
+import algorithm.DijkstraAlgorithm;
+import model.CsrGraph;
+import model.GeoUtils;
+import model.Graph;
+import model.RoadNetworkGenerator;
+import model.SpatialIndex;
+
+import java.util.Random;
+
+// Build time and per-query latency of the spatial index against a linear scan over all nodes,
+// plus one routing query between raw coordinates.
+// Usage: SpatialIndexReport [nodes] [queries]
+public class SpatialIndexReport {
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        CsrGraph csr = RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L);
+        Graph graph = new Graph();
+        graph.load(csr);
+        long start = System.nanoTime();
+        SpatialIndex index = graph.getSpatialIndex();
+        System.out.println(String.format("Graph: %d nodes, %d directed edges; index built in %.1f ms",
+                csr.nodeCount(), csr.edgeCount(), (System.nanoTime() - start) / 1e6));
+
+        // query points spread over the same area as the nodes
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < csr.nodeCount(); i++) {
+            minLat = Math.min(minLat, csr.latitude(i));
+            maxLat = Math.max(maxLat, csr.latitude(i));
+            minLon = Math.min(minLon, csr.longitude(i));
+            maxLon = Math.max(maxLon, csr.longitude(i));
+        }
+        Random random = new Random(7L); // not the generator's seed, or the first points land on nodes
+        double[] lats = new double[queries];
+        double[] lons = new double[queries];
+        for (int i = 0; i < queries; i++) {
+            lats[i] = minLat + random.nextDouble() * (maxLat - minLat);
+            lons[i] = minLon + random.nextDouble() * (maxLon - minLon);
+        }
+
+        long checksum = 0;
+        for (int round = 0; round < 3; round++) { // the last round is reported, after JIT warm-up
+            long t0 = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                checksum += index.nearestNode(lats[i], lons[i]);
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                checksum += index.nearestNodes(lats[i], lons[i], 8)[7];
+            }
+            long t2 = System.nanoTime();
+            for (int i = 0; i < queries; i++) {
+                checksum += index.nearestEdge(lats[i], lons[i]).edge();
+            }
+            long t3 = System.nanoTime();
+            if (round == 2) {
+                System.out.println(String.format("%-22s %10.0f ns", "nearest node", (t1 - t0) / (double) queries));
+                System.out.println(String.format("%-22s %10.0f ns", "8 nearest nodes", (t2 - t1) / (double) queries));
+                System.out.println(String.format("%-22s %10.0f ns", "nearest edge", (t3 - t2) / (double) queries));
+            }
+        }
+
+        int scans = Math.min(queries, 200);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < scans; i++) {
+            checksum += linearScan(csr, lats[i], lons[i]);
+        }
+        System.out.println(String.format("%-22s %10.0f ns", "linear scan", (System.nanoTime() - t0) / (double) scans));
+
+        CoordinateRouter router = new CoordinateRouter(graph, new DijkstraAlgorithm(graph));
+        CoordinateRouter.CoordinateRoute route = router.route(lats[0], lons[0], lats[1], lons[1]);
+        System.out.println(String.format("Route between raw coordinates: %.0f m (snapped %.1f m and %.1f m off the street)",
+                route.totalDistance(), route.origin().distanceMeters(), route.destination().distanceMeters()));
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    private static int linearScan(CsrGraph g, double lat, double lon) {
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < g.nodeCount(); i++) {
+            double d = GeoUtils.haversineMeters(lat, lon, g.latitude(i), g.longitude(i));
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,175 @@
+package main;
+
+import algorithm.AStarEngine;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.GreatCircleHeuristic;
+import algorithm.Heuristic;
+import algorithm.SearchWorkspace;
+import algorithm.TimeDependentEngine;
+import model.CsrGraph;
+import model.GraphReordering;
+import model.RoadNetworkGenerator;
+import model.TravelTimeProfiles;
+
+import java.util.Random;
+
+// Memory and query latency of time-dependent travel times against the static engines on the same
+// pairs. Two thirds of the edges get one of two shared daily profiles (arterial with morning and
+// evening peaks, residential with a mild day bump), the rest stay at free flow. At 03:00 every
+// profile is at free flow, so time-dependent travel times there must equal static distance / speed;
+// time-dependent A* is cross-checked against time-dependent Dijkstra at every departure, and
+// arrivals are checked to never get earlier when leaving a minute later (FIFO). A separate profile
+// that starts at 06:00 checks interpolation across midnight, which the profiles above never hit.
+// Usage: TimeDependentReport [nodes] [queries]
+public class TimeDependentReport {
+
+    private static final double SPEED = 13.9; // m/s, 50 km/h free flow
+
+    public static void main(String[] args) {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        CsrGraph graph = GraphReordering.reorder(RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L),
+                GraphReordering.Order.HILBERT);
+        TravelTimeProfiles.Builder builder = TravelTimeProfiles.builder(graph, SPEED);
+        int arterial = builder.addProfile(
+                hours(0, 6, 7, 8.5, 10, 16, 17.5, 19, 21),
+                new double[] {1.0, 1.0, 2.2, 2.6, 1.4, 1.4, 2.4, 1.6, 1.0});
+        int residential = builder.addProfile(hours(0, 6, 9, 18, 22), new double[] {1.0, 1.0, 1.3, 1.3, 1.0});
+        Random random = new Random(42L);
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            int kind = random.nextInt(3);
+            if (kind < 2) {
+                builder.assign(e, kind == 0 ? arterial : residential);
+            }
+        }
+        long start = System.nanoTime();
+        TravelTimeProfiles profiles = builder.build();
+        double buildMillis = (System.nanoTime() - start) / 1e6;
+        System.out.println("Graph: " + graph.nodeCount() + " nodes, " + graph.edgeCount() + " directed edges");
+        System.out.println(String.format("Profiles: %d shared, %.2f bytes per edge (static weights: 8.00), %.1f MB, built in %.1f ms",
+                profiles.profileCount(), (double) profiles.bytes() / graph.edgeCount(), profiles.bytes() / 1e6, buildMillis));
+
+        int[] sources = random.ints(queries, 0, graph.nodeCount()).toArray();
+        int[] targets = random.ints(queries, 0, graph.nodeCount()).toArray();
+        SearchWorkspace workspace = new SearchWorkspace();
+        double[] meters = new double[queries];
+        System.out.println(String.format("%-30s %12s %12s %11s", "engine", "ms/query", "settled", "mismatches"));
+        runStatic("static dijkstra", new AStarEngine(graph, Heuristic.ZERO), sources, targets, meters, workspace);
+        runStatic("static a* great-circle", new AStarEngine(graph, new GreatCircleHeuristic(graph)), sources, targets,
+                new double[queries], workspace);
+
+        checkShiftedProfile(graph);
+
+        TimeDependentEngine dijkstra = TimeDependentEngine.dijkstra(profiles);
+        TimeDependentEngine aStar = TimeDependentEngine.aStar(profiles);
+        for (double departure : hours(3, 8, 17.5)) {
+            double[] seconds = new double[queries];
+            String at = String.format("%02d:%02d", (int) (departure / 3600), (int) (departure % 3600 / 60));
+            int freeFlowMismatches = 0;
+            int fifoViolations = 0;
+            double[] expected = runTimeDependent("td dijkstra " + at, dijkstra, departure, sources, targets, null,
+                    seconds, workspace);
+            runTimeDependent("td a* " + at, aStar, departure, sources, targets, expected, new double[queries], workspace);
+            for (int q = 0; q < queries; q++) {
+                double later = dijkstra.earliestArrival(sources[q], targets[q], departure + 60, workspace).getTotalDistance();
+                if (later + 60 < seconds[q] - 1e-6) {
+                    fifoViolations++;
+                }
+                double free = meters[q] / SPEED;
+                if (departure == 3 * 3600 && free != seconds[q] && Math.abs(free - seconds[q]) > 1e-6 * Math.max(1.0, free)) {
+                    freeFlowMismatches++;
+                }
+            }
+            System.out.println(String.format("  %s: FIFO violations %d%s", at, fifoViolations,
+                    departure == 3 * 3600 ? ", mismatches against static distance / speed " + freeFlowMismatches : ""));
+        }
+    }
+
+    // A profile whose first point is not at midnight ({06:00 x1.0, 18:00 x3.0}, so 00:00 lies on
+    // the segment that wraps from 18:00 to the next 06:00) on the longest edge: factors at the
+    // segment ends and around midnight, and arrivals swept second by second over two days must
+    // never get earlier
+    private static void checkShiftedProfile(CsrGraph graph) {
+        int longest = 0;
+        for (int e = 1; e < graph.edgeCount(); e++) {
+            if (graph.weight(e) > graph.weight(longest)) {
+                longest = e;
+            }
+        }
+        TravelTimeProfiles.Builder builder = TravelTimeProfiles.builder(graph, SPEED);
+        builder.assign(longest, builder.addProfile(hours(6, 18), new double[] {1.0, 3.0}));
+        TravelTimeProfiles shifted = builder.build();
+        double base = shifted.freeFlowTime(longest);
+        StringBuilder factors = new StringBuilder();
+        for (double time : new double[] {hours(18)[0], hours(24)[0] - 1, 0, hours(6)[0] - 1, hours(6)[0]}) {
+            factors.append(String.format(" %05.0f s x%.3f", time, shifted.travelTime(longest, time) / base));
+        }
+        int violations = 0;
+        double previousArrival = Double.NEGATIVE_INFINITY;
+        for (int t = 0; t <= 2 * TravelTimeProfiles.DAY_SECONDS; t++) {
+            double arrival = t + shifted.travelTime(longest, t);
+            if (arrival < previousArrival - 1e-9) {
+                violations++;
+            }
+            previousArrival = arrival;
+        }
+        System.out.println("Shifted profile on a " + String.format("%.0f", graph.weight(longest)) + " m edge:"
+                + factors + "; FIFO violations over 48 h " + violations);
+    }
+
+    private static double[] hours(double... hours) {
+        double[] seconds = new double[hours.length];
+        for (int i = 0; i < hours.length; i++) {
+            seconds[i] = hours[i] * 3600;
+        }
+        return seconds;
+    }
+
+    // Runs every query twice (the second pass is reported), writing meters
+    private static void runStatic(String label, AStarEngine engine, int[] sources, int[] targets, double[] out,
+                                  SearchWorkspace workspace) {
+        long settled = 0;
+        long start = 0;
+        for (int round = 0; round < 2; round++) {
+            settled = 0;
+            start = System.nanoTime();
+            for (int q = 0; q < sources.length; q++) {
+                PathResult result = engine.findShortestPath(sources[q], targets[q], workspace);
+                settled += result.getSettledNodes();
+                out[q] = result.getTotalDistance();
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        System.out.println(String.format("%-30s %12.3f %12.1f %11s", label, millis / sources.length,
+                (double) settled / sources.length, "-"));
+    }
+
+    // Like runStatic, in seconds; mismatches are counted against `expected` when given
+    private static double[] runTimeDependent(String label, TimeDependentEngine engine, double departure, int[] sources,
+                                             int[] targets, double[] expected, double[] out, SearchWorkspace workspace) {
+        long settled = 0;
+        long start = 0;
+        for (int round = 0; round < 2; round++) {
+            settled = 0;
+            start = System.nanoTime();
+            for (int q = 0; q < sources.length; q++) {
+                PathResult result = engine.earliestArrival(sources[q], targets[q], departure, workspace);
+                settled += result.getSettledNodes();
+                out[q] = result.getTotalDistance();
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        int mismatches = 0;
+        if (expected != null) {
+            for (int q = 0; q < sources.length; q++) {
+                if (out[q] != expected[q] && Math.abs(out[q] - expected[q]) > 1e-6 * Math.max(1.0, expected[q])) {
+                    mismatches++;
+                }
+            }
+        }
+        System.out.println(String.format("%-30s %12.3f %12.1f %11s", label, millis / sources.length,
+                (double) settled / sources.length, expected == null ? "-" : String.valueOf(mismatches)));
+        return out;
+    }
+}
@@ -0,0 +1,121 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and latency histogram of one engine, shared by all threads querying it.
+// Engines call begin/end only behind RoutingMetrics.ENABLED (see RoutingMetrics).
+public final class EngineMetrics implements EngineMetricsMXBean {
+
+    private final String engine;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder unreachable = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder settled = new LongAdder();
+    private final LongAdder relaxed = new LongAdder();
+    private final LongAdder inserts = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+    private final LongAdder polls = new LongAdder();
+
+    EngineMetrics(String engine) {
+        this.engine = engine;
+    }
+
+    public String engine() {
+        return engine;
+    }
+
+    // Starts timing a query; the JFR event is only committed if a recording has it enabled
+    public QueryEvent begin(int source, int target) {
+        QueryEvent event = new QueryEvent();
+        event.engine = engine;
+        event.source = source;
+        event.target = target;
+        event.begin();
+        event.startNanos = System.nanoTime();
+        return event;
+    }
+
+    public QueryStats end(QueryEvent event, int settledNodes, long relaxedEdges, long heapInserts,
+                          long heapDecreases, long heapPolls, boolean reachable, double distance) {
+        long nanos = System.nanoTime() - event.startNanos;
+        event.end();
+        if (event.shouldCommit()) {
+            event.settledNodes = settledNodes;
+            event.relaxedEdges = relaxedEdges;
+            event.heapOperations = heapInserts + heapDecreases + heapPolls;
+            event.reachable = reachable;
+            event.distance = distance;
+            event.commit();
+        }
+        latency.record(nanos);
+        queries.increment();
+        if (!reachable) {
+            unreachable.increment();
+        }
+        totalNanos.add(nanos);
+        settled.add(settledNodes);
+        relaxed.add(relaxedEdges);
+        inserts.add(heapInserts);
+        decreases.add(heapDecreases);
+        polls.add(heapPolls);
+        return new QueryStats(engine, event.source, event.target, nanos, settledNodes, relaxedEdges,
+                heapInserts, heapDecreases, heapPolls, reachable, distance);
+    }
+
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    @Override public long getQueries() { return queries.sum(); }
+    @Override public long getUnreachableQueries() { return unreachable.sum(); }
+    @Override public double getP50LatencyMicros() { return latency.valueAtQuantile(0.50) / 1e3; }
+    @Override public double getP90LatencyMicros() { return latency.valueAtQuantile(0.90) / 1e3; }
+    @Override public double getP99LatencyMicros() { return latency.valueAtQuantile(0.99) / 1e3; }
+    @Override public double getP999LatencyMicros() { return latency.valueAtQuantile(0.999) / 1e3; }
+    @Override public double getMaxLatencyMicros() { return latency.max() / 1e3; }
+    @Override public long getSettledNodes() { return settled.sum(); }
+    @Override public long getRelaxedEdges() { return relaxed.sum(); }
+    @Override public long getHeapInserts() { return inserts.sum(); }
+    @Override public long getHeapDecreases() { return decreases.sum(); }
+    @Override public long getHeapPolls() { return polls.sum(); }
+
+    @Override
+    public double getMeanLatencyMicros() {
+        long n = queries.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e3 / n;
+    }
+
+    @Override
+    public double getMeanSettledNodes() {
+        long n = queries.sum();
+        return n == 0 ? 0 : settled.sum() / (double) n;
+    }
+
+    @Override
+    public double getMeanRelaxedEdges() {
+        long n = queries.sum();
+        return n == 0 ? 0 : relaxed.sum() / (double) n;
+    }
+
+    // Not atomic with respect to queries finishing at the same time
+    @Override
+    public void reset() {
+        latency.reset();
+        queries.reset();
+        unreachable.reset();
+        totalNanos.reset();
+        settled.reset();
+        relaxed.reset();
+        inserts.reset();
+        decreases.reset();
+        polls.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-14s %9d queries  mean %8.1f us  p50 %8.1f  p99 %8.1f  max %8.1f us  %10.1f settled/query",
+                engine, getQueries(), getMeanLatencyMicros(), getP50LatencyMicros(), getP99LatencyMicros(),
+                getMaxLatencyMicros(), getMeanSettledNodes());
+    }
+}
@@ -0,0 +1,38 @@
+package metrics;
+
+// Aggregates of one engine's queries since start or the last reset(), registered in the platform
+// MBean server as spf:type=Engine,name=<engine>. Latencies are wall-clock per query.
+public interface EngineMetricsMXBean {
+
+    long getQueries();
+
+    long getUnreachableQueries();
+
+    double getMeanLatencyMicros();
+
+    double getP50LatencyMicros();
+
+    double getP90LatencyMicros();
+
+    double getP99LatencyMicros();
+
+    double getP999LatencyMicros();
+
+    double getMaxLatencyMicros();
+
+    long getSettledNodes();
+
+    long getRelaxedEdges();
+
+    long getHeapInserts();
+
+    long getHeapDecreases();
+
+    long getHeapPolls();
+
+    double getMeanSettledNodes();
+
+    double getMeanRelaxedEdges();
+
+    void reset();
+}
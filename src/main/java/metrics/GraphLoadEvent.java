@@ -0,0 +1,28 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR duration event for one phase of getting a graph ready: parsing, CSR build, mapping, indexing
+@Name("spf.GraphLoad")
+@Label("Graph Load Phase")
+@Category("Shortest Path Finder")
+@Description("One phase of loading or preparing a graph")
+public final class GraphLoadEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Nodes")
+    int nodes;
+
+    @Label("Edges")
+    int edges;
+
+    transient long startNanos;
+
+    GraphLoadEvent() {}
+}
@@ -0,0 +1,12 @@
+package metrics;
+
+import java.util.Map;
+
+// Graph preparation phases, registered as spf:type=GraphLoad
+public interface GraphLoadMetricsMXBean {
+
+    long getPhaseRuns();
+
+    // Duration of the most recent run of each phase
+    Map<String, Double> getLastPhaseMillis();
+}
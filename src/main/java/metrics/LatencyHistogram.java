@@ -0,0 +1,89 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// HDR-style histogram of non-negative long values (nanoseconds here) with a fixed relative error.
+// Values below 2 * SUB_BUCKETS are counted exactly; above that every power-of-two range is split
+// into SUB_BUCKETS linear sub-buckets, so any recorded value is reported within 1/SUB_BUCKETS
+// (about 1.6 %) of itself. Counts live in one AtomicLongArray: record() is a single lock-free
+// increment from any thread and memory is fixed (about 19 KB up to MAX_VALUE, 2.4 hours in ns).
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // per power of two
+    private static final int EXACT = 2 * SUB_BUCKETS; // values below this have their own slot
+    public static final long MAX_VALUE = (1L << 43) - 1; // larger values are clamped
+
+    private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, Math.min(value, MAX_VALUE))));
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // Highest value equivalent to the one at quantile q in [0, 1], 0 when empty. Concurrent
+    // records may or may not be included, but the result is always a recorded bucket.
+    public long valueAtQuantile(double q) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, q)) * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return highestEquivalent(i);
+            }
+        }
+        return highestEquivalent(snapshot.length - 1);
+    }
+
+    public long max() {
+        for (int i = counts.length() - 1; i >= 0; i--) {
+            if (counts.get(i) > 0) {
+                return highestEquivalent(i);
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    // Slot of a value: its power-of-two range above EXACT, then the top SUB_BUCKET_BITS + 1 bits
+    static int indexOf(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long lowestEquivalent(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    static long highestEquivalent(int index) {
+        return index < EXACT ? index : lowestEquivalent(index + 1) - 1;
+    }
+}
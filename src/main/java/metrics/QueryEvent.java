@@ -0,0 +1,43 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR duration event spanning one query, from EngineMetrics.begin to end
+@Name("spf.Query")
+@Label("Shortest Path Query")
+@Category("Shortest Path Finder")
+@Description("One point-to-point query with its search effort")
+public final class QueryEvent extends Event {
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Source")
+    int source;
+
+    @Label("Target")
+    int target;
+
+    @Label("Settled Nodes")
+    int settledNodes;
+
+    @Label("Relaxed Edges")
+    long relaxedEdges;
+
+    @Label("Heap Operations")
+    long heapOperations;
+
+    @Label("Reachable")
+    boolean reachable;
+
+    @Label("Distance")
+    double distance;
+
+    transient long startNanos; // for the histogram, which does not depend on a recording
+
+    QueryEvent() {}
+}
@@ -0,0 +1,18 @@
+package metrics;
+
+// What one shortest-path query did. Heap operations are counted by the engine's heaps: an insert
+// for every first visit of a node, a decrease for every later improvement, a poll per settled node.
+public record QueryStats(String engine, int source, int target, long nanos, int settledNodes, long relaxedEdges,
+                         long heapInserts, long heapDecreases, long heapPolls, boolean reachable, double distance) {
+
+    public long heapOperations() {
+        return heapInserts + heapDecreases + heapPolls;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %d -> %d: %.1f us, %d settled, %d edges relaxed, %d heap ops%s",
+                engine, source, target, nanos / 1e3, settledNodes, relaxedEdges, heapOperations(),
+                reachable ? String.format(", %.1f m", distance) : ", unreachable");
+    }
+}
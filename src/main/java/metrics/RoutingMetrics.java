@@ -0,0 +1,102 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Entry point of the instrumentation. Off unless the JVM is started with -Dspf.metrics=true.
+// ENABLED is a static final constant, so every `if (RoutingMetrics.ENABLED)` in the engines is
+// folded away by the JIT when it is false: no timing, no counting, no events, no allocation.
+// When on, each engine gets an EngineMetrics (latency histogram and effort counters) and the
+// graph load phases are timed; all of it is visible over JMX under the "spf" domain and as JFR
+// events (spf.Query, spf.GraphLoad) in any recording that enables them.
+public final class RoutingMetrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("spf.metrics");
+
+    private static final String DOMAIN = "spf";
+    private static final Map<String, EngineMetrics> ENGINES = new ConcurrentHashMap<>();
+    private static final GraphLoads GRAPH_LOADS = new GraphLoads();
+
+    static {
+        if (ENABLED) {
+            register(GRAPH_LOADS, DOMAIN + ":type=GraphLoad");
+        }
+    }
+
+    private RoutingMetrics() {}
+
+    // One instance per engine name, created and registered with JMX on first use
+    public static EngineMetrics engine(String name) {
+        return ENGINES.computeIfAbsent(name, key -> {
+            EngineMetrics metrics = new EngineMetrics(key);
+            if (ENABLED) {
+                register(metrics, DOMAIN + ":type=Engine,name=" + ObjectName.quote(key));
+            }
+            return metrics;
+        });
+    }
+
+    public static Collection<EngineMetrics> engines() {
+        return Collections.unmodifiableCollection(new TreeMap<>(ENGINES).values());
+    }
+
+    public static GraphLoadEvent beginLoadPhase(String phase) {
+        GraphLoadEvent event = new GraphLoadEvent();
+        event.phase = phase;
+        event.begin();
+        event.startNanos = System.nanoTime();
+        return event;
+    }
+
+    public static void endLoadPhase(GraphLoadEvent event, int nodes, int edges) {
+        long nanos = System.nanoTime() - event.startNanos;
+        event.end();
+        if (event.shouldCommit()) {
+            event.nodes = nodes;
+            event.edges = edges;
+            event.commit();
+        }
+        GRAPH_LOADS.record(event.phase, nanos);
+    }
+
+    public static Map<String, Double> lastLoadPhaseMillis() {
+        return GRAPH_LOADS.getLastPhaseMillis();
+    }
+
+    private static void register(Object bean, String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, new ObjectName(name));
+        } catch (JMException e) { // e.g. registered twice in one JVM by another class loader
+            System.err.println("Could not register " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static final class GraphLoads implements GraphLoadMetricsMXBean {
+        private final AtomicLong runs = new AtomicLong();
+        private final Map<String, Long> lastNanos = new ConcurrentHashMap<>();
+
+        void record(String phase, long nanos) {
+            runs.incrementAndGet();
+            lastNanos.put(phase, nanos);
+        }
+
+        @Override
+        public long getPhaseRuns() {
+            return runs.get();
+        }
+
+        @Override
+        public Map<String, Double> getLastPhaseMillis() {
+            Map<String, Double> millis = new TreeMap<>();
+            lastNanos.forEach((phase, nanos) -> millis.put(phase, nanos / 1e6));
+            return millis;
+        }
+    }
+}
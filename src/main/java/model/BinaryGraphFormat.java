@@ -0,0 +1,167 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// Versioned binary graph file, laid out so it can be memory-mapped and read in place.
+//
+// Header (32 bytes, little endian):
+//   int magic "SPFG", int version, int nodeCount, int edgeCount,
+//   int nameBytes, int hashSlots, long CRC32 of everything after the header
+// Sections, each starting on an 8-byte boundary:
+//   double latitude[n], longitude[n], screenX[n], screenY[n]
+//   int offsets[n + 1], int targets[m], double weights[m]          (outgoing CSR)
+//   int offsets[n + 1], int targets[m], double weights[m]          (incoming CSR)
+//   int nameOffsets[n + 1], byte names[nameBytes]                  (UTF-8 string table)
+//   int nameHash[hashSlots]                                        (open addressing, id + 1, 0 = empty)
+//
+// A single mapping is limited to 2 GB by MappedByteBuffer, which covers tens of millions of edges.
+public final class BinaryGraphFormat {
+
+    static final int MAGIC = 0x47465053; // "SPFG" read as little endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private BinaryGraphFormat() {}
+
+    // Section positions derived from the header counts
+    static final class Layout {
+        final int nodeCount, edgeCount, nameBytes, hashSlots;
+        final long coords, forward, backward, nameOffsets, names, nameHash, end;
+
+        Layout(int nodeCount, int edgeCount, int nameBytes, int hashSlots) {
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+            this.nameBytes = nameBytes;
+            this.hashSlots = hashSlots;
+            coords = HEADER_BYTES;
+            forward = align(coords + 4L * 8 * nodeCount);
+            backward = forward + csrBytes(nodeCount, edgeCount);
+            nameOffsets = backward + csrBytes(nodeCount, edgeCount);
+            names = nameOffsets + 4L * (nodeCount + 1);
+            nameHash = align(names + nameBytes);
+            end = align(nameHash + 4L * hashSlots);
+        }
+
+        // offsets and targets, padded, then weights
+        static long csrBytes(int n, int m) {
+            return align(4L * (n + 1) + 4L * m) + 8L * m;
+        }
+
+        static long weightsOf(long csr, int n, int m) {
+            return csr + align(4L * (n + 1) + 4L * m);
+        }
+    }
+
+    static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    static int hashSlotsFor(int nodeCount) {
+        return Integer.highestOneBit(Math.max(1, nodeCount) * 2 - 1) << 1;
+    }
+
+    static int nameHash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    public static void write(IndexedGraph graph, Path file) throws IOException {
+        Layout layout = layoutOf(graph);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.end);
+            encode(graph, layout, out);
+            out.force();
+        }
+    }
+
+    // Encodes the graph into a new direct (off-heap) buffer in the same layout as the file
+    static ByteBuffer encodeDirect(IndexedGraph graph) throws IOException {
+        Layout layout = layoutOf(graph);
+        ByteBuffer out = ByteBuffer.allocateDirect((int) layout.end);
+        encode(graph, layout, out);
+        return out;
+    }
+
+    static Layout layoutOf(IndexedGraph graph) throws IOException {
+        int nameBytes = 0;
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            nameBytes += graph.node(i).getName().getBytes(StandardCharsets.UTF_8).length;
+        }
+        Layout layout = new Layout(graph.nodeCount(), graph.edgeCount(), nameBytes, hashSlotsFor(graph.nodeCount()));
+        if (layout.end > Integer.MAX_VALUE) {
+            throw new IOException("Graph too large for a single buffer: " + layout.end + " bytes");
+        }
+        return layout;
+    }
+
+    // `out` must be zero-filled and layout.end bytes long
+    private static void encode(IndexedGraph graph, Layout layout, ByteBuffer out) {
+        int n = layout.nodeCount;
+        out.order(ORDER);
+        out.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, n).putInt(12, layout.edgeCount)
+           .putInt(16, layout.nameBytes).putInt(20, layout.hashSlots);
+
+        for (int i = 0; i < n; i++) {
+            Node node = graph.node(i);
+            out.putDouble((int) layout.coords + 8 * i, node.getLatitude());
+            out.putDouble((int) (layout.coords + 8L * n) + 8 * i, node.getLongitude());
+            out.putDouble((int) (layout.coords + 16L * n) + 8 * i, node.getScreenX());
+            out.putDouble((int) (layout.coords + 24L * n) + 8 * i, node.getScreenY());
+        }
+        writeCsr(out, graph, (int) layout.forward);
+        writeCsr(out, graph.reverse(), (int) layout.backward);
+
+        int cursor = 0;
+        for (int i = 0; i < n; i++) {
+            byte[] name = graph.node(i).getName().getBytes(StandardCharsets.UTF_8);
+            out.putInt((int) layout.nameOffsets + 4 * i, cursor);
+            out.put((int) layout.names + cursor, name);
+            cursor += name.length;
+        }
+        out.putInt((int) layout.nameOffsets + 4 * n, cursor);
+
+        int mask = layout.hashSlots - 1;
+        for (int i = 0; i < n; i++) {
+            int slot = nameHash(graph.node(i).getName()) & mask;
+            while (out.getInt((int) layout.nameHash + 4 * slot) != 0) {
+                slot = (slot + 1) & mask;
+            }
+            out.putInt((int) layout.nameHash + 4 * slot, i + 1);
+        }
+
+        out.putLong(24, checksum(out, layout));
+    }
+
+    private static void writeCsr(ByteBuffer out, IndexedGraph g, int base) {
+        int n = g.nodeCount();
+        int m = g.edgeCount();
+        int targets = base + 4 * (n + 1);
+        int weights = (int) Layout.weightsOf(base, n, m);
+        for (int u = 0; u < n; u++) {
+            out.putInt(base + 4 * u, g.firstEdge(u));
+            for (int e = g.firstEdge(u), end = g.endEdge(u); e < end; e++) {
+                out.putInt(targets + 4 * e, g.target(e));
+                out.putDouble(weights + 8 * e, g.weight(e));
+            }
+        }
+        out.putInt(base + 4 * n, m);
+    }
+
+    static long checksum(ByteBuffer buffer, Layout layout) {
+        CRC32 crc = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(HEADER_BYTES).limit((int) layout.end);
+        crc.update(payload);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,170 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Frozen compressed-sparse-row (CSR) graph.
+// The outgoing edges of node u occupy the index range [offsets[u], offsets[u + 1]) of the
+// parallel targets/weights arrays, so a whole city road network is a handful of primitive
+// arrays instead of one HashMap entry, ArrayList and Edge object per connection.
+//
+// Memory: O(V + E) primitives. Built once through CsrGraph.Builder and never modified.
+public final class CsrGraph implements IndexedGraph {
+
+    private final Node[] nodes;
+    private final NameTable idsByName;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+
+    private volatile CsrGraph reverse; // built lazily, only backward searches need it
+
+    private CsrGraph(Node[] nodes, NameTable idsByName,
+                     int[] offsets, int[] targets, double[] weights) {
+        this.nodes = nodes;
+        this.idsByName = idsByName;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.latitudes = new double[nodes.length];
+        this.longitudes = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            latitudes[i] = nodes[i].getLatitude();
+            longitudes[i] = nodes[i].getLongitude();
+        }
+    }
+
+    @Override public int nodeCount() { return nodes.length; }
+    @Override public int edgeCount() { return targets.length; }
+    @Override public int firstEdge(int node) { return offsets[node]; }
+    @Override public int endEdge(int node) { return offsets[node + 1]; }
+    @Override public int target(int edge) { return targets[edge]; }
+    @Override public double weight(int edge) { return weights[edge]; }
+    @Override public double latitude(int node) { return latitudes[node]; }
+    @Override public double longitude(int node) { return longitudes[node]; }
+    @Override public Node node(int id) { return nodes[id]; }
+
+    @Override
+    public int idOf(String name) {
+        return idsByName.idOf(name);
+    }
+
+    @Override
+    public CsrGraph reverse() {
+        CsrGraph r = reverse;
+        if (r == null) {
+            r = transpose();
+            r.reverse = this;
+            reverse = r;
+        }
+        return r;
+    }
+
+    // Counting sort of all edges by their target: O(V + E)
+    private CsrGraph transpose() {
+        int n = nodes.length;
+        int m = targets.length;
+        int[] revOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            revOffsets[targets[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            revOffsets[i + 1] += revOffsets[i];
+        }
+        int[] cursor = Arrays.copyOf(revOffsets, n);
+        int[] revTargets = new int[m];
+        double[] revWeights = new double[m];
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int slot = cursor[targets[e]]++;
+                revTargets[slot] = u;
+                revWeights[slot] = weights[e];
+            }
+        }
+        return new CsrGraph(nodes, idsByName, revOffsets, revTargets, revWeights);
+    }
+
+    // Collects nodes and edges in any order and freezes them into CSR arrays.
+    public static final class Builder {
+        private final List<Node> nodes;
+        private final NameTable idsByName;
+        private int[] sources;
+        private int[] targets;
+        private double[] weights;
+        private int edgeCount;
+
+        public Builder() {
+            this(16, 16);
+        }
+
+        // Pre-sized for the expected counts so loading a large graph does not keep regrowing
+        public Builder(int expectedNodes, int expectedEdges) {
+            int edgeCapacity = Math.max(16, expectedEdges);
+            nodes = new ArrayList<>(Math.max(16, expectedNodes));
+            idsByName = new NameTable(expectedNodes);
+            sources = new int[edgeCapacity];
+            targets = new int[edgeCapacity];
+            weights = new double[edgeCapacity];
+        }
+
+        // Returns the new node id, or -1 if a node with the same name was already added
+        public int addNode(Node node) {
+            int id = idsByName.add(node.getName());
+            if (id >= 0) {
+                nodes.add(node);
+            }
+            return id;
+        }
+
+        public int idOf(String name) {
+            return idsByName.idOf(name);
+        }
+
+        // Lookup straight from a parser buffer, without building a String
+        int idOf(char[] chars, int offset, int length) {
+            return idsByName.idOf(chars, offset, length);
+        }
+
+        public Node node(int id) { return nodes.get(id); }
+        public int nodeCount() { return nodes.size(); }
+        public int edgeCount() { return edgeCount; }
+
+        public void addEdge(int source, int target, double weight) {
+            if (edgeCount == sources.length) {
+                int capacity = edgeCount * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+            sources[edgeCount] = source;
+            targets[edgeCount] = target;
+            weights[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        // Stable counting sort by source node, so each node keeps its edges in insertion order.
+        // The name table is handed over to the graph: do not add to the builder afterwards.
+        public CsrGraph build() {
+            int n = nodes.size();
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < edgeCount; e++) {
+                offsets[sources[e] + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] cursor = Arrays.copyOf(offsets, n);
+            int[] csrTargets = new int[edgeCount];
+            double[] csrWeights = new double[edgeCount];
+            for (int e = 0; e < edgeCount; e++) {
+                int slot = cursor[sources[e]]++;
+                csrTargets[slot] = targets[e];
+                csrWeights[slot] = weights[e];
+            }
+            return new CsrGraph(nodes.toArray(new Node[0]), idsByName, offsets, csrTargets, csrWeights);
+        }
+    }
+}
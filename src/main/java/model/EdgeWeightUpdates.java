@@ -0,0 +1,99 @@
+package model;
+
+import java.util.Arrays;
+
+// A batch of live edge changes (new travel weights, closures, re-openings), applied atomically
+// by Graph.applyUpdates. Edges are addressed by their endpoint ids; every parallel edge from
+// `from` to `to` is changed. A closure sets the weight to +Infinity, which no engine will relax,
+// and a re-opening restores the weight of the originally loaded graph.
+public final class EdgeWeightUpdates {
+
+    private static final double REOPEN = Double.NaN;
+
+    private int size;
+    private int[] from = new int[8];
+    private int[] to = new int[8];
+    private double[] weights = new double[8];
+
+    // What a batch changed: the snapshots before and after, and the edges whose weight differs
+    public record Applied(IndexedGraph previous, IndexedGraph current, long version,
+                          int[] changedEdges, int[] changedEdgeSources) {}
+
+    public EdgeWeightUpdates set(int from, int to, double weight) {
+        if (!(weight >= 0)) {
+            throw new IllegalArgumentException("Edge weight must be >= 0, got " + weight);
+        }
+        return add(from, to, weight);
+    }
+
+    public EdgeWeightUpdates close(int from, int to) {
+        return add(from, to, Double.POSITIVE_INFINITY);
+    }
+
+    public EdgeWeightUpdates reopen(int from, int to) {
+        return add(from, to, REOPEN);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private EdgeWeightUpdates add(int from, int to, double weight) {
+        if (size == this.from.length) {
+            this.from = Arrays.copyOf(this.from, size * 2);
+            this.to = Arrays.copyOf(this.to, size * 2);
+            this.weights = Arrays.copyOf(this.weights, size * 2);
+        }
+        this.from[size] = from;
+        this.to[size] = to;
+        this.weights[size++] = weight;
+        return this;
+    }
+
+    // Applies the batch, in order, to an unpublished snapshot of previous
+    Applied applyTo(IndexedGraph previous, ReweightedGraph next, long version) {
+        int[] edges = new int[size];
+        int[] sources = new int[size];
+        int touched = 0;
+        for (int i = 0; i < size; i++) {
+            int u = from[i];
+            if (u < 0 || u >= next.nodeCount() || to[i] < 0 || to[i] >= next.nodeCount()) {
+                throw new IllegalArgumentException("Node id out of range in update " + u + " -> " + to[i]);
+            }
+            boolean found = false;
+            for (int e = next.firstEdge(u), end = next.endEdge(u); e < end; e++) {
+                if (next.target(e) != to[i]) {
+                    continue;
+                }
+                found = true;
+                next.setWeight(e, Double.isNaN(weights[i]) ? next.baseWeight(e) : weights[i]);
+                if (touched == edges.length) {
+                    edges = Arrays.copyOf(edges, touched * 2);
+                    sources = Arrays.copyOf(sources, touched * 2);
+                }
+                edges[touched] = e;
+                sources[touched++] = u;
+            }
+            if (!found) {
+                throw new IllegalArgumentException("No edge from node " + u + " to node " + to[i]);
+            }
+        }
+
+        // keep each edge once, and only if its final weight differs from the previous snapshot
+        long[] packed = new long[touched];
+        for (int i = 0; i < touched; i++) {
+            packed[i] = ((long) edges[i] << 32) | (sources[i] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(packed);
+        int changed = 0;
+        for (int i = 0; i < touched; i++) {
+            int e = (int) (packed[i] >>> 32);
+            if ((i > 0 && packed[i] == packed[i - 1]) || Double.compare(previous.weight(e), next.weight(e)) == 0) {
+                continue;
+            }
+            edges[changed] = e;
+            sources[changed++] = (int) packed[i];
+        }
+        return new Applied(previous, next, version, Arrays.copyOf(edges, changed), Arrays.copyOf(sources, changed));
+    }
+}
@@ -0,0 +1,20 @@
+package model;
+
+// Great-circle helpers for Node latitude/longitude (degrees)
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8; // mean radius
+
+    private GeoUtils() {}
+
+    // Haversine distance in meters
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dPhi = phi2 - phi1;
+        double dLambda = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dPhi / 2) * Math.sin(dPhi / 2)
+                 + Math.cos(phi1) * Math.cos(phi2) * Math.sin(dLambda / 2) * Math.sin(dLambda / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -1,102 +1,188 @@
 package model;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import metrics.GraphLoadEvent;
+import metrics.RoutingMetrics;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+// Object-level facade over a frozen IndexedGraph (CSR arrays, a memory-mapped binary file or off-heap storage).
+// getNodes()/getEdgesFromNode() are thin views that materialise Node/Edge objects on demand,
+// while the routing engines read the primitive arrays through getIndexedGraph().
+//
+// Thread safety: the IndexedGraph snapshot is immutable and published through a volatile field.
+// Loading builds a complete new snapshot and swaps it in, it never clears the one in use, so
+// any number of threads can query while another thread reloads. A query should read
+// getIndexedGraph() once and use that snapshot throughout.
+// Every swap bumps getVersion(), which caches use to drop results computed on an older snapshot.
 public class Graph {
-    private final Map<String, Node> nodesByName = new HashMap<>();
-    private final Map<Node, List<Edge>> adjacencyList = new HashMap<>();
+    private volatile IndexedGraph indexed = new CsrGraph.Builder().build();
+    private volatile long version;
+    private volatile SpatialIndex spatialIndex; // of the geometry it was built on, see getSpatialIndex()
+
 
-    
     // nodesResourcePath Path to nodes JSON file within resources (/data/nodes.json)
     // edgesResourcePath Path to edges JSON file within resources (/data/edges.json)
     // IOException If files cannot be read or parsed
 
     public void loadFromJSONResources(String nodesResourcePath, String edgesResourcePath) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-
-        // Load Nodes
         InputStream nodesStream = getClass().getResourceAsStream(nodesResourcePath);
         if (nodesStream == null) {
             throw new IOException("Cannot find nodes resource file: " + nodesResourcePath);
         }
-        List<Node> nodes = mapper.readValue(nodesStream, new TypeReference<List<Node>>() {});
-        nodesStream.close();
-
-        // Store nodes and initialize adjacency list entries
-        nodesByName.clear();
-        adjacencyList.clear();
-        for (Node node : nodes) {
-            if (nodesByName.containsKey(node.getName())) {
-                 System.err.println("Warning: Duplicate node name found '" + node.getName() + "'. Ignoring duplicate.");
-                 continue; 
-            }
-            nodesByName.put(node.getName(), node);
-            adjacencyList.put(node, new ArrayList<>()); // Initialize empty list for edges
-        }
-
-        // Load Edges 
-        TypeReference<List<Map<String, Object>>> typeRef = new TypeReference<>() {};
         InputStream edgesStream = getClass().getResourceAsStream(edgesResourcePath);
         if (edgesStream == null) {
-        throw new IOException("Cannot find edges resource file: " + edgesResourcePath);
+            nodesStream.close();
+            throw new IOException("Cannot find edges resource file: " + edgesResourcePath);
         }
-        List<Map<String, Object>> edgeDataList = mapper.readValue(edgesStream, typeRef);
-        edgesStream.close();
-        
-        int edgesLoaded = 0;
-        for (Map<String, Object> edgeData : edgeDataList) {
-            String nodeAName = (String) edgeData.get("nodeA");
-            String nodeBName = (String) edgeData.get("nodeB");
-            double distance = ((Number) edgeData.get("distance")).doubleValue();
-
-            Node nodeA = nodesByName.get(nodeAName);
-            Node nodeB = nodesByName.get(nodeBName);
-
-            if (nodeA == null) {
-                System.err.println("Warning: Edge references unknown node '" + nodeAName + "'. Skipping edge.");
-                continue;
-            }
-            if (nodeB == null) {
-                 System.err.println("Warning: Edge references unknown node '" + nodeBName + "'. Skipping edge.");
-                 continue;
-            }
+        try (nodesStream; edgesStream) {
+            loadFromJSONStreams(nodesStream, edgesStream);
+        }
+    }
+
+    // Same JSON layout as the bundled resources, read from the file system (optionally gzip-compressed)
+    public void loadFromJSONFiles(Path nodesFile, Path edgesFile) throws IOException {
+        apply(JsonGraphLoader.load(nodesFile, edgesFile));
+    }
+
+    // Memory-maps a file written by BinaryGraphFormat.write: no parsing, the graph is served in place
+    public void loadFromBinary(Path graphFile) throws IOException {
+        GraphLoadEvent phase = RoutingMetrics.ENABLED ? RoutingMetrics.beginLoadPhase("map-binary") : null;
+        publish(MappedGraph.open(graphFile));
+        if (RoutingMetrics.ENABLED) {
+            RoutingMetrics.endLoadPhase(phase, indexed.nodeCount(), indexed.edgeCount());
+        }
+        System.out.println("Mapped " + indexed.edgeCount() + " directed edges.");
+    }
+
+    // Installs an already built graph, e.g. from RoadNetworkGenerator
+    public void load(IndexedGraph graph) {
+        publish(graph);
+    }
+
+    // Publishes a new snapshot with the batch applied; queries already running keep the old one.
+    // Only the weights are copied, topology and names are shared with the loaded graph.
+    public synchronized EdgeWeightUpdates.Applied applyUpdates(EdgeWeightUpdates updates) {
+        GraphLoadEvent phase = RoutingMetrics.ENABLED ? RoutingMetrics.beginLoadPhase("apply-updates") : null;
+        IndexedGraph previous = indexed;
+        ReweightedGraph next = ReweightedGraph.nextVersionOf(previous);
+        EdgeWeightUpdates.Applied applied = updates.applyTo(previous, next, version + 1);
+        publish(next);
+        if (RoutingMetrics.ENABLED) {
+            RoutingMetrics.endLoadPhase(phase, next.nodeCount(), applied.changedEdges().length);
+        }
+        return applied;
+    }
 
-            // Create the edge and add it to the adjacency list for the source node
-            Edge edge = new Edge(nodeA, nodeB, distance);
-            adjacencyList.get(nodeA).add(edge);
-            edgesLoaded++;
+    // Moves the current graph out of the Java heap and returns the copy, which the caller owns:
+    // close it once a newer snapshot is published and the queries started on this one are done
+    // (a query still running on it then fails with IllegalStateException, it never reads freed
+    // memory). A copy that is never closed is freed once the last query has dropped it.
+    public OffHeapGraph moveOffHeap() throws IOException {
+        GraphLoadEvent phase = RoutingMetrics.ENABLED ? RoutingMetrics.beginLoadPhase("move-off-heap") : null;
+        OffHeapGraph offHeap = OffHeapGraph.copyOf(indexed);
+        publish(offHeap);
+        if (RoutingMetrics.ENABLED) {
+            RoutingMetrics.endLoadPhase(phase, offHeap.nodeCount(), offHeap.edgeCount());
         }
-         System.out.println("Loaded " + edgesLoaded + " directed edges.");
+        return offHeap;
+    }
+
+    private void loadFromJSONStreams(InputStream nodesStream, InputStream edgesStream) throws IOException {
+        apply(JsonGraphLoader.load(nodesStream, edgesStream));
+    }
+
+    private void apply(JsonGraphLoader.LoadResult result) {
+        publish(result.graph()); // already frozen into CSR arrays
+        if (result.report().problemCount() > 0) {
+            System.err.println(result.report());
+        } else {
+            System.out.println(result.report());
+        }
+    }
+
+    // The snapshot is written before the version, so a reader that sees version v also sees
+    // the graph of version v (or a newer one)
+    private synchronized void publish(IndexedGraph graph) {
+        indexed = graph;
+        version++;
+    }
+
+    // Incremented on every load/swap of the snapshot
+    public long getVersion() {
+        return version;
+    }
+
+    // Coordinate lookups for the current snapshot. Built on first use after a load (O(n log n)),
+    // then shared by every snapshot with the same geometry, i.e. across weight updates.
+    public SpatialIndex getSpatialIndex() {
+        IndexedGraph g = indexed;
+        IndexedGraph geometry = g instanceof ReweightedGraph reweighted ? reweighted.base() : g;
+        SpatialIndex index = spatialIndex;
+        if (index == null || index.graph() != geometry) {
+            GraphLoadEvent phase = RoutingMetrics.ENABLED ? RoutingMetrics.beginLoadPhase("spatial-index") : null;
+            index = SpatialIndex.build(geometry);
+            spatialIndex = index;
+            if (RoutingMetrics.ENABLED) {
+                RoutingMetrics.endLoadPhase(phase, geometry.nodeCount(), geometry.edgeCount());
+            }
+        }
+        return index;
+    }
+
+    // Primitive view used by the routing engines
+    public IndexedGraph getIndexedGraph() {
+        return indexed;
     }
 
     // Getters
     public Collection<Node> getNodes() {
-        return nodesByName.values();
+        IndexedGraph g = indexed;
+        return new AbstractList<>() {
+            @Override public Node get(int index) { return g.node(index); }
+            @Override public int size() { return g.nodeCount(); }
+        };
     }
 
     public Collection<Edge> getEdges() {
-        List<Edge> allEdges = new ArrayList<>();
-        for (List<Edge> edges : adjacencyList.values()) {
-            allEdges.addAll(edges);
+        IndexedGraph g = indexed;
+        List<Edge> allEdges = new ArrayList<>(g.edgeCount());
+        for (int u = 0; u < g.nodeCount(); u++) {
+            allEdges.addAll(edgesFrom(g, u));
         }
         return allEdges;
     }
 
     public List<Edge> getEdgesFromNode(Node node) {
-        return adjacencyList.getOrDefault(node, Collections.emptyList());
+        IndexedGraph g = indexed;
+        int id = node == null ? -1 : g.idOf(node.getName());
+        return id < 0 ? Collections.emptyList() : edgesFrom(g, id);
     }
 
      public Node getNodeByName(String name) {
-         return nodesByName.get(name);
+         IndexedGraph g = indexed;
+         int id = g.idOf(name);
+         return id < 0 ? null : g.node(id);
      }
-}
\ No newline at end of file
+
+    // Edge objects are created on access from the CSR arrays, nothing is stored per edge
+    private static List<Edge> edgesFrom(IndexedGraph g, int node) {
+        int first = g.firstEdge(node);
+        int count = g.endEdge(node) - first;
+        Node source = g.node(node);
+        return new AbstractList<>() {
+            @Override
+            public Edge get(int index) {
+                int e = first + index;
+                return new Edge(source, g.node(g.target(e)), g.weight(e));
+            }
+            @Override public int size() { return count; }
+        };
+    }
+}
@@ -0,0 +1,167 @@
+package model;
+
+import java.util.Arrays;
+
+// Renumbers the nodes of a graph so that nodes close together in the network are close together
+// in memory. A search reads the per-node and per-edge arrays of the nodes it settles; with ids
+// in load order (JSON order, or random for generated graphs) each neighbour is a cache miss,
+// while after reordering most of a node's neighbours sit on the same or adjacent cache lines.
+//
+// Orders are permutations newToOld (newToOld[newId] = oldId). Names stay attached to their
+// nodes, so idOf(name) keeps resolving the same junction; only raw ids change.
+public final class GraphReordering {
+
+    private static final int HILBERT_BITS = 15; // per axis, so a curve index fits in 30 bits
+
+    public enum Order { HILBERT, BFS }
+
+    private GraphReordering() {}
+
+    public static int[] order(IndexedGraph graph, Order order) {
+        return order == Order.HILBERT ? hilbertOrder(graph) : bfsOrder(graph);
+    }
+
+    // Along a Hilbert curve over the nodes' bounding box: needs coordinates, not edges
+    public static int[] hilbertOrder(IndexedGraph graph) {
+        int n = graph.nodeCount();
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY, maxLon = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v++) {
+            minLat = Math.min(minLat, graph.latitude(v));
+            maxLat = Math.max(maxLat, graph.latitude(v));
+            minLon = Math.min(minLon, graph.longitude(v));
+            maxLon = Math.max(maxLon, graph.longitude(v));
+        }
+        int side = 1 << HILBERT_BITS;
+        long[] keys = new long[n];
+        for (int v = 0; v < n; v++) {
+            int x = quantize(graph.longitude(v), minLon, maxLon, side);
+            int y = quantize(graph.latitude(v), minLat, maxLat, side);
+            keys[v] = ((long) hilbertIndex(x, y, side) << 32) | v;
+        }
+        Arrays.sort(keys);
+        int[] newToOld = new int[n];
+        for (int i = 0; i < n; i++) {
+            newToOld[i] = (int) keys[i];
+        }
+        return newToOld;
+    }
+
+    // Cuthill-McKee: breadth-first from a lowest-degree node of each component, neighbours in
+    // order of increasing degree. Works without coordinates; edges are treated as undirected.
+    public static int[] bfsOrder(IndexedGraph graph) {
+        int n = graph.nodeCount();
+        IndexedGraph reverse = graph.reverse();
+        int[] degree = new int[n];
+        for (int v = 0; v < n; v++) {
+            degree[v] = graph.endEdge(v) - graph.firstEdge(v) + reverse.endEdge(v) - reverse.firstEdge(v);
+        }
+        // start candidates by ascending degree (packed degree, id), so each component starts at its minimum
+        long[] byDegree = new long[n];
+        for (int v = 0; v < n; v++) {
+            byDegree[v] = ((long) degree[v] << 32) | v;
+        }
+        Arrays.sort(byDegree);
+
+        int[] newToOld = new int[n];
+        boolean[] placed = new boolean[n];
+        long[] neighbours = new long[16];
+        int head = 0, tail = 0;
+        for (long candidate : byDegree) {
+            int start = (int) candidate;
+            if (placed[start]) {
+                continue;
+            }
+            placed[start] = true;
+            newToOld[tail++] = start;
+            while (head < tail) {
+                int u = newToOld[head++];
+                int count = 0;
+                for (int pass = 0; pass < 2; pass++) {
+                    IndexedGraph g = pass == 0 ? graph : reverse;
+                    for (int e = g.firstEdge(u), end = g.endEdge(u); e < end; e++) {
+                        int w = g.target(e);
+                        if (!placed[w]) {
+                            placed[w] = true;
+                            if (count == neighbours.length) {
+                                neighbours = Arrays.copyOf(neighbours, count * 2);
+                            }
+                            neighbours[count++] = ((long) degree[w] << 32) | w;
+                        }
+                    }
+                }
+                Arrays.sort(neighbours, 0, count);
+                for (int i = 0; i < count; i++) {
+                    newToOld[tail++] = (int) neighbours[i];
+                }
+            }
+        }
+        return newToOld;
+    }
+
+    // Copy of graph with node newToOld[i] as node i; every node keeps its edges in their order
+    public static CsrGraph permute(IndexedGraph graph, int[] newToOld) {
+        int n = graph.nodeCount();
+        if (newToOld.length != n) {
+            throw new IllegalArgumentException("Permutation has " + newToOld.length + " entries for " + n + " nodes");
+        }
+        int[] oldToNew = new int[n];
+        Arrays.fill(oldToNew, -1);
+        for (int i = 0; i < n; i++) {
+            if (oldToNew[newToOld[i]] != -1) {
+                throw new IllegalArgumentException("Node " + newToOld[i] + " appears twice in the permutation");
+            }
+            oldToNew[newToOld[i]] = i;
+        }
+        CsrGraph.Builder builder = new CsrGraph.Builder(n, graph.edgeCount());
+        for (int i = 0; i < n; i++) {
+            builder.addNode(graph.node(newToOld[i]));
+        }
+        for (int i = 0; i < n; i++) {
+            int old = newToOld[i];
+            for (int e = graph.firstEdge(old), end = graph.endEdge(old); e < end; e++) {
+                builder.addEdge(i, oldToNew[graph.target(e)], graph.weight(e));
+            }
+        }
+        return builder.build();
+    }
+
+    public static CsrGraph reorder(IndexedGraph graph, Order order) {
+        return permute(graph, order(graph, order));
+    }
+
+    // Mean |source id - target id| over all edges: a cheap proxy for how scattered neighbours are
+    public static double averageEdgeSpan(IndexedGraph graph) {
+        long total = 0;
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                total += Math.abs(graph.target(e) - u);
+            }
+        }
+        return graph.edgeCount() == 0 ? 0 : (double) total / graph.edgeCount();
+    }
+
+    private static int quantize(double value, double lo, double hi, int side) {
+        return hi > lo ? (int) Math.min(side - 1, (value - lo) / (hi - lo) * side) : 0;
+    }
+
+    // Position of cell (x, y) along the Hilbert curve filling a side x side grid (side a power of two)
+    private static int hilbertIndex(int x, int y, int side) {
+        int d = 0;
+        for (int s = side / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += s * s * ((3 * rx) ^ ry);
+            if (ry == 0) { // rotate the quadrant so the curve stays continuous
+                if (rx == 1) {
+                    x = side - 1 - x;
+                    y = side - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+}
@@ -0,0 +1,35 @@
+package model;
+
+// Read-only, integer-indexed view of a directed graph used by the routing engines.
+// Nodes are numbered 0..nodeCount()-1 and the outgoing edges of node u are the edge ids
+// firstEdge(u) (inclusive) to endEdge(u) (exclusive), so a search can walk the adjacency
+// with plain int loops and never touch a Node, Edge or boxed Double on its hot path.
+//
+// Implementations are immutable once published and therefore safe to share between threads.
+public interface IndexedGraph {
+
+    int nodeCount();
+
+    int edgeCount();
+
+    int firstEdge(int node);
+
+    int endEdge(int node);
+
+    int target(int edge);
+
+    double weight(int edge);
+
+    double latitude(int node);
+
+    double longitude(int node);
+
+    // Model object for a node id (used when turning a search result back into a path)
+    Node node(int id);
+
+    // Node id for a node name, or -1 if the graph has no such node
+    int idOf(String name);
+
+    // Same nodes with every edge reversed (incoming adjacency), used by backward searches
+    IndexedGraph reverse();
+}
@@ -0,0 +1,256 @@
+package model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import metrics.GraphLoadEvent;
+import metrics.RoutingMetrics;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+// Streaming loader for the nodes/edges JSON arrays, built on Jackson's token API.
+// Edges go straight from the token stream into the CsrGraph.Builder's primitive buffers and
+// endpoint names are resolved from the parser's char buffer, so no Map per edge, no String per
+// endpoint and no intermediate List is ever built. Plain and gzip-compressed input is accepted.
+// Problems are collected into one LoadReport instead of one System.err line per bad record.
+public final class JsonGraphLoader {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final int MAX_SAMPLES = 10;
+
+    private JsonGraphLoader() {}
+
+    public record LoadResult(CsrGraph graph, LoadReport report) {}
+
+    public static final class LoadReport {
+        private int nodes;
+        private int edges;
+        private int duplicateNodes;
+        private int malformedNodes;
+        private int malformedEdges;
+        private int danglingEdges;
+        private long nanos;
+        private final List<String> samples = new ArrayList<>(); // first few problems, for the log
+
+        public int nodes() { return nodes; }
+        public int edges() { return edges; }
+        public int duplicateNodes() { return duplicateNodes; }
+        public int malformedNodes() { return malformedNodes; }
+        public int malformedEdges() { return malformedEdges; }
+        public int danglingEdges() { return danglingEdges; }
+        public List<String> samples() { return samples; }
+        public long nanos() { return nanos; }
+
+        public int problemCount() {
+            return duplicateNodes + malformedNodes + malformedEdges + danglingEdges;
+        }
+
+        public double edgesPerSecond() {
+            return nanos == 0 ? 0 : edges / (nanos / 1e9);
+        }
+
+        private void problem(String message) {
+            if (samples.size() < MAX_SAMPLES) {
+                samples.add(message);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Loaded %d nodes and %d directed edges in %.1f ms (%.0f edges/s)",
+                    nodes, edges, nanos / 1e6, edgesPerSecond()));
+            if (problemCount() > 0) {
+                sb.append(String.format("%nWarning: skipped %d duplicate nodes, %d malformed nodes, %d malformed edges, %d edges to unknown nodes",
+                        duplicateNodes, malformedNodes, malformedEdges, danglingEdges));
+                for (String sample : samples) {
+                    sb.append("\n  ").append(sample);
+                }
+                if (problemCount() > samples.size()) {
+                    sb.append("\n  ...");
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    public static LoadResult load(Path nodesFile, Path edgesFile) throws IOException {
+        try (InputStream nodes = Files.newInputStream(nodesFile);
+             InputStream edges = Files.newInputStream(edgesFile)) {
+            // about 60 bytes per edge record in the JSON layout
+            int expectedEdges = (int) Math.min(Integer.MAX_VALUE - 8, Files.size(edgesFile) / 60);
+            return load(nodes, edges, expectedEdges);
+        }
+    }
+
+    public static LoadResult load(InputStream nodes, InputStream edges) throws IOException {
+        return load(nodes, edges, 16);
+    }
+
+    private static LoadResult load(InputStream nodesStream, InputStream edgesStream, int expectedEdges) throws IOException {
+        long start = System.nanoTime();
+        LoadReport report = new LoadReport();
+
+        GraphLoadEvent phase = RoutingMetrics.ENABLED ? RoutingMetrics.beginLoadPhase("parse-nodes") : null;
+        List<Node> nodes = new ArrayList<>();
+        try (JsonParser parser = JSON.createParser(decompressed(nodesStream))) {
+            expectArray(parser, "nodes");
+            for (JsonToken token = nextElement(parser); token != JsonToken.END_ARRAY; token = nextElement(parser)) {
+                Node node = null;
+                if (token == JsonToken.START_OBJECT) {
+                    node = readNode(parser);
+                } else {
+                    parser.skipChildren(); // not an object: counted as malformed below
+                }
+                if (node == null) {
+                    report.malformedNodes++;
+                    report.problem("Malformed node at line " + parser.currentLocation().getLineNr());
+                } else {
+                    nodes.add(node);
+                }
+            }
+        }
+
+        if (RoutingMetrics.ENABLED) {
+            RoutingMetrics.endLoadPhase(phase, nodes.size(), 0);
+            phase = RoutingMetrics.beginLoadPhase("parse-edges");
+        }
+        CsrGraph.Builder builder = new CsrGraph.Builder(nodes.size(), expectedEdges);
+        for (Node node : nodes) {
+            if (builder.addNode(node) < 0) {
+                report.duplicateNodes++;
+                report.problem("Duplicate node name '" + node.getName() + "'");
+            }
+        }
+
+        try (JsonParser parser = JSON.createParser(decompressed(edgesStream))) {
+            expectArray(parser, "edges");
+            for (JsonToken token = nextElement(parser); token != JsonToken.END_ARRAY; token = nextElement(parser)) {
+                if (token == JsonToken.START_OBJECT) {
+                    readEdge(parser, builder, report);
+                } else {
+                    parser.skipChildren();
+                    report.malformedEdges++;
+                    report.problem("Malformed edge at line " + parser.currentLocation().getLineNr());
+                }
+            }
+        }
+
+        if (RoutingMetrics.ENABLED) {
+            RoutingMetrics.endLoadPhase(phase, nodes.size(), builder.edgeCount());
+            phase = RoutingMetrics.beginLoadPhase("build-csr");
+        }
+        CsrGraph graph = builder.build();
+        report.nodes = graph.nodeCount();
+        report.edges = graph.edgeCount();
+        if (RoutingMetrics.ENABLED) {
+            RoutingMetrics.endLoadPhase(phase, graph.nodeCount(), graph.edgeCount());
+        }
+        report.nanos = System.nanoTime() - start;
+        return new LoadResult(graph, report);
+    }
+
+    // Transparently unwraps gzip input (detected by its magic bytes)
+    public static InputStream decompressed(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        if (b1 == 0x1f && b2 == 0x8b) {
+            return new GZIPInputStream(buffered, 1 << 16);
+        }
+        return buffered;
+    }
+
+    private static void expectArray(JsonParser parser, String what) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a JSON array of " + what + " at line " + parser.currentLocation().getLineNr());
+        }
+    }
+
+    // Next element of the array being read, or END_ARRAY after the last one
+    private static JsonToken nextElement(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new IOException("Unterminated JSON array at line " + parser.currentLocation().getLineNr());
+        }
+        return token;
+    }
+
+    // Parser is on START_OBJECT; leaves it on the matching END_OBJECT. Returns null if incomplete,
+    // or if a field it reads holds something other than a scalar.
+    private static Node readNode(JsonParser parser) throws IOException {
+        String name = null;
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        double screenX = 0;
+        double screenY = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "name" -> name = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "latitude" -> latitude = number(parser, value);
+                case "longitude" -> longitude = number(parser, value);
+                case "screenX" -> screenX = number(parser, value);
+                case "screenY" -> screenY = number(parser, value);
+                default -> { }
+            }
+            parser.skipChildren(); // no-op on scalars; an object or array read above is NaN or null
+        }
+        if (name == null || Double.isNaN(latitude) || Double.isNaN(longitude) || Double.isNaN(screenX)
+                || Double.isNaN(screenY)) {
+            return null;
+        }
+        return new Node(name, latitude, longitude, screenX, screenY);
+    }
+
+    private static void readEdge(JsonParser parser, CsrGraph.Builder builder, LoadReport report) throws IOException {
+        int nodeA = -2; // -2 = missing field, -1 = unknown name
+        int nodeB = -2;
+        double distance = Double.NaN;
+        String unknownName = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "nodeA", "nodeB" -> {
+                    int id = -2;
+                    if (value == JsonToken.VALUE_STRING) {
+                        id = builder.idOf(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                        if (id < 0 && unknownName == null) {
+                            unknownName = parser.getText(); // only allocated for the bad record
+                        }
+                    }
+                    if (field.equals("nodeA")) nodeA = id; else nodeB = id;
+                }
+                case "distance" -> distance = number(parser, value);
+                default -> { }
+            }
+            parser.skipChildren(); // as in readNode: a nested nodeA, nodeB or distance is malformed
+        }
+        if (nodeA == -2 || nodeB == -2 || !(distance >= 0) || Double.isInfinite(distance)) {
+            report.malformedEdges++;
+            report.problem("Malformed edge at line " + parser.currentLocation().getLineNr());
+        } else if (nodeA < 0 || nodeB < 0) {
+            report.danglingEdges++;
+            report.problem("Edge references unknown node '" + unknownName + "'");
+        } else {
+            builder.addEdge(nodeA, nodeB, distance);
+        }
+    }
+
+    private static double number(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT
+                ? parser.getDoubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,109 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// IndexedGraph served straight out of a memory-mapped BinaryGraphFormat file
+// (or, through OffHeapGraph, out of a direct buffer in the same layout).
+// Opening only validates the header: no parsing, no per-edge objects, and the OS pages the
+// arrays in on demand, so startup time and heap use do not grow with the edge count.
+// Node objects are created on access (only needed for paths and UI).
+public final class MappedGraph implements IndexedGraph {
+
+    private final ByteBuffer buffer;
+    private final BinaryGraphFormat.Layout layout;
+    private final int offsets;
+    private final int targets;
+    private final int weights;
+    private final MappedGraph reverse;
+
+    private MappedGraph(ByteBuffer buffer, BinaryGraphFormat.Layout layout, long csr, MappedGraph reverse) {
+        int n = layout.nodeCount;
+        int m = layout.edgeCount;
+        this.buffer = buffer;
+        this.layout = layout;
+        this.offsets = (int) csr;
+        this.targets = (int) csr + 4 * (n + 1);
+        this.weights = (int) BinaryGraphFormat.Layout.weightsOf(csr, n, m);
+        this.reverse = reverse != null ? reverse : new MappedGraph(buffer, layout, layout.backward, this);
+    }
+
+    public static MappedGraph open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < BinaryGraphFormat.HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a graph file (size " + channel.size() + "): " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // stays valid after close
+        }
+        return wrap(buffer, file.toString());
+    }
+
+    // Validates the header of an encoded graph held in any buffer (mapped or direct)
+    static MappedGraph wrap(ByteBuffer buffer, String source) throws IOException {
+        buffer.order(BinaryGraphFormat.ORDER);
+        if (buffer.getInt(0) != BinaryGraphFormat.MAGIC) {
+            throw new IOException("Not a graph file (bad magic): " + source);
+        }
+        if (buffer.getInt(4) != BinaryGraphFormat.VERSION) {
+            throw new IOException("Unsupported graph file version " + buffer.getInt(4) + ": " + source);
+        }
+        BinaryGraphFormat.Layout layout = new BinaryGraphFormat.Layout(
+                buffer.getInt(8), buffer.getInt(12), buffer.getInt(16), buffer.getInt(20));
+        if (layout.end != buffer.capacity()) {
+            throw new IOException("Truncated or corrupt graph file (expected " + layout.end + " bytes): " + source);
+        }
+        return new MappedGraph(buffer, layout, layout.forward, null);
+    }
+
+    // Full CRC32 pass over the payload; touches every page, so it is opt-in
+    public boolean verifyChecksum() {
+        return BinaryGraphFormat.checksum(buffer, layout) == buffer.getLong(24);
+    }
+
+    @Override public int nodeCount() { return layout.nodeCount; }
+    @Override public int edgeCount() { return layout.edgeCount; }
+    @Override public int firstEdge(int node) { return buffer.getInt(offsets + 4 * node); }
+    @Override public int endEdge(int node) { return buffer.getInt(offsets + 4 * (node + 1)); }
+    @Override public int target(int edge) { return buffer.getInt(targets + 4 * edge); }
+    @Override public double weight(int edge) { return buffer.getDouble(weights + 8 * edge); }
+    @Override public double latitude(int node) { return coordinate(0, node); }
+    @Override public double longitude(int node) { return coordinate(1, node); }
+    @Override public MappedGraph reverse() { return reverse; }
+
+    @Override
+    public Node node(int id) {
+        return new Node(name(id), coordinate(0, id), coordinate(1, id), coordinate(2, id), coordinate(3, id));
+    }
+
+    @Override
+    public int idOf(String name) {
+        int mask = layout.hashSlots - 1;
+        int slot = BinaryGraphFormat.nameHash(name) & mask;
+        int entry;
+        while ((entry = buffer.getInt((int) layout.nameHash + 4 * slot)) != 0) {
+            if (name.equals(name(entry - 1))) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private double coordinate(int column, int node) {
+        return buffer.getDouble((int) layout.coords + 8 * (column * layout.nodeCount + node));
+    }
+
+    private String name(int id) {
+        int start = buffer.getInt((int) layout.nameOffsets + 4 * id);
+        int end = buffer.getInt((int) layout.nameOffsets + 4 * (id + 1));
+        byte[] bytes = new byte[end - start];
+        buffer.get((int) layout.names + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
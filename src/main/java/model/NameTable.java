@@ -0,0 +1,97 @@
+package model;
+
+import java.util.Arrays;
+
+// Node name -> id table with open addressing over an int[] of ids.
+// Names can be looked up straight from a parser's char buffer, so resolving the endpoints of
+// millions of edges does not allocate a String (or a boxed Integer) per lookup.
+final class NameTable {
+
+    private String[] names;
+    private int[] slots; // id + 1, 0 = empty
+    private int size;
+
+    NameTable(int expectedNames) {
+        names = new String[Math.max(4, expectedNames)];
+        slots = new int[capacityFor(expectedNames)];
+    }
+
+    int size() { return size; }
+
+    String name(int id) { return names[id]; }
+
+    // Returns the new id, or -1 if the name is already present
+    int add(String name) {
+        if (idOf(name) >= 0) {
+            return -1;
+        }
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+        }
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        int id = size++;
+        names[id] = name;
+        insert(id, mix(name.hashCode()));
+        return id;
+    }
+
+    int idOf(String name) {
+        int mask = slots.length - 1;
+        for (int slot = mix(name.hashCode()) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (names[slots[slot] - 1].equals(name)) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    int idOf(char[] chars, int offset, int length) {
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + chars[offset + i]; // same as String.hashCode()
+        }
+        int mask = slots.length - 1;
+        for (int slot = mix(h) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            String candidate = names[slots[slot] - 1];
+            if (candidate.length() == length && regionEquals(candidate, chars, offset)) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionEquals(String name, char[] chars, int offset) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int id, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        for (int id = 0; id < size; id++) {
+            insert(id, mix(names[id].hashCode()));
+        }
+    }
+
+    private static int capacityFor(int expected) {
+        return Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+}
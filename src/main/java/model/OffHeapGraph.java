@@ -0,0 +1,173 @@
+package model;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// IndexedGraph whose coordinates, names and forward/backward CSR arrays live outside the Java
+// heap, in one direct buffer using the BinaryGraphFormat layout. The GC never scans or copies
+// them, so several large regional graphs can stay loaded without inflating pause times.
+//
+// Whoever calls copyOf owns the copy; close() unloads it and hands the native memory back.
+// Every access holds a lease on the memory for its duration (a reader count shared with the
+// reverse graph): close() first turns new accesses away with IllegalStateException, then waits
+// for the ones under way to return, and only then frees the buffer. A query that is still
+// running when its graph is closed therefore fails with an exception instead of reading freed
+// memory. A copy that is never closed is freed like any direct buffer, once it is unreachable.
+public final class OffHeapGraph implements IndexedGraph, AutoCloseable {
+
+    private final IndexedGraph data;
+    private final OffHeapGraph reverse;
+    private final Memory memory; // shared with reverse
+
+    private OffHeapGraph(IndexedGraph data, OffHeapGraph reverse, Memory memory) {
+        this.data = data;
+        this.memory = memory;
+        this.reverse = reverse != null ? reverse : new OffHeapGraph(data.reverse(), this, memory);
+    }
+
+    // Copies any graph (CSR, mapped, ...) off-heap
+    public static OffHeapGraph copyOf(IndexedGraph graph) throws IOException {
+        ByteBuffer buffer = BinaryGraphFormat.encodeDirect(graph);
+        return new OffHeapGraph(MappedGraph.wrap(buffer, "off-heap copy"), null, new Memory(buffer));
+    }
+
+    public long offHeapBytes() { return memory.buffer.capacity(); }
+
+    public boolean isClosed() { return memory.readers.get() < 0; }
+
+    // Closes the reverse graph too; closing again does nothing. Returns once no access is under way.
+    @Override
+    public void close() {
+        memory.close();
+    }
+
+    @Override
+    public int nodeCount() {
+        memory.enter();
+        try { return data.nodeCount(); } finally { memory.exit(); }
+    }
+
+    @Override
+    public int edgeCount() {
+        memory.enter();
+        try { return data.edgeCount(); } finally { memory.exit(); }
+    }
+
+    @Override
+    public int firstEdge(int node) {
+        memory.enter();
+        try { return data.firstEdge(node); } finally { memory.exit(); }
+    }
+
+    @Override
+    public int endEdge(int node) {
+        memory.enter();
+        try { return data.endEdge(node); } finally { memory.exit(); }
+    }
+
+    @Override
+    public int target(int edge) {
+        memory.enter();
+        try { return data.target(edge); } finally { memory.exit(); }
+    }
+
+    @Override
+    public double weight(int edge) {
+        memory.enter();
+        try { return data.weight(edge); } finally { memory.exit(); }
+    }
+
+    @Override
+    public double latitude(int node) {
+        memory.enter();
+        try { return data.latitude(node); } finally { memory.exit(); }
+    }
+
+    @Override
+    public double longitude(int node) {
+        memory.enter();
+        try { return data.longitude(node); } finally { memory.exit(); }
+    }
+
+    @Override
+    public Node node(int id) {
+        memory.enter();
+        try { return data.node(id); } finally { memory.exit(); }
+    }
+
+    @Override
+    public int idOf(String name) {
+        memory.enter();
+        try { return data.idOf(name); } finally { memory.exit(); }
+    }
+
+    @Override public OffHeapGraph reverse() { return reverse; }
+
+    // The direct buffer and its leases. readers counts accesses under way; close() adds
+    // Integer.MIN_VALUE, so a negative count means closed (and readers still inside is
+    // count - MIN_VALUE). An access increments first and checks the sign after, close() sets the
+    // sign first and checks for readers after, so one of the two always sees the other.
+    private static final class Memory {
+        final ByteBuffer buffer;
+        final AtomicInteger readers = new AtomicInteger();
+
+        Memory(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        void enter() {
+            if (readers.incrementAndGet() < 0) {
+                readers.decrementAndGet();
+                throw new IllegalStateException("Off-heap graph has been unloaded");
+            }
+        }
+
+        void exit() {
+            readers.decrementAndGet();
+        }
+
+        synchronized void close() {
+            int count = readers.get();
+            while (count >= 0 && !readers.compareAndSet(count, count + Integer.MIN_VALUE)) {
+                count = readers.get();
+            }
+            if (count < 0) {
+                return; // already closed
+            }
+            while (readers.get() != Integer.MIN_VALUE) {
+                Thread.yield(); // accesses are a few array reads long
+            }
+            Release.free(buffer);
+        }
+    }
+
+    // Java 21 can only free a direct buffer deterministically through sun.misc.Unsafe.invokeCleaner
+    // (the FFM API's Arena.close() is still a preview there); looked up reflectively on first use
+    private static final class Release {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            try {
+                Class<?> type = Class.forName("sun.misc.Unsafe");
+                Field field = type.getDeclaredField("theUnsafe");
+                field.setAccessible(true);
+                UNSAFE = field.get(null);
+                INVOKE_CLEANER = type.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        static void free(ByteBuffer buffer) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot release off-heap graph memory", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package model;
+
+import java.util.Arrays;
+
+// Static R-tree over item bounding boxes, bulk-loaded with Sort-Tile-Recursive packing.
+// Items sit in level-0 slots in packed order; the boxes of the levels above live in one double
+// array (minX, minY, maxX, maxY per box, so the children of a node are one contiguous run),
+// level by level up to the root. The children of box i on level L+1 are entries
+// [i * NODE_SIZE, (i + 1) * NODE_SIZE) of level L, so there are no node objects or child pointers.
+// Nearest-neighbour search is depth-first branch and bound, visiting children by distance; at
+// the leaves it goes straight to the exact item distance, so item boxes are not kept at all.
+// Box search walks the same levels top-down and can stop early at small subtrees (level of detail).
+final class PackedRTree {
+
+    static final int NODE_SIZE = 16;
+
+    // Exact squared distance from (x, y) to the item in a level-0 slot; box distance is only a
+    // lower bound. Callers keep item geometry in slot order (see itemAt), so the leaves of one
+    // node are adjacent in memory instead of scattered by item id.
+    interface ItemDistance {
+        double distanceSquared(int slot, double x, double y);
+    }
+
+    // Receives the result of a box search: level-0 slots one by one, or whole subtrees at once
+    // when they are smaller than the requested detail
+    interface RangeVisitor {
+        void item(int slot);
+
+        void cluster(double minX, double minY, double maxX, double maxY);
+    }
+
+    private final int[] items; // item id of each level-0 slot
+    private final double[] boxes;
+    private final int[] levelStart; // levelStart[L] = first box of level L, plus one end entry
+
+    private final ThreadLocal<Scratch> scratch;
+
+    PackedRTree(double[] itemMinX, double[] itemMinY, double[] itemMaxX, double[] itemMaxY) {
+        int n = itemMinX.length;
+        items = strOrder(itemMinX, itemMinY, itemMaxX, itemMaxY);
+
+        int levels = 1;
+        int total = 0;
+        for (int size = n; size > 1; size = (size + NODE_SIZE - 1) / NODE_SIZE) {
+            total += (size + NODE_SIZE - 1) / NODE_SIZE;
+            levels++;
+        }
+        if (n <= 1) { // still one (possibly empty) level of boxes, so the root is a box
+            total = n;
+            levels = 2;
+        }
+        boxes = new double[4 * total];
+        levelStart = new int[levels + 1]; // level 0 counts slots, the others boxes
+        levelStart[1] = 0;
+        levelStart[2] = (n + NODE_SIZE - 1) / NODE_SIZE;
+        for (int box = 0, first = 0; first < n; first += NODE_SIZE, box++) {
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int slot = first, end = Math.min(first + NODE_SIZE, n); slot < end; slot++) {
+                int item = items[slot];
+                minX = Math.min(minX, itemMinX[item]);
+                minY = Math.min(minY, itemMinY[item]);
+                maxX = Math.max(maxX, itemMaxX[item]);
+                maxY = Math.max(maxY, itemMaxY[item]);
+            }
+            setBox(box, minX, minY, maxX, maxY);
+        }
+        for (int level = 2; level < levels; level++) {
+            int childStart = levelStart[level - 1];
+            int childEnd = levelStart[level];
+            int box = childEnd;
+            for (int first = childStart; first < childEnd; first += NODE_SIZE, box++) {
+                double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                for (int c = first, end = Math.min(first + NODE_SIZE, childEnd); c < end; c++) {
+                    minX = Math.min(minX, boxes[4 * c]);
+                    minY = Math.min(minY, boxes[4 * c + 1]);
+                    maxX = Math.max(maxX, boxes[4 * c + 2]);
+                    maxY = Math.max(maxY, boxes[4 * c + 3]);
+                }
+                setBox(box, minX, minY, maxX, maxY);
+            }
+            levelStart[level + 1] = box;
+        }
+        int depth = levels;
+        scratch = ThreadLocal.withInitial(() -> new Scratch(depth));
+    }
+
+    private void setBox(int box, double minX, double minY, double maxX, double maxY) {
+        boxes[4 * box] = minX;
+        boxes[4 * box + 1] = minY;
+        boxes[4 * box + 2] = maxX;
+        boxes[4 * box + 3] = maxY;
+    }
+
+    int size() {
+        return items.length;
+    }
+
+    // Item id stored in a level-0 slot
+    int itemAt(int slot) {
+        return items[slot];
+    }
+
+    // Sort-Tile-Recursive: vertical slices by centre x, each slice sorted by centre y.
+    // Centres are quantized to 31 bits and packed with the item id into one long, so the sorts
+    // are primitive.
+    private static int[] strOrder(double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        int n = minX.length;
+        double loX = Double.POSITIVE_INFINITY, hiX = Double.NEGATIVE_INFINITY;
+        double loY = Double.POSITIVE_INFINITY, hiY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            loX = Math.min(loX, minX[i]);
+            hiX = Math.max(hiX, maxX[i]);
+            loY = Math.min(loY, minY[i]);
+            hiY = Math.max(hiY, maxY[i]);
+        }
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) quantize((minX[i] + maxX[i]) / 2, loX, hiX) << 32) | i;
+        }
+        Arrays.sort(keys);
+        int leaves = (n + NODE_SIZE - 1) / NODE_SIZE;
+        int sliceSize = (int) Math.ceil(Math.sqrt(leaves)) * NODE_SIZE;
+        for (int start = 0; start < n; start += sliceSize) {
+            int end = Math.min(n, start + sliceSize);
+            for (int i = start; i < end; i++) {
+                int item = (int) keys[i];
+                keys[i] = ((long) quantize((minY[item] + maxY[item]) / 2, loY, hiY) << 32) | item;
+            }
+            Arrays.sort(keys, start, end);
+        }
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private static int quantize(double value, double lo, double hi) {
+        return hi > lo ? (int) ((value - lo) / (hi - lo) * Integer.MAX_VALUE) : 0;
+    }
+
+    // Up to k nearest items, closest first, written to ids/distancesSquared; returns the count.
+    // ids receives item ids, not slots.
+    int nearest(double x, double y, int k, ItemDistance distance, int[] ids, double[] distancesSquared) {
+        if (items.length == 0 || k <= 0) {
+            return 0;
+        }
+        Scratch s = scratch.get();
+        s.reset(k);
+        int root = levelStart.length - 2;
+        visit(root, levelStart[root], x, y, distance, s);
+        int count = s.drainSorted(ids, distancesSquared);
+        for (int i = 0; i < count; i++) {
+            ids[i] = items[ids[i]];
+        }
+        return count;
+    }
+
+    private void visit(int level, int box, double x, double y, ItemDistance distance, Scratch s) {
+        int first = levelStart[level - 1] + (box - levelStart[level]) * NODE_SIZE;
+        if (level == 1) {
+            for (int slot = first, end = Math.min(first + NODE_SIZE, items.length); slot < end; slot++) {
+                s.offer(slot, distance.distanceSquared(slot, x, y));
+            }
+            return;
+        }
+        int end = Math.min(first + NODE_SIZE, levelStart[level]);
+        int[] order = s.order[level];
+        double[] bounds = s.bounds[level];
+        int count = 0;
+        for (int c = first; c < end; c++) { // insertion sort by box distance
+            double d = boxDistanceSquared(c, x, y);
+            int at = count++;
+            while (at > 0 && bounds[at - 1] > d) {
+                bounds[at] = bounds[at - 1];
+                order[at] = order[at - 1];
+                at--;
+            }
+            bounds[at] = d;
+            order[at] = c;
+        }
+        for (int i = 0; i < count && bounds[i] < s.worst(); i++) {
+            visit(level - 1, order[i], x, y, distance, s);
+        }
+    }
+
+    // Slots of every leaf whose box intersects the query box (the items themselves may still lie
+    // outside it, callers filter on exact geometry). A subtree whose box is narrower than `detail`
+    // in both directions is reported as one cluster instead of being descended, so with
+    // detail > 0 the work is bounded by the query area in detail-sized cells, not by the item count.
+    void search(double minX, double minY, double maxX, double maxY, double detail, RangeVisitor visitor) {
+        if (items.length == 0) {
+            return;
+        }
+        int root = levelStart.length - 2;
+        search(root, levelStart[root], minX, minY, maxX, maxY, detail, visitor);
+    }
+
+    private void search(int level, int box, double minX, double minY, double maxX, double maxY,
+                        double detail, RangeVisitor visitor) {
+        int at = 4 * box;
+        if (boxes[at] > maxX || boxes[at + 2] < minX || boxes[at + 1] > maxY || boxes[at + 3] < minY) {
+            return;
+        }
+        int first = levelStart[level - 1] + (box - levelStart[level]) * NODE_SIZE;
+        int end = Math.min(first + NODE_SIZE, level == 1 ? items.length : levelStart[level]);
+        if (end - first > 1 && boxes[at + 2] - boxes[at] < detail && boxes[at + 3] - boxes[at + 1] < detail) {
+            // a lone child is never a cluster, so a single item is always reported as itself
+            visitor.cluster(boxes[at], boxes[at + 1], boxes[at + 2], boxes[at + 3]);
+            return;
+        }
+        if (level == 1) {
+            for (int slot = first; slot < end; slot++) {
+                visitor.item(slot);
+            }
+            return;
+        }
+        for (int c = first; c < end; c++) {
+            search(level - 1, c, minX, minY, maxX, maxY, detail, visitor);
+        }
+    }
+
+    private double boxDistanceSquared(int box, double x, double y) {
+        int at = 4 * box;
+        double dx = x < boxes[at] ? boxes[at] - x : x > boxes[at + 2] ? x - boxes[at + 2] : 0;
+        double dy = y < boxes[at + 1] ? boxes[at + 1] - y : y > boxes[at + 3] ? y - boxes[at + 3] : 0;
+        return dx * dx + dy * dy;
+    }
+
+    // Per-thread query state: child ordering per level and a bounded max-heap of the k best
+    private static final class Scratch {
+        final int[][] order;
+        final double[][] bounds;
+        int[] heapIds = new int[1];
+        double[] heapKeys = new double[1];
+        int k;
+        int size;
+
+        Scratch(int levels) {
+            order = new int[levels][NODE_SIZE];
+            bounds = new double[levels][NODE_SIZE];
+        }
+
+        void reset(int k) {
+            if (heapIds.length < k) {
+                heapIds = new int[k];
+                heapKeys = new double[k];
+            }
+            this.k = k;
+            size = 0;
+        }
+
+        double worst() {
+            return size < k ? Double.POSITIVE_INFINITY : heapKeys[0];
+        }
+
+        void offer(int id, double key) {
+            if (size < k) {
+                int at = size++;
+                while (at > 0 && heapKeys[(at - 1) / 2] < key) {
+                    heapKeys[at] = heapKeys[(at - 1) / 2];
+                    heapIds[at] = heapIds[(at - 1) / 2];
+                    at = (at - 1) / 2;
+                }
+                heapKeys[at] = key;
+                heapIds[at] = id;
+            } else if (key < heapKeys[0]) {
+                siftDown(id, key);
+            }
+        }
+
+        // replaces the root (current worst) and restores the max-heap
+        private void siftDown(int id, double key) {
+            int at = 0;
+            while (true) {
+                int child = 2 * at + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heapKeys[child + 1] > heapKeys[child]) {
+                    child++;
+                }
+                if (heapKeys[child] <= key) {
+                    break;
+                }
+                heapKeys[at] = heapKeys[child];
+                heapIds[at] = heapIds[child];
+                at = child;
+            }
+            heapKeys[at] = key;
+            heapIds[at] = id;
+        }
+
+        int drainSorted(int[] ids, double[] keys) {
+            int count = size;
+            for (int i = count - 1; i >= 0; i--) { // repeatedly take the worst
+                ids[i] = heapIds[0];
+                keys[i] = heapKeys[0];
+                size--;
+                if (size > 0) {
+                    siftDown(heapIds[size], heapKeys[size]);
+                }
+            }
+            return count;
+        }
+    }
+}
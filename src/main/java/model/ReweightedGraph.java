@@ -0,0 +1,102 @@
+package model;
+
+// Snapshot produced by Graph.applyUpdates: the topology, names and coordinates of the loaded
+// (base) graph, shared with it, plus one private weights array. A weight update therefore costs
+// one copy of the weights instead of rebuilding or reloading the graph, and earlier snapshots
+// stay valid for the queries still using them. A closed edge has weight +Infinity.
+//
+// The backward view maps each reverse edge to its forward edge once per base graph. This relies
+// on the reverse CSR listing the edges into a node in forward edge order, which holds for
+// CsrGraph.reverse() and for binary files written from it.
+final class ReweightedGraph implements IndexedGraph {
+
+    private final IndexedGraph base;
+    private final double[] weights;
+    private final int[] reverseToForward;
+    private final Backward reverse;
+
+    private ReweightedGraph(IndexedGraph base, double[] weights, int[] reverseToForward) {
+        this.base = base;
+        this.weights = weights;
+        this.reverseToForward = reverseToForward;
+        this.reverse = new Backward(base.reverse());
+    }
+
+    // New, not yet published snapshot with a private copy of graph's current weights
+    static ReweightedGraph nextVersionOf(IndexedGraph graph) {
+        if (graph instanceof ReweightedGraph current) {
+            return new ReweightedGraph(current.base, current.weights.clone(), current.reverseToForward);
+        }
+        double[] weights = new double[graph.edgeCount()];
+        for (int e = 0; e < weights.length; e++) {
+            weights[e] = graph.weight(e);
+        }
+        return new ReweightedGraph(graph, weights, reverseToForward(graph));
+    }
+
+    private static int[] reverseToForward(IndexedGraph graph) {
+        IndexedGraph backward = graph.reverse();
+        int[] cursor = new int[graph.nodeCount()];
+        for (int v = 0; v < cursor.length; v++) {
+            cursor[v] = backward.firstEdge(v);
+        }
+        int[] mapping = new int[graph.edgeCount()];
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                int r = cursor[graph.target(e)]++;
+                if (backward.target(r) != u) {
+                    throw new IllegalStateException("Reverse graph is not in forward edge order");
+                }
+                mapping[r] = e;
+            }
+        }
+        return mapping;
+    }
+
+    // The loaded graph whose topology and geometry this snapshot shares
+    IndexedGraph base() {
+        return base;
+    }
+
+    // Only called before the snapshot is published
+    void setWeight(int edge, double weight) {
+        weights[edge] = weight;
+    }
+
+    // Weight in the originally loaded graph, used to re-open closed edges
+    double baseWeight(int edge) {
+        return base.weight(edge);
+    }
+
+    @Override public int nodeCount() { return base.nodeCount(); }
+    @Override public int edgeCount() { return base.edgeCount(); }
+    @Override public int firstEdge(int node) { return base.firstEdge(node); }
+    @Override public int endEdge(int node) { return base.endEdge(node); }
+    @Override public int target(int edge) { return base.target(edge); }
+    @Override public double weight(int edge) { return weights[edge]; }
+    @Override public double latitude(int node) { return base.latitude(node); }
+    @Override public double longitude(int node) { return base.longitude(node); }
+    @Override public Node node(int id) { return base.node(id); }
+    @Override public int idOf(String name) { return base.idOf(name); }
+    @Override public IndexedGraph reverse() { return reverse; }
+
+    private final class Backward implements IndexedGraph {
+        private final IndexedGraph edges;
+
+        Backward(IndexedGraph edges) {
+            this.edges = edges;
+        }
+
+        @Override public int nodeCount() { return edges.nodeCount(); }
+        @Override public int edgeCount() { return edges.edgeCount(); }
+        @Override public int firstEdge(int node) { return edges.firstEdge(node); }
+        @Override public int endEdge(int node) { return edges.endEdge(node); }
+        @Override public int target(int edge) { return edges.target(edge); }
+        @Override public double weight(int edge) { return weights[reverseToForward[edge]]; }
+        @Override public double latitude(int node) { return edges.latitude(node); }
+        @Override public double longitude(int node) { return edges.longitude(node); }
+        @Override public Node node(int id) { return edges.node(id); }
+        @Override public int idOf(String name) { return edges.idOf(name); }
+        @Override public IndexedGraph reverse() { return ReweightedGraph.this; }
+    }
+}
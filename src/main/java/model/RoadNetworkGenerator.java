@@ -0,0 +1,119 @@
+package model;
+
+import java.util.Random;
+
+// Deterministic synthetic road networks for measuring the engines beyond the 30-node city map.
+// Nodes get real-looking latitude/longitude around Addis Ababa, edges are two-way streets whose
+// length is the great-circle distance times a random detour factor (roads are never straighter
+// than the crow flies). The same seed always produces the same graph.
+public final class RoadNetworkGenerator {
+
+    private static final double ORIGIN_LAT = 8.95;
+    private static final double ORIGIN_LON = 38.70;
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+
+    private RoadNetworkGenerator() {}
+
+    // rows x cols grid with `spacingMeters` between neighbours, jittered positions and
+    // `dropRate` of the streets missing (dead ends, rivers, ...)
+    public static CsrGraph grid(int rows, int cols, double spacingMeters, double dropRate, long seed) {
+        Random random = new Random(seed);
+        CsrGraph.Builder builder = new CsrGraph.Builder();
+        double metersPerDegreeLon = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(ORIGIN_LAT));
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                double north = (r + (random.nextDouble() - 0.5) * 0.3) * spacingMeters;
+                double east = (c + (random.nextDouble() - 0.5) * 0.3) * spacingMeters;
+                builder.addNode(new Node("n" + (r * cols + c),
+                        ORIGIN_LAT + north / METERS_PER_DEGREE_LAT,
+                        ORIGIN_LON + east / metersPerDegreeLon,
+                        c, r));
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int id = r * cols + c;
+                if (c + 1 < cols && random.nextDouble() >= dropRate) {
+                    addStreet(builder, id, id + 1, random);
+                }
+                if (r + 1 < rows && random.nextDouble() >= dropRate) {
+                    addStreet(builder, id, id + cols, random);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // `nodes` junctions scattered uniformly over a square (density: one per spacingMeters^2),
+    // each joined by a two-way street to every junction within the radius that gives on
+    // average `averageDegree` neighbours. Unlike grid() the result has irregular degrees and
+    // some disconnected pockets, like a real network.
+    public static CsrGraph randomGeometric(int nodes, double spacingMeters, double averageDegree, long seed) {
+        Random random = new Random(seed);
+        double side = Math.sqrt(nodes) * spacingMeters;
+        double radius = spacingMeters * Math.sqrt(averageDegree / Math.PI);
+        double metersPerDegreeLon = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(ORIGIN_LAT));
+
+        // bucket the points into radius-sized cells (counting sort) so neighbours are found
+        // by scanning 3x3 cells instead of all pairs
+        int cellsPerSide = Math.max(1, (int) (side / radius));
+        double cellSize = side / cellsPerSide;
+        double[] north = new double[nodes];
+        double[] east = new double[nodes];
+        int[] cellStart = new int[cellsPerSide * cellsPerSide + 1];
+        int[] cellOf = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            north[i] = random.nextDouble() * side;
+            east[i] = random.nextDouble() * side;
+            int row = Math.min(cellsPerSide - 1, (int) (north[i] / cellSize));
+            int col = Math.min(cellsPerSide - 1, (int) (east[i] / cellSize));
+            cellOf[i] = row * cellsPerSide + col;
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cellsPerSide * cellsPerSide; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] members = new int[nodes];
+        int[] cursor = cellStart.clone();
+        for (int i = 0; i < nodes; i++) {
+            members[cursor[cellOf[i]]++] = i;
+        }
+
+        CsrGraph.Builder builder = new CsrGraph.Builder(nodes, (int) Math.min(Integer.MAX_VALUE - 8, (long) (nodes * averageDegree * 1.1)));
+        for (int i = 0; i < nodes; i++) {
+            builder.addNode(new Node("n" + i,
+                    ORIGIN_LAT + north[i] / METERS_PER_DEGREE_LAT,
+                    ORIGIN_LON + east[i] / metersPerDegreeLon,
+                    east[i] / spacingMeters, north[i] / spacingMeters));
+        }
+        double radiusSquared = radius * radius;
+        for (int i = 0; i < nodes; i++) {
+            int row = cellOf[i] / cellsPerSide;
+            int col = cellOf[i] % cellsPerSide;
+            for (int r = Math.max(0, row - 1); r <= Math.min(cellsPerSide - 1, row + 1); r++) {
+                for (int c = Math.max(0, col - 1); c <= Math.min(cellsPerSide - 1, col + 1); c++) {
+                    int cell = r * cellsPerSide + c;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int j = members[k];
+                        double dn = north[i] - north[j];
+                        double de = east[i] - east[j];
+                        if (j > i && dn * dn + de * de <= radiusSquared) {
+                            addStreet(builder, i, j, random);
+                        }
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static void addStreet(CsrGraph.Builder builder, int a, int b, Random random) {
+        Node na = builder.node(a);
+        Node nb = builder.node(b);
+        double straight = GeoUtils.haversineMeters(na.getLatitude(), na.getLongitude(),
+                                                   nb.getLatitude(), nb.getLongitude());
+        double length = straight * (1.0 + random.nextDouble() * 0.4);
+        builder.addEdge(a, b, length);
+        builder.addEdge(b, a, length);
+    }
+}
@@ -0,0 +1,315 @@
+package model;
+
+import java.util.Arrays;
+
+// Coordinate lookups over a graph's nodes and streets, for clients that send raw GPS positions.
+// Latitude/longitude are projected once to local meters (equirectangular around the graph's
+// mean latitude, accurate to well under a meter at city scale) and indexed in two packed
+// R-trees: one over the nodes, one over the street segments (a two-way street is indexed once).
+// Queries only allocate their small result arrays and are safe from any number of threads.
+public final class SpatialIndex {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(GeoUtils.EARTH_RADIUS_METERS);
+
+    // Closest point of the street network: on edge from -> to, `fraction` of the way along it
+    public record EdgeMatch(int edge, int from, int to, double fraction,
+                            double latitude, double longitude, double distanceMeters) {}
+
+    private final IndexedGraph graph;
+    private final double metersPerDegreeLon;
+    private final double[] xs;
+    private final double[] ys;
+    private final PackedRTree nodeTree;
+    private final PackedRTree segmentTree;
+    private final int[] segmentEdge;
+    private final int[] segmentFrom;
+    // geometry in R-tree slot order, for cache-friendly leaf scans
+    private final double[] nodeSlotX;
+    private final double[] nodeSlotY;
+    private final double[] segmentSlotCoords; // x1, y1, x2, y2 per slot
+
+    private final PackedRTree.ItemDistance toNode;
+    private final PackedRTree.ItemDistance toSegment;
+
+    // metersPerDegreeLon is NaN for a screen layout, which has no latitude/longitude lookups
+    private SpatialIndex(IndexedGraph graph, double metersPerDegreeLon, double[] xs, double[] ys) {
+        this.graph = graph;
+        this.metersPerDegreeLon = metersPerDegreeLon;
+        this.xs = xs;
+        this.ys = ys;
+        int n = graph.nodeCount();
+        nodeTree = new PackedRTree(xs, ys, xs, ys);
+
+        int count = 0;
+        int[] edges = new int[graph.edgeCount()];
+        int[] sources = new int[graph.edgeCount()];
+        for (int u = 0; u < n; u++) {
+            for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; e++) {
+                int v = graph.target(e);
+                if (u < v || (u > v && !hasEdge(graph, v, u))) {
+                    edges[count] = e;
+                    sources[count++] = u;
+                }
+            }
+        }
+        segmentEdge = Arrays.copyOf(edges, count);
+        segmentFrom = Arrays.copyOf(sources, count);
+        double[] minX = new double[count], minY = new double[count], maxX = new double[count], maxY = new double[count];
+        for (int s = 0; s < count; s++) {
+            int a = segmentFrom[s];
+            int b = graph.target(segmentEdge[s]);
+            minX[s] = Math.min(xs[a], xs[b]);
+            maxX[s] = Math.max(xs[a], xs[b]);
+            minY[s] = Math.min(ys[a], ys[b]);
+            maxY[s] = Math.max(ys[a], ys[b]);
+        }
+        segmentTree = new PackedRTree(minX, minY, maxX, maxY);
+
+        nodeSlotX = new double[n];
+        nodeSlotY = new double[n];
+        for (int slot = 0; slot < n; slot++) {
+            nodeSlotX[slot] = xs[nodeTree.itemAt(slot)];
+            nodeSlotY[slot] = ys[nodeTree.itemAt(slot)];
+        }
+        segmentSlotCoords = new double[4 * count];
+        for (int slot = 0; slot < count; slot++) {
+            int segment = segmentTree.itemAt(slot);
+            int a = segmentFrom[segment];
+            int b = graph.target(segmentEdge[segment]);
+            segmentSlotCoords[4 * slot] = xs[a];
+            segmentSlotCoords[4 * slot + 1] = ys[a];
+            segmentSlotCoords[4 * slot + 2] = xs[b];
+            segmentSlotCoords[4 * slot + 3] = ys[b];
+        }
+
+        toNode = (slot, x, y) -> {
+            double dx = nodeSlotX[slot] - x;
+            double dy = nodeSlotY[slot] - y;
+            return dx * dx + dy * dy;
+        };
+        toSegment = (slot, x, y) -> {
+            double ax = segmentSlotCoords[4 * slot];
+            double ay = segmentSlotCoords[4 * slot + 1];
+            double t = projection(ax, ay, segmentSlotCoords[4 * slot + 2], segmentSlotCoords[4 * slot + 3], x, y);
+            double dx = ax + t * (segmentSlotCoords[4 * slot + 2] - ax) - x;
+            double dy = ay + t * (segmentSlotCoords[4 * slot + 3] - ay) - y;
+            return dx * dx + dy * dy;
+        };
+    }
+
+    // O(n log n); the graph's geometry must not change afterwards (weight updates are fine)
+    public static SpatialIndex build(IndexedGraph graph) {
+        int n = graph.nodeCount();
+        double latitudeSum = 0;
+        for (int i = 0; i < n; i++) {
+            latitudeSum += graph.latitude(i);
+        }
+        double originLatitude = n == 0 ? 0 : latitudeSum / n;
+        double metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(originLatitude));
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = graph.longitude(i) * metersPerDegreeLon;
+            ys[i] = graph.latitude(i) * METERS_PER_DEGREE;
+        }
+        return new SpatialIndex(graph, metersPerDegreeLon, xs, ys);
+    }
+
+    // Index over the nodes' own screen coordinates (Node.getScreenX/Y, y flipped so it grows
+    // upwards like the projected plane), for drawing a graph with a hand-made layout. Only the
+    // plane queries work; the latitude/longitude lookups throw IllegalStateException.
+    public static SpatialIndex buildOnScreenLayout(IndexedGraph graph) {
+        int n = graph.nodeCount();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            Node node = graph.node(i);
+            xs[i] = node.getScreenX();
+            ys[i] = -node.getScreenY();
+        }
+        return new SpatialIndex(graph, Double.NaN, xs, ys);
+    }
+
+    // Whether the graph carries a screen layout: loaders leave screenX/screenY at 0 when the
+    // source has none, so one node off the origin is enough
+    public static boolean hasScreenLayout(IndexedGraph graph) {
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            Node node = graph.node(i);
+            if (node.getScreenX() != 0 || node.getScreenY() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public IndexedGraph graph() {
+        return graph;
+    }
+
+    // Nearest node id, or -1 for an empty graph
+    public int nearestNode(double latitude, double longitude) {
+        int[] id = new int[1];
+        return nodeTree.nearest(x(longitude), y(latitude), 1, toNode, id, new double[1]) == 0 ? -1 : id[0];
+    }
+
+    // Up to k node ids, nearest first
+    public int[] nearestNodes(double latitude, double longitude, int k) {
+        int[] ids = new int[Math.min(k, graph.nodeCount())];
+        int found = nodeTree.nearest(x(longitude), y(latitude), ids.length, toNode, ids, new double[ids.length]);
+        return found == ids.length ? ids : Arrays.copyOf(ids, found);
+    }
+
+    // Closest point on any street, or null for a graph without edges
+    public EdgeMatch nearestEdge(double latitude, double longitude) {
+        double x = x(longitude);
+        double y = y(latitude);
+        int[] id = new int[1];
+        double[] distanceSquared = new double[1];
+        if (segmentTree.nearest(x, y, 1, toSegment, id, distanceSquared) == 0) {
+            return null;
+        }
+        int s = id[0];
+        int a = segmentFrom[s];
+        int b = graph.target(segmentEdge[s]);
+        double t = projection(xs[a], ys[a], xs[b], ys[b], x, y);
+        double px = xs[a] + t * (xs[b] - xs[a]);
+        double py = ys[a] + t * (ys[b] - ys[a]);
+        return new EdgeMatch(segmentEdge[s], a, b, t, py / METERS_PER_DEGREE, px / metersPerDegreeLon,
+                Math.sqrt(distanceSquared[0]));
+    }
+
+    // Viewport queries for map rendering work in the projected plane: x meters east, y meters
+    // north, both relative to latitude/longitude 0 (see projectX / projectY).
+
+    public interface NodeVisitor {
+        void node(int id, double x, double y);
+
+        // several nodes inside a box smaller than the requested detail
+        void cluster(double minX, double minY, double maxX, double maxY);
+    }
+
+    public interface SegmentVisitor {
+        // one street; for a two-way street only one of its two edges is reported
+        void segment(int edge, double x1, double y1, double x2, double y2);
+
+        // several streets inside a box smaller than the requested detail
+        void cluster(double minX, double minY, double maxX, double maxY);
+    }
+
+    public double projectX(double longitude) {
+        return x(longitude);
+    }
+
+    public double projectY(double latitude) {
+        return y(latitude);
+    }
+
+    public double nodeX(int node) {
+        return xs[node];
+    }
+
+    public double nodeY(int node) {
+        return ys[node];
+    }
+
+    // minX, minY, maxX, maxY of all nodes; all zero for an empty graph
+    public double[] bounds() {
+        double[] bounds = new double[4];
+        if (xs.length > 0) {
+            bounds[0] = bounds[1] = Double.POSITIVE_INFINITY;
+            bounds[2] = bounds[3] = Double.NEGATIVE_INFINITY;
+            for (int slot = 0; slot < nodeSlotX.length; slot++) {
+                bounds[0] = Math.min(bounds[0], nodeSlotX[slot]);
+                bounds[1] = Math.min(bounds[1], nodeSlotY[slot]);
+                bounds[2] = Math.max(bounds[2], nodeSlotX[slot]);
+                bounds[3] = Math.max(bounds[3], nodeSlotY[slot]);
+            }
+        }
+        return bounds;
+    }
+
+    // Nodes inside the box; groups of nodes closer together than `detail` meters come as clusters
+    public void visitNodes(double minX, double minY, double maxX, double maxY, double detail, NodeVisitor visitor) {
+        nodeTree.search(minX, minY, maxX, maxY, detail, new PackedRTree.RangeVisitor() {
+            @Override
+            public void item(int slot) {
+                double x = nodeSlotX[slot];
+                double y = nodeSlotY[slot];
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    visitor.node(nodeTree.itemAt(slot), x, y);
+                }
+            }
+
+            @Override
+            public void cluster(double bMinX, double bMinY, double bMaxX, double bMaxY) {
+                visitor.cluster(bMinX, bMinY, bMaxX, bMaxY);
+            }
+        });
+    }
+
+    // Streets crossing the box (by bounding box); groups smaller than `detail` meters come as clusters
+    public void visitSegments(double minX, double minY, double maxX, double maxY, double detail,
+                              SegmentVisitor visitor) {
+        segmentTree.search(minX, minY, maxX, maxY, detail, new PackedRTree.RangeVisitor() {
+            @Override
+            public void item(int slot) {
+                double x1 = segmentSlotCoords[4 * slot];
+                double y1 = segmentSlotCoords[4 * slot + 1];
+                double x2 = segmentSlotCoords[4 * slot + 2];
+                double y2 = segmentSlotCoords[4 * slot + 3];
+                if (Math.max(x1, x2) >= minX && Math.min(x1, x2) <= maxX
+                        && Math.max(y1, y2) >= minY && Math.min(y1, y2) <= maxY) {
+                    visitor.segment(segmentEdge[segmentTree.itemAt(slot)], x1, y1, x2, y2);
+                }
+            }
+
+            @Override
+            public void cluster(double bMinX, double bMinY, double bMaxX, double bMaxY) {
+                visitor.cluster(bMinX, bMinY, bMaxX, bMaxY);
+            }
+        });
+    }
+
+    // Nearest node id to a projected point, or -1 for an empty graph
+    public int nearestNodeAt(double x, double y) {
+        int[] id = new int[1];
+        return nodeTree.nearest(x, y, 1, toNode, id, new double[1]) == 0 ? -1 : id[0];
+    }
+
+    // Parameter in [0, 1] of the point of segment a-b closest to (x, y)
+    private static double projection(double ax, double ay, double bx, double by, double x, double y) {
+        double sx = bx - ax;
+        double sy = by - ay;
+        double lengthSquared = sx * sx + sy * sy;
+        if (lengthSquared == 0) {
+            return 0;
+        }
+        double t = ((x - ax) * sx + (y - ay) * sy) / lengthSquared;
+        return Math.max(0, Math.min(1, t));
+    }
+
+    private double x(double longitude) {
+        checkGeographic();
+        return longitude * metersPerDegreeLon;
+    }
+
+    private double y(double latitude) {
+        checkGeographic();
+        return latitude * METERS_PER_DEGREE;
+    }
+
+    private void checkGeographic() {
+        if (Double.isNaN(metersPerDegreeLon)) {
+            throw new IllegalStateException("A screen-layout index has no latitude/longitude lookups");
+        }
+    }
+
+    private static boolean hasEdge(IndexedGraph graph, int from, int to) {
+        for (int e = graph.firstEdge(from), end = graph.endEdge(from); e < end; e++) {
+            if (graph.target(e) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
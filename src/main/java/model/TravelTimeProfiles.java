@@ -0,0 +1,191 @@
+package model;
+
+import java.util.Arrays;
+
+// Time-of-day travel times for the edges of one graph snapshot, in seconds.
+// An edge's free-flow time is its weight (meters) divided by one free-flow speed; an edge may
+// also refer to a profile, a daily piecewise-linear curve of factors on that time (1.0 = free
+// flow, 2.5 = rush hour). Profiles are few and shared: a road class or a measured corridor is one
+// profile, however many edges use it. All of it is primitive arrays, so the per-edge cost is one
+// int (the profile id, -1 for none) on top of the graph, never an object per edge.
+//
+// Profiles repeat every day and interpolate linearly between their points, wrapping from the last
+// point of the day to the first one of the next. Every edge must be FIFO (leaving later never
+// arrives earlier: the travel time never falls faster than one second per second), which is what
+// keeps a time-dependent Dijkstra exact; the builder rejects edges that would break it.
+public final class TravelTimeProfiles {
+
+    public static final double DAY_SECONDS = 86_400;
+
+    private final IndexedGraph graph;
+    private final double secondsPerMeter;
+    private final int[] profileOfEdge;
+    private final int[] pointStart; // points of profile p: [pointStart[p], pointStart[p + 1])
+    private final float[] pointTimes; // seconds since midnight, ascending per profile
+    private final float[] pointFactors;
+    private final double minFactor; // over all profiles and free flow
+
+    private TravelTimeProfiles(IndexedGraph graph, double secondsPerMeter, int[] profileOfEdge, int[] pointStart,
+                               float[] pointTimes, float[] pointFactors, double minFactor) {
+        this.graph = graph;
+        this.secondsPerMeter = secondsPerMeter;
+        this.profileOfEdge = profileOfEdge;
+        this.pointStart = pointStart;
+        this.pointTimes = pointTimes;
+        this.pointFactors = pointFactors;
+        this.minFactor = minFactor;
+    }
+
+    public static Builder builder(IndexedGraph graph, double freeFlowMetersPerSecond) {
+        return new Builder(graph, freeFlowMetersPerSecond);
+    }
+
+    public IndexedGraph graph() { return graph; }
+
+    public int profileCount() { return pointStart.length - 1; }
+
+    // Profile of an edge, -1 if it always runs at free flow
+    public int profileOf(int edge) { return profileOfEdge[edge]; }
+
+    public double freeFlowTime(int edge) {
+        return graph.weight(edge) * secondsPerMeter;
+    }
+
+    // Seconds to traverse edge when entering it at `departure` (seconds since midnight of day 0;
+    // later days repeat the profile)
+    public double travelTime(int edge, double departure) {
+        double base = graph.weight(edge) * secondsPerMeter;
+        int profile = profileOfEdge[edge];
+        return profile < 0 ? base : base * factor(profile, departure);
+    }
+
+    // Lower bound on any edge's travel time per meter of its weight, at any time of day; times a
+    // lower bound on meters it is a lower bound on seconds
+    public double minSecondsPerMeter() {
+        return secondsPerMeter * minFactor;
+    }
+
+    // Bytes of profile data on top of the graph: the per-edge ids plus the shared points
+    public long bytes() {
+        return 4L * profileOfEdge.length + 4L * pointStart.length + 8L * pointTimes.length;
+    }
+
+    double factor(int profile, double time) {
+        int first = pointStart[profile];
+        int end = pointStart[profile + 1];
+        if (end - first == 1) {
+            return pointFactors[first];
+        }
+        double t = time - DAY_SECONDS * Math.floor(time / DAY_SECONDS);
+        // last point at or before t; before the first point, the segment from the last point of
+        // the previous day to the first point of this one
+        int i = Arrays.binarySearch(pointTimes, first, end, (float) t);
+        i = i >= 0 ? i : -i - 2;
+        while (i >= first && pointTimes[i] > t) { // t rounded up onto a point
+            i--;
+        }
+        double t0;
+        double t1;
+        int next;
+        if (i < first) {
+            i = end - 1;
+            next = first;
+            t0 = pointTimes[i] - DAY_SECONDS;
+            t1 = pointTimes[first];
+        } else {
+            next = i + 1 < end ? i + 1 : first;
+            t0 = pointTimes[i];
+            t1 = next > i ? pointTimes[next] : pointTimes[next] + DAY_SECONDS;
+        }
+        double f0 = pointFactors[i];
+        return f0 + (pointFactors[next] - f0) * (t - t0) / (t1 - t0);
+    }
+
+    public static final class Builder {
+        private final IndexedGraph graph;
+        private final double secondsPerMeter;
+        private final int[] profileOfEdge;
+        private int profiles;
+        private int[] pointStart = new int[9];
+        private int points;
+        private float[] pointTimes = new float[32];
+        private float[] pointFactors = new float[32];
+
+        private Builder(IndexedGraph graph, double freeFlowMetersPerSecond) {
+            if (!(freeFlowMetersPerSecond > 0) || Double.isInfinite(freeFlowMetersPerSecond)) {
+                throw new IllegalArgumentException("Free-flow speed must be positive, got " + freeFlowMetersPerSecond);
+            }
+            this.graph = graph;
+            this.secondsPerMeter = 1 / freeFlowMetersPerSecond;
+            this.profileOfEdge = new int[graph.edgeCount()];
+            Arrays.fill(profileOfEdge, -1);
+        }
+
+        // Adds a daily profile: factors at ascending times of day (seconds in [0, DAY_SECONDS));
+        // returns its id
+        public int addProfile(double[] times, double[] factors) {
+            if (times.length == 0 || times.length != factors.length) {
+                throw new IllegalArgumentException("A profile needs one factor per time, and at least one point");
+            }
+            for (int i = 0; i < times.length; i++) {
+                if (!(times[i] >= 0 && times[i] < DAY_SECONDS) || (i > 0 && !((float) times[i] > (float) times[i - 1]))) {
+                    throw new IllegalArgumentException("Profile times must ascend within one day, got " + times[i]);
+                }
+                if (!(factors[i] > 0) || Double.isInfinite(factors[i])) {
+                    throw new IllegalArgumentException("Profile factors must be positive, got " + factors[i]);
+                }
+            }
+            if (profiles + 2 > pointStart.length) {
+                pointStart = Arrays.copyOf(pointStart, 2 * pointStart.length);
+            }
+            if (points + times.length > pointTimes.length) {
+                int capacity = Math.max(2 * pointTimes.length, points + times.length);
+                pointTimes = Arrays.copyOf(pointTimes, capacity);
+                pointFactors = Arrays.copyOf(pointFactors, capacity);
+            }
+            for (int i = 0; i < times.length; i++) {
+                pointTimes[points] = (float) times[i];
+                pointFactors[points++] = (float) factors[i];
+            }
+            pointStart[++profiles] = points;
+            return profiles - 1;
+        }
+
+        public Builder assign(int edge, int profile) {
+            if (profile < -1 || profile >= profiles) {
+                throw new IllegalArgumentException("Unknown profile " + profile);
+            }
+            profileOfEdge[edge] = profile;
+            return this;
+        }
+
+        // Checks FIFO for every edge: its free-flow time times the steepest fall of its profile
+        // must not exceed one second per second
+        public TravelTimeProfiles build() {
+            int[] starts = Arrays.copyOf(pointStart, profiles + 1);
+            float[] times = Arrays.copyOf(pointTimes, points);
+            float[] factors = Arrays.copyOf(pointFactors, points);
+            double[] steepestFall = new double[profiles]; // most negative factor change per second
+            double minFactor = 1.0;
+            for (int p = 0; p < profiles; p++) {
+                int count = starts[p + 1] - starts[p];
+                for (int i = starts[p]; i < starts[p + 1]; i++) {
+                    minFactor = Math.min(minFactor, factors[i]);
+                    int next = i + 1 < starts[p + 1] ? i + 1 : starts[p];
+                    double span = next > i ? times[next] - times[i] : times[next] + DAY_SECONDS - times[i];
+                    if (count > 1) {
+                        steepestFall[p] = Math.min(steepestFall[p], (factors[next] - factors[i]) / span);
+                    }
+                }
+            }
+            for (int e = 0; e < profileOfEdge.length; e++) {
+                int p = profileOfEdge[e];
+                if (p >= 0 && graph.weight(e) * secondsPerMeter * steepestFall[p] < -1) {
+                    throw new IllegalArgumentException("Profile " + p + " falls too fast for edge " + e + " ("
+                            + graph.weight(e) + " m): leaving later would arrive earlier");
+                }
+            }
+            return new TravelTimeProfiles(graph, secondsPerMeter, profileOfEdge.clone(), starts, times, factors, minFactor);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package server;
+
+import metrics.LatencyHistogram;
+import model.Graph;
+import model.IndexedGraph;
+import model.RoadNetworkGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Starts a RoutingServer on a synthetic graph on a local port and drives it over plain sockets:
+// `connections` keep-alive connections, each with up to `depth` requests pipelined (written
+// before the earlier responses are read). Latency is measured per request from its write to the
+// end of its response, so it includes queueing behind the requests ahead of it.
+// Then times one /batch and one /matrix request.
+// Usage: LoadTest [nodes] [requests] [connections] [depth] [workers] [queue]
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int depth = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        int workers = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        int queue = args.length > 5 ? Integer.parseInt(args[5]) : 256;
+
+        Graph graph = new Graph();
+        graph.load(RoadNetworkGenerator.randomGeometric(nodes, 150.0, 6.0, 42L));
+        IndexedGraph g = graph.getIndexedGraph();
+        try (RoutingServer server = new RoutingServer(graph, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                workers, queue)) {
+            server.start();
+            System.out.println(String.format("Server: %d nodes, %d workers, queue %d; load: %d connections x depth %d",
+                    g.nodeCount(), workers, queue, connections, depth));
+
+            Random random = new Random(7L);
+            String[] paths = new String[requests];
+            for (int i = 0; i < requests; i++) {
+                paths[i] = "/route?from=" + URLEncoder.encode(g.node(random.nextInt(g.nodeCount())).getName(), StandardCharsets.UTF_8)
+                        + "&to=" + URLEncoder.encode(g.node(random.nextInt(g.nodeCount())).getName(), StandardCharsets.UTF_8);
+            }
+
+            run(server.port(), paths, Math.min(requests, 200), connections, depth, new LatencyHistogram()); // warm-up
+            LatencyHistogram latency = new LatencyHistogram();
+            long start = System.nanoTime();
+            long[] statuses = run(server.port(), paths, requests, connections, depth, latency);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("%-10s %8s %8s %10s %10s %10s %10s", "endpoint", "ok", "503",
+                    "req/s", "p50 ms", "p99 ms", "max ms"));
+            System.out.println(String.format("%-10s %8d %8d %10.0f %10.2f %10.2f %10.2f", "/route", statuses[0],
+                    statuses[1], requests / seconds, latency.valueAtQuantile(0.50) / 1e6,
+                    latency.valueAtQuantile(0.99) / 1e6, latency.max() / 1e6));
+            if (statuses[2] > 0) {
+                System.out.println(statuses[2] + " responses with other statuses");
+            }
+
+            HttpClient client = HttpClient.newHttpClient();
+            StringBuilder batch = new StringBuilder("{\"routes\":[");
+            for (int i = 0; i < 1000; i++) {
+                batch.append(i == 0 ? "" : ",").append(String.format("{\"from\":\"%s\",\"to\":\"%s\"}",
+                        g.node(random.nextInt(g.nodeCount())).getName(), g.node(random.nextInt(g.nodeCount())).getName()));
+            }
+            time(client, server.port(), "/batch", batch.append("]}").toString(), "1000 routes");
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                names.add('"' + g.node(random.nextInt(g.nodeCount())).getName() + '"');
+            }
+            String list = "[" + String.join(",", names) + "]";
+            time(client, server.port(), "/matrix", "{\"sources\":" + list + ",\"targets\":" + list + "}", "50 x 50");
+            System.out.println("Server counters: " + server.servedCount() + " served, " + server.rejectedCount() + " rejected");
+        }
+    }
+
+    // Returns {200 count, 503 count, other count}
+    private static long[] run(int port, String[] paths, int count, int connections, int depth,
+                              LatencyHistogram latency) throws Exception {
+        AtomicLong next = new AtomicLong();
+        long[][] statuses = new long[connections][3];
+        List<Future<?>> clients = new ArrayList<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int c = 0; c < connections; c++) {
+            long[] mine = statuses[c];
+            clients.add(executor.submit(() -> {
+                connection(port, paths, count, depth, next, latency, mine);
+                return null;
+            }));
+        }
+        for (Future<?> client : clients) {
+            client.get();
+        }
+        executor.shutdown();
+        long[] total = new long[3];
+        for (long[] s : statuses) {
+            for (int i = 0; i < 3; i++) {
+                total[i] += s[i];
+            }
+        }
+        return total;
+    }
+
+    private static void connection(int port, String[] paths, int count, int depth, AtomicLong next,
+                                   LatencyHistogram latency, long[] statuses) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            long[] sentAt = new long[depth];
+            int sent = 0;
+            int received = 0;
+            boolean exhausted = false;
+            while (true) {
+                while (!exhausted && sent - received < depth) {
+                    long index = next.getAndIncrement();
+                    if (index >= count) {
+                        exhausted = true;
+                        break;
+                    }
+                    String request = "GET " + paths[(int) (index % paths.length)] + " HTTP/1.1\r\nHost: localhost\r\n\r\n";
+                    out.write(request.getBytes(StandardCharsets.US_ASCII));
+                    sentAt[sent++ % depth] = System.nanoTime();
+                }
+                out.flush();
+                if (received == sent) {
+                    return;
+                }
+                int status = readResponse(in);
+                latency.record(System.nanoTime() - sentAt[received++ % depth]);
+                statuses[status == 200 ? 0 : status == 503 ? 1 : 2]++;
+            }
+        }
+    }
+
+    // Reads one HTTP/1.1 response with a Content-Length body, returns its status
+    private static int readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+        int length = 0;
+        for (String header = readLine(in); !header.isEmpty(); header = readLine(in)) {
+            int colon = header.indexOf(':');
+            if (colon > 0 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+                length = Integer.parseInt(header.substring(colon + 1).trim());
+            }
+        }
+        in.skipNBytes(length);
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) {
+                throw new EOFException("Connection closed mid-response");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static void time(HttpClient client, int port, String path, String body, String label) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).header("Content-Type", "application/json").build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        System.out.println(String.format("%-10s %-12s status %d, %.1f ms, %,d bytes", path, label,
+                response.statusCode(), (System.nanoTime() - start) / 1e6, response.body().length()));
+    }
+}
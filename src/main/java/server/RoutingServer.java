@@ -0,0 +1,348 @@
+package server;
+
+import algorithm.AStarEngine;
+import algorithm.DijkstraAlgorithm.PathResult;
+import algorithm.DistanceMatrix;
+import algorithm.DistanceMatrixEngine;
+import algorithm.Heuristic;
+import algorithm.SearchWorkspace;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.Graph;
+import model.IndexedGraph;
+import model.Node;
+import model.RoadNetworkGenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless routing over HTTP/JSON on the JDK's built-in server, one virtual thread per exchange.
+// The graph is loaded once and shared; every request reads the current snapshot.
+//
+//   GET  /route?from=<name>&to=<name>         one Dijkstra query, PathResult as JSON
+//   POST /batch  {"routes":[{"from":..,"to":..}, ...]}   many queries in one request
+//   POST /matrix {"sources":[..], "targets":[..]}        distance table (null = unreachable)
+//   GET  /health                              graph size, version and request counters
+//
+// Backpressure: at most `workers` requests compute at once (about one per core) and at most
+// `queueCapacity` more wait for a worker; anything beyond that is answered 503 with Retry-After
+// right away instead of piling up. Connections are kept alive, and requests pipelined on one
+// connection are answered in order. Reading the body and writing the response happen outside
+// the worker permit, so a slow client does not hold a core.
+public final class RoutingServer implements AutoCloseable {
+
+    private static final int MAX_BATCH_ROUTES = 10_000;
+    private static final int MAX_MATRIX_CELLS = 250_000;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    // Request and response bodies
+    public record RoutePair(String from, String to) {}
+    public record BatchRequest(List<RoutePair> routes) {}
+    public record MatrixRequest(List<String> sources, List<String> targets) {}
+    public record PathNode(String name, double latitude, double longitude) {}
+    public record RouteResponse(String from, String to, boolean reachable, Double distance, int settledNodes,
+                                List<PathNode> path) {}
+    public record BatchResponse(List<RouteResponse> results) {}
+    public record MatrixResponse(List<String> sources, List<String> targets, Double[][] distances) {}
+    public record HealthResponse(int nodes, int edges, long version, long served, long rejected) {}
+
+    private record MatrixEngine(IndexedGraph snapshot, DistanceMatrixEngine engine) {}
+    private record RouteEngine(IndexedGraph snapshot, AStarEngine engine) {}
+
+    private static final class RequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final Graph graph;
+    private final HttpServer http;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore admitted; // computing + waiting
+    private final Semaphore computing;
+    private final Queue<SearchWorkspace> workspaces = new ConcurrentLinkedQueue<>();
+    private volatile MatrixEngine matrixEngine;
+    private volatile RouteEngine routeEngine;
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public RoutingServer(Graph graph, InetSocketAddress address, int workers, int queueCapacity) throws IOException {
+        if (workers <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Need workers > 0 and queueCapacity >= 0: " + workers + ", " + queueCapacity);
+        }
+        this.graph = graph;
+        this.admitted = new Semaphore(workers + queueCapacity);
+        this.computing = new Semaphore(workers);
+        this.http = HttpServer.create(address, 1024);
+        http.setExecutor(executor);
+        http.createContext("/route", exchange -> handle(exchange, "GET", this::route));
+        http.createContext("/batch", exchange -> handle(exchange, "POST", this::batch));
+        http.createContext("/matrix", exchange -> handle(exchange, "POST", this::matrix));
+        http.createContext("/health", exchange -> handle(exchange, "GET", this::health));
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    // Bound port, useful when the server was created on port 0
+    public int port() {
+        return http.getAddress().getPort();
+    }
+
+    public long servedCount() { return served.get(); }
+    public long rejectedCount() { return rejected.get(); }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        executor.shutdown();
+    }
+
+    private interface Handler {
+        Object handle(HttpExchange exchange, byte[] body);
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try (exchange) { // closed after the catch blocks below have answered
+            respond(exchange, method, handler);
+        }
+    }
+
+    private void respond(HttpExchange exchange, String method, Handler handler) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals(method)) {
+                send(exchange, 405, error("Use " + method));
+                return;
+            }
+            if (!admitted.tryAcquire()) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, error("Server busy"));
+                return;
+            }
+            Object response;
+            try {
+                byte[] body = readBody(exchange);
+                computing.acquireUninterruptibly();
+                try {
+                    response = handler.handle(exchange, body);
+                } finally {
+                    computing.release();
+                }
+            } finally {
+                admitted.release();
+            }
+            served.incrementAndGet();
+            send(exchange, 200, JSON.writeValueAsBytes(response));
+        } catch (RequestException e) {
+            send(exchange, e.status, error(e.getMessage()));
+        } catch (JsonProcessingException e) {
+            send(exchange, 400, error("Malformed JSON: " + e.getOriginalMessage()));
+        } catch (RuntimeException e) {
+            send(exchange, 500, error(e.toString()));
+        }
+    }
+
+    private Object route(HttpExchange exchange, byte[] body) {
+        Map<String, String> query = queryParameters(exchange);
+        String from = query.get("from");
+        String to = query.get("to");
+        if (from == null || to == null) {
+            throw new RequestException(400, "Parameters 'from' and 'to' are required");
+        }
+        IndexedGraph g = graph.getIndexedGraph();
+        return route(g, from, to);
+    }
+
+    private Object batch(HttpExchange exchange, byte[] body) {
+        BatchRequest request = parse(body, BatchRequest.class);
+        if (request.routes() == null) {
+            throw new RequestException(400, "Field 'routes' is required");
+        }
+        if (request.routes().size() > MAX_BATCH_ROUTES) {
+            throw new RequestException(413, "At most " + MAX_BATCH_ROUTES + " routes per batch");
+        }
+        IndexedGraph g = graph.getIndexedGraph(); // one snapshot for the whole batch
+        List<RouteResponse> results = new ArrayList<>(request.routes().size());
+        for (RoutePair pair : request.routes()) {
+            if (pair == null || pair.from() == null || pair.to() == null) {
+                throw new RequestException(400, "Every route needs 'from' and 'to'");
+            }
+            results.add(route(g, pair.from(), pair.to()));
+        }
+        return new BatchResponse(results);
+    }
+
+    private Object matrix(HttpExchange exchange, byte[] body) {
+        MatrixRequest request = parse(body, MatrixRequest.class);
+        if (request.sources() == null || request.targets() == null) {
+            throw new RequestException(400, "Fields 'sources' and 'targets' are required");
+        }
+        if ((long) request.sources().size() * request.targets().size() > MAX_MATRIX_CELLS) {
+            throw new RequestException(413, "At most " + MAX_MATRIX_CELLS + " matrix cells");
+        }
+        MatrixEngine current = matrixEngine;
+        IndexedGraph g = graph.getIndexedGraph();
+        if (current == null || current.snapshot() != g) {
+            current = new MatrixEngine(g, new DistanceMatrixEngine(g));
+            matrixEngine = current;
+        }
+        DistanceMatrix table = current.engine().matrix(ids(g, request.sources()), ids(g, request.targets()));
+        Double[][] distances = new Double[table.rows()][table.cols()];
+        for (int r = 0; r < table.rows(); r++) {
+            for (int c = 0; c < table.cols(); c++) {
+                double d = table.get(r, c);
+                distances[r][c] = Double.isFinite(d) ? d : null;
+            }
+        }
+        return new MatrixResponse(request.sources(), request.targets(), distances);
+    }
+
+    private Object health(HttpExchange exchange, byte[] body) {
+        IndexedGraph g = graph.getIndexedGraph();
+        return new HealthResponse(g.nodeCount(), g.edgeCount(), graph.getVersion(), served.get(), rejected.get());
+    }
+
+    // Plain Dijkstra bound to the snapshot the names were resolved on, so an edit published
+    // mid-request cannot make the ids point into another graph
+    private RouteResponse route(IndexedGraph g, String from, String to) {
+        int source = id(g, from);
+        int target = id(g, to);
+        RouteEngine current = routeEngine;
+        if (current == null || current.snapshot() != g) {
+            current = new RouteEngine(g, new AStarEngine(g, Heuristic.ZERO));
+            routeEngine = current;
+        }
+        SearchWorkspace workspace = workspaces.poll();
+        if (workspace == null) {
+            workspace = new SearchWorkspace(); // at most one per worker permit ever gets created
+        }
+        PathResult result;
+        try {
+            result = current.engine().findShortestPath(source, target, workspace);
+        } finally {
+            workspaces.add(workspace);
+        }
+        List<PathNode> path = new ArrayList<>(result.getPath().size());
+        for (Node node : result.getPath()) {
+            path.add(new PathNode(node.getName(), node.getLatitude(), node.getLongitude()));
+        }
+        return new RouteResponse(from, to, result.isReachable(),
+                result.isReachable() ? result.getTotalDistance() : null, result.getSettledNodes(), path);
+    }
+
+    private static int id(IndexedGraph g, String name) {
+        int id = g.idOf(name);
+        if (id < 0) {
+            throw new RequestException(400, "Unknown node '" + name + "'");
+        }
+        return id;
+    }
+
+    private static int[] ids(IndexedGraph g, List<String> names) {
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = id(g, names.get(i));
+        }
+        return ids;
+    }
+
+    private static <T> T parse(byte[] body, Class<T> type) {
+        try {
+            return JSON.readValue(body, type);
+        } catch (JsonProcessingException e) {
+            throw new RequestException(400, "Malformed JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new RequestException(400, "Unreadable body: " + e.getMessage());
+        }
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static byte[] error(String message) throws JsonProcessingException {
+        return JSON.writeValueAsBytes(Map.of("error", message));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    // Usage: RoutingServer [--port N] [--workers N] [--queue N] [<file.graph> | --synthetic <nodes>]
+    // Without a graph argument the bundled JSON graph is served.
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int workers = Runtime.getRuntime().availableProcessors();
+        int queue = 256;
+        Graph graph = new Graph();
+        boolean loaded = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--workers" -> workers = Integer.parseInt(args[++i]);
+                case "--queue" -> queue = Integer.parseInt(args[++i]);
+                case "--synthetic" -> {
+                    graph.load(RoadNetworkGenerator.randomGeometric(Integer.parseInt(args[++i]), 150.0, 6.0, 42L));
+                    loaded = true;
+                }
+                default -> {
+                    graph.loadFromBinary(Path.of(args[i]));
+                    loaded = true;
+                }
+            }
+        }
+        if (!loaded) {
+            graph.loadFromJSONResources("/data/nodes.json", "/data/edges.json");
+        }
+        RoutingServer server = new RoutingServer(graph, new InetSocketAddress(port), workers, queue);
+        server.start();
+        System.out.println("Routing server on http://localhost:" + server.port() + " (" + workers
+                + " workers, queue " + queue + ", " + graph.getIndexedGraph().nodeCount() + " nodes)");
+    }
+}
@@ -0,0 +1,440 @@
+package view;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.StrokeLineCap;
+
+import model.IndexedGraph;
+import model.SpatialIndex;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Map of a graph drawn on two canvases instead of one scene-graph node per street and junction:
+// - base: the street network, redrawn only when the viewport moves or resizes
+// - overlay: search highlights, a shaded reachable region, selected nodes and the path, redrawn
+//   in O(highlighted nodes + region edges) and painted node by node while a simulation runs
+// Only what the spatial index reports inside the viewport is drawn. Zoomed out, R-tree subtrees
+// smaller than about a dozen pixels are filled as one block instead of drawing their streets, and junctions
+// are only drawn once they are far enough apart, so the work per frame depends on the window size,
+// not on the graph size. Redraw requests are coalesced to at most one per pulse.
+// Nodes sit wherever the given index puts them: projected latitude/longitude, or the graph's own
+// screen layout (see SpatialIndex.buildOnScreenLayout); the plane is called meters either way.
+// Drag to pan, scroll to zoom around the cursor, click a junction to select it.
+final class GraphCanvas extends Pane {
+
+    static final byte NOT_HIGHLIGHTED = 0;
+    static final byte IN_QUEUE = 1;
+    static final byte VISITED = 2;
+
+    private static final Color NODE_DEFAULT_COLOR = Color.BLUE;
+    private static final Color NODE_START_COLOR = Color.GREEN;
+    private static final Color NODE_END_COLOR = Color.DARKRED;
+    private static final Color NODE_VISITED_COLOR = Color.ORANGE;
+    private static final Color NODE_IN_QUEUE_COLOR = Color.LIGHTBLUE;
+    private static final Color PATH_COLOR = Color.RED;
+    private static final Color REGION_COLOR = Color.rgb(0, 160, 80, 0.35);
+    private static final Color EDGE_DEFAULT_COLOR = Color.GRAY;
+    private static final Color CLUSTER_COLOR = Color.gray(0.5, 0.6);
+    private static final Color LABEL_COLOR = Color.BLACK;
+
+    private static final double STREET_DETAIL_PX = 12; // smaller subtrees are filled, not stroked
+    private static final double NODE_DETAIL_PX = 12; // denser junctions are not drawn at all
+    private static final int MAX_NODE_MARKERS = 20_000;
+    private static final int MAX_LABELS = 150;
+    private static final double NODE_RADIUS_PX = 8;
+    private static final double SMALL_NODE_RADIUS_PX = 3;
+    private static final double HIT_RADIUS_PX = 10;
+    private static final double CLICK_SLOP_PX = 3; // a press that moves further is a drag
+    private static final double MAX_PIXELS_PER_METER = 20;
+
+    private final Canvas base = new Canvas();
+    private final Canvas overlay = new Canvas();
+    private final ReadOnlyStringWrapper renderInfo = new ReadOnlyStringWrapper("");
+
+    private IndexedGraph graph;
+    private SpatialIndex index;
+
+    // viewport: projected point at the canvas centre and zoom in pixels per meter
+    private double centerX;
+    private double centerY;
+    private double scale = 1;
+    private double minScale = 1e-9;
+    private boolean fitPending;
+
+    private boolean baseDirty;
+    private boolean overlayDirty;
+    private double markerRadius; // radius junctions were drawn with in the last base frame, 0 if hidden
+    private int[] visibleNodes = new int[1024];
+
+    // highlight state per node id; only the touched ids are reset, not every node
+    private byte[] highlight = new byte[0];
+    private int[] touched = new int[256];
+    private int touchedCount;
+    private int startNode = -1;
+    private int endNode = -1;
+    private int[] path = new int[0];
+    // reachable region: street pieces from regionFrom towards regionTo, regionFraction of the way
+    private int[] regionFrom = new int[0];
+    private int[] regionTo = new int[0];
+    private double[] regionFraction = new double[0];
+
+    private IntConsumer onNodeClicked = node -> {};
+    private double pressX;
+    private double pressY;
+    private double dragX;
+    private double dragY;
+    private boolean dragging;
+
+    GraphCanvas() {
+        getChildren().addAll(base, overlay);
+        overlay.setMouseTransparent(true);
+        setMinSize(0, 0);
+
+        setOnMousePressed(this::mousePressed);
+        setOnMouseDragged(this::mouseDragged);
+        setOnMouseReleased(this::mouseReleased);
+        setOnMouseMoved(e -> setCursor(nodeAt(e.getX(), e.getY()) >= 0 ? Cursor.HAND : Cursor.DEFAULT));
+        setOnScroll(this::scrolled);
+
+        new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (baseDirty) {
+                    drawBase();
+                }
+                if (overlayDirty) {
+                    drawOverlay();
+                }
+            }
+        }.start();
+    }
+
+    // Shows a new graph, zoomed to fit; clears the selection, highlights, region and path
+    void setGraph(IndexedGraph graph, SpatialIndex index) {
+        this.graph = graph;
+        this.index = index;
+        highlight = new byte[graph.nodeCount()];
+        touchedCount = 0;
+        startNode = -1;
+        endNode = -1;
+        path = new int[0];
+        regionFrom = new int[0];
+        regionTo = new int[0];
+        regionFraction = new double[0];
+        fitPending = true;
+        requestLayout();
+        baseDirty = true;
+        overlayDirty = true;
+    }
+
+    void setOnNodeClicked(IntConsumer handler) {
+        onNodeClicked = handler;
+    }
+
+    // e.g. "12,345 streets, 210 blocks, 3.1 ms" for the last base frame
+    ReadOnlyStringProperty renderInfoProperty() {
+        return renderInfo.getReadOnlyProperty();
+    }
+
+    void setEndpoints(int start, int end) {
+        startNode = start;
+        endNode = end;
+        overlayDirty = true;
+    }
+
+    void markInQueue(int node) {
+        if (highlight[node] == NOT_HIGHLIGHTED) {
+            setHighlight(node, IN_QUEUE, NODE_IN_QUEUE_COLOR);
+        }
+    }
+
+    void markVisited(int node) {
+        if (highlight[node] != VISITED) {
+            setHighlight(node, VISITED, NODE_VISITED_COLOR);
+        }
+    }
+
+    private void setHighlight(int node, byte state, Color color) {
+        if (highlight[node] == NOT_HIGHLIGHTED) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, 2 * touched.length);
+            }
+            touched[touchedCount++] = node;
+        }
+        highlight[node] = state;
+        if (!overlayDirty && node != startNode && node != endNode) { // paint just this node
+            paintNode(overlay.getGraphicsContext2D(), node, color);
+        }
+    }
+
+    // O(highlighted nodes)
+    void clearHighlights() {
+        for (int i = 0; i < touchedCount; i++) {
+            highlight[touched[i]] = NOT_HIGHLIGHTED;
+        }
+        touchedCount = 0;
+        overlayDirty = true;
+    }
+
+    void setPath(int[] nodes) {
+        path = nodes.clone();
+        overlayDirty = true;
+    }
+
+    void clearPath() {
+        path = new int[0];
+        overlayDirty = true;
+    }
+
+    // Shades street i from node from[i] to fraction[i] of the way to node to[i] (1 = the whole street)
+    void setRegion(int[] from, int[] to, double[] fraction) {
+        regionFrom = from.clone();
+        regionTo = to.clone();
+        regionFraction = fraction.clone();
+        overlayDirty = true;
+    }
+
+    void clearRegion() {
+        regionFrom = new int[0];
+        regionTo = new int[0];
+        regionFraction = new double[0];
+        overlayDirty = true;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (base.getWidth() != width || base.getHeight() != height) {
+            base.setWidth(width);
+            base.setHeight(height);
+            overlay.setWidth(width);
+            overlay.setHeight(height);
+            baseDirty = true;
+            overlayDirty = true;
+        }
+        if (fitPending && width > 0 && height > 0 && index != null) {
+            fitToGraph(width, height);
+            fitPending = false;
+        }
+    }
+
+    private void fitToGraph(double width, double height) {
+        double[] bounds = index.bounds();
+        double spanX = Math.max(bounds[2] - bounds[0], 1);
+        double spanY = Math.max(bounds[3] - bounds[1], 1);
+        centerX = (bounds[0] + bounds[2]) / 2;
+        centerY = (bounds[1] + bounds[3]) / 2;
+        scale = Math.min(MAX_PIXELS_PER_METER, 0.9 * Math.min(width / spanX, height / spanY));
+        minScale = scale / 4;
+        baseDirty = true;
+        overlayDirty = true;
+    }
+
+    // projected meters <-> canvas pixels (y grows northwards in the plane, downwards on screen)
+    private double screenX(double x) { return (x - centerX) * scale + base.getWidth() / 2; }
+    private double screenY(double y) { return (centerY - y) * scale + base.getHeight() / 2; }
+    private double planeX(double sx) { return (sx - base.getWidth() / 2) / scale + centerX; }
+    private double planeY(double sy) { return centerY - (sy - base.getHeight() / 2) / scale; }
+
+    private void drawBase() {
+        baseDirty = false;
+        overlayDirty = true; // marker size may have changed
+        long start = System.nanoTime();
+        GraphicsContext gc = base.getGraphicsContext2D();
+        double width = base.getWidth();
+        double height = base.getHeight();
+        gc.clearRect(0, 0, width, height);
+        if (index == null) {
+            return;
+        }
+        double minX = planeX(0);
+        double maxX = planeX(width);
+        double minY = planeY(height);
+        double maxY = planeY(0);
+
+        int[] counts = new int[2]; // streets, blocks
+        gc.setStroke(EDGE_DEFAULT_COLOR);
+        gc.setLineWidth(1.5);
+        gc.setFill(CLUSTER_COLOR);
+        gc.beginPath(); // one path for all streets, stroked once
+        index.visitSegments(minX, minY, maxX, maxY, STREET_DETAIL_PX / scale, new SpatialIndex.SegmentVisitor() {
+            @Override
+            public void segment(int edge, double x1, double y1, double x2, double y2) {
+                gc.moveTo(screenX(x1), screenY(y1));
+                gc.lineTo(screenX(x2), screenY(y2));
+                counts[0]++;
+            }
+
+            @Override
+            public void cluster(double bMinX, double bMinY, double bMaxX, double bMaxY) {
+                gc.fillRect(screenX(bMinX), screenY(bMaxY),
+                        Math.max(1, (bMaxX - bMinX) * scale), Math.max(1, (bMaxY - bMinY) * scale));
+                counts[1]++;
+            }
+        });
+        gc.stroke();
+
+        int[] visible = {0};
+        index.visitNodes(minX, minY, maxX, maxY, NODE_DETAIL_PX / scale, new SpatialIndex.NodeVisitor() {
+            @Override
+            public void node(int id, double x, double y) {
+                if (visible[0] == visibleNodes.length) {
+                    visibleNodes = Arrays.copyOf(visibleNodes, 2 * visibleNodes.length);
+                }
+                visibleNodes[visible[0]++] = id;
+            }
+
+            @Override
+            public void cluster(double bMinX, double bMinY, double bMaxX, double bMaxY) {
+                // too dense to show junctions; the streets already show the area
+            }
+        });
+        int nodes = visible[0];
+        markerRadius = nodes > MAX_NODE_MARKERS ? 0 : nodes > MAX_LABELS ? SMALL_NODE_RADIUS_PX : NODE_RADIUS_PX;
+        if (markerRadius > 0) {
+            gc.setFill(NODE_DEFAULT_COLOR);
+            for (int i = 0; i < nodes; i++) {
+                int id = visibleNodes[i];
+                gc.fillOval(screenX(index.nodeX(id)) - markerRadius, screenY(index.nodeY(id)) - markerRadius,
+                        2 * markerRadius, 2 * markerRadius);
+            }
+        }
+        if (nodes <= MAX_LABELS) {
+            gc.setFill(LABEL_COLOR);
+            for (int i = 0; i < nodes; i++) {
+                int id = visibleNodes[i];
+                gc.fillText(graph.node(id).getName(), screenX(index.nodeX(id)) + 10, screenY(index.nodeY(id)) - 10);
+            }
+        }
+        renderInfo.set(String.format("%,d streets, %,d blocks, %,d junctions, %.1f ms",
+                counts[0], counts[1], markerRadius > 0 ? nodes : 0, (System.nanoTime() - start) / 1e6));
+    }
+
+    private void drawOverlay() {
+        overlayDirty = false;
+        GraphicsContext gc = overlay.getGraphicsContext2D();
+        gc.clearRect(0, 0, overlay.getWidth(), overlay.getHeight());
+        if (index == null) {
+            return;
+        }
+        if (regionFrom.length > 0) {
+            gc.setStroke(REGION_COLOR);
+            gc.setLineWidth(Math.max(4, Math.min(2 * NODE_RADIUS_PX, 40 * scale)));
+            gc.setLineCap(StrokeLineCap.ROUND);
+            gc.beginPath();
+            for (int i = 0; i < regionFrom.length; i++) {
+                double x1 = index.nodeX(regionFrom[i]);
+                double y1 = index.nodeY(regionFrom[i]);
+                double x2 = x1 + (index.nodeX(regionTo[i]) - x1) * regionFraction[i];
+                double y2 = y1 + (index.nodeY(regionTo[i]) - y1) * regionFraction[i];
+                gc.moveTo(screenX(x1), screenY(y1));
+                gc.lineTo(screenX(x2), screenY(y2));
+            }
+            gc.stroke();
+            gc.setLineCap(StrokeLineCap.SQUARE);
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            int node = touched[i];
+            if (node != startNode && node != endNode) {
+                paintNode(gc, node, highlight[node] == VISITED ? NODE_VISITED_COLOR : NODE_IN_QUEUE_COLOR);
+            }
+        }
+        if (path.length > 1) {
+            gc.setStroke(PATH_COLOR);
+            gc.setLineWidth(3);
+            gc.beginPath();
+            gc.moveTo(screenX(index.nodeX(path[0])), screenY(index.nodeY(path[0])));
+            for (int i = 1; i < path.length; i++) {
+                gc.lineTo(screenX(index.nodeX(path[i])), screenY(index.nodeY(path[i])));
+            }
+            gc.stroke();
+        }
+        if (startNode >= 0) {
+            paintNode(gc, startNode, NODE_START_COLOR);
+        }
+        if (endNode >= 0) {
+            paintNode(gc, endNode, NODE_END_COLOR);
+        }
+    }
+
+    // Off-screen nodes are skipped by the bounds check; highlights stay visible when junctions are hidden
+    private void paintNode(GraphicsContext gc, int node, Color color) {
+        double radius = markerRadius > 0 ? markerRadius : SMALL_NODE_RADIUS_PX;
+        double x = screenX(index.nodeX(node));
+        double y = screenY(index.nodeY(node));
+        if (x < -radius || y < -radius || x > overlay.getWidth() + radius || y > overlay.getHeight() + radius) {
+            return;
+        }
+        gc.setFill(color);
+        gc.fillOval(x - radius, y - radius, 2 * radius, 2 * radius);
+    }
+
+    // Node under a canvas position through the spatial index, -1 if none is within reach
+    private int nodeAt(double sx, double sy) {
+        if (index == null) {
+            return -1;
+        }
+        int node = index.nearestNodeAt(planeX(sx), planeY(sy));
+        if (node < 0) {
+            return -1;
+        }
+        double reach = Math.max(HIT_RADIUS_PX, markerRadius);
+        double dx = screenX(index.nodeX(node)) - sx;
+        double dy = screenY(index.nodeY(node)) - sy;
+        return dx * dx + dy * dy <= reach * reach ? node : -1;
+    }
+
+    private void mousePressed(MouseEvent e) {
+        pressX = dragX = e.getX();
+        pressY = dragY = e.getY();
+        dragging = false;
+    }
+
+    private void mouseDragged(MouseEvent e) {
+        if (!dragging && Math.hypot(e.getX() - pressX, e.getY() - pressY) > CLICK_SLOP_PX) {
+            dragging = true;
+        }
+        if (dragging) {
+            centerX -= (e.getX() - dragX) / scale;
+            centerY += (e.getY() - dragY) / scale;
+            dragX = e.getX();
+            dragY = e.getY();
+            baseDirty = true;
+            overlayDirty = true;
+        }
+    }
+
+    private void mouseReleased(MouseEvent e) {
+        if (!dragging && e.getButton() == MouseButton.PRIMARY) {
+            int node = nodeAt(e.getX(), e.getY());
+            if (node >= 0) {
+                onNodeClicked.accept(node);
+            }
+        }
+        dragging = false;
+    }
+
+    private void scrolled(ScrollEvent e) {
+        if (index == null || e.getDeltaY() == 0) {
+            return;
+        }
+        double x = planeX(e.getX()); // keep the point under the cursor in place
+        double y = planeY(e.getY());
+        scale = Math.max(minScale, Math.min(MAX_PIXELS_PER_METER, scale * Math.pow(1.002, e.getDeltaY())));
+        centerX = x - (e.getX() - base.getWidth() / 2) / scale;
+        centerY = y + (e.getY() - base.getHeight() / 2) / scale;
+        baseDirty = true;
+        overlayDirty = true;
+    }
+}
@@ -2,63 +2,66 @@ package view;
 
 import algorithm.DijkstraAlgorithm;
 import algorithm.DijkstraAlgorithm.*; 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import algorithm.RangeSearch;
+import algorithm.SearchWorkspace;
+import algorithm.StreamingStepSink;
+import javafx.animation.AnimationTimer;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
-import javafx.scene.Group;
 import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.control.Tooltip;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Line;
-import javafx.util.Duration;
 
-import model.Edge;
 import model.Graph;
+import model.IndexedGraph;
+import model.SpatialIndex;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 public class MapView {
 
     private Graph graph;
+    private IndexedGraph snapshot; // the graph as drawn; node ids refer to it
     private model.Node startNode = null; 
     private model.Node endNode = null;
 
     // UI Elements
-    private Group mapGroup; // Group for map elements (nodes, edges)
+    private GraphCanvas mapCanvas; // Streets, nodes and search highlights
     private VBox controlPanel;
-    private VBox rootLayout; // Panel for buttons and labels
+    private BorderPane rootLayout; // Map with the panel for buttons and labels on its right
     private Button resetButton;
     private Label statusLabel; // For messages like "Select start node"
     private Label resultLabel; // For distance result
+    private Label renderLabel; // Cost of the last map frame
+    private TextField budgetField; // Distance budget for the reachable area, in meters
+    private Button areaButton; // Shades everything within the budget of the start node
 
     // Simulation control
-    private Timeline simulationTimeline;
-    private List<StepEvent> simulationSteps;
-    private int currentStepIndex;
-
-    // Map JavaFX Circles to model Nodes for easy lookup
-    private Map<model.Node, Circle> nodeCircleMap = new HashMap<>();
-    private Map<Edge, Line> edgeLineMap = new HashMap<>(); // To highlight edges if needed
-
-    private static final Color NODE_DEFAULT_COLOR = Color.BLUE;
-    private static final Color NODE_START_COLOR = Color.GREEN;
-    private static final Color NODE_END_COLOR = Color.DARKRED; // Different end color
-    private static final Color NODE_VISITED_COLOR = Color.ORANGE; // Color for visited nodes
-    private static final Color NODE_IN_QUEUE_COLOR = Color.LIGHTBLUE; // Color for nodes added to queue
-    private static final Color PATH_COLOR = Color.RED;
-    private static final Color EDGE_DEFAULT_COLOR = Color.GRAY;
+    private Task<PathResult> searchTask;
+    private StepPlayback simulationPlayback;
+    private StreamingStepSink simulationSink; // steps stream in from the search thread
+    private Task<?> areaTask; // reachable-area search in progress, if any
+
+    private static final int STEP_BACKLOG = 1_000_000; // steps queued ahead of the animation, at most
+    private static final double TARGET_ANIMATION_SECONDS = 5; // for any search size, if the pulses keep up
+    private static final double MIN_STEPS_PER_SECOND = 10; // a small search still plays one step per 100 ms
+    private static final double MIN_REMAINING_SECONDS = 0.5; // past the target, drain the rest quickly
+    private static final long PULSE_BUDGET_NANOS = 8_000_000; // UI work per pulse
 
     public MapView() {
         loadGraphData();
     }
 
+    // Shows an already loaded graph, e.g. a large binary one
+    public MapView(Graph graph) {
+        this.graph = graph;
+    }
+
     private void loadGraphData() {
         graph = new Graph();
         try {
@@ -70,81 +73,67 @@ public class MapView {
     }
 
     public Parent createContent() {
-        mapGroup = new Group();
-        rootLayout = new VBox(10); 
-        rootLayout.setPadding(new Insets(100));
+        mapCanvas = new GraphCanvas();
+        mapCanvas.setOnNodeClicked(this::handleNodeClick);
 
-        statusLabel = new Label("Select a start node.");
+        statusLabel = new Label("Select a start node. Drag to pan, scroll to zoom.");
         resultLabel = new Label(""); 
+        resultLabel.setWrapText(true);
+        renderLabel = new Label();
+        renderLabel.setWrapText(true);
+        renderLabel.textProperty().bind(mapCanvas.renderInfoProperty());
 
         resetButton = new Button("Reset Selection");
         resetButton.setOnAction(e -> resetSelectionAndSimulation());
         resetButton.setDisable(true); 
 
-        controlPanel = new VBox(10, statusLabel, resultLabel, resetButton); 
+        budgetField = new TextField("2000");
+        budgetField.setPromptText("meters");
+        areaButton = new Button("Show Reachable Area");
+        areaButton.setOnAction(e -> showReachableArea());
+        areaButton.setDisable(true);
+
+        controlPanel = new VBox(10, statusLabel, resultLabel, resetButton,
+                new Label("Reachable within (m):"), budgetField, areaButton, renderLabel); 
         controlPanel.setPadding(new Insets(10));
         controlPanel.setPrefWidth(200);
+        controlPanel.setMinWidth(200);
         controlPanel.setStyle("-fx-border-color: lightgray; -fx-border-width: 0 0 0 1;");
+        statusLabel.setWrapText(true);
         
         drawGraph();
-        rootLayout.getChildren().addAll(controlPanel, mapGroup);
+        rootLayout = new BorderPane(mapCanvas);
+        rootLayout.setRight(controlPanel);
 
         return rootLayout;
     }
 
+    // A graph with its own screen layout (the hand-placed bundled map) is drawn as laid out;
+    // one without (e.g. a binary file converted from GPS data) at its projected coordinates
     private void drawGraph() {
-        mapGroup.getChildren().clear(); 
-        nodeCircleMap.clear();
-        edgeLineMap.clear();
-        // Draw edges first (so nodes appear on top)
-        for (Edge edge : graph.getEdges()) {
-             if (edge.getSource().hashCode() < edge.getDestination().hashCode()) {
-                Line line = new Line(
-                        edge.getSource().getScreenX(), edge.getSource().getScreenY(),
-                        edge.getDestination().getScreenX(), edge.getDestination().getScreenY()
-                );
-                line.setStroke(EDGE_DEFAULT_COLOR);
-                line.setStrokeWidth(1.5); 
-                mapGroup.getChildren().add(line);
-                edgeLineMap.put(edge, line); 
-             }
-        }
-
-        // Draw nodes
-        for (model.Node node : graph.getNodes()) {
-            Circle circle = new Circle(node.getScreenX(), node.getScreenY(), 8, NODE_DEFAULT_COLOR); // Smaller radius?
-            nodeCircleMap.put(node, circle);
-
-            Tooltip tt = new Tooltip(node.getName());
-            Tooltip.install(circle, tt);
-
-            circle.setOnMouseClicked(e -> handleNodeClick(node, circle));
-
-            mapGroup.getChildren().add(circle);
-
-            // Optional: Add labels (can make it cluttered)
-            Label label = new Label(node.getName());
-            label.setLayoutX(node.getScreenX() + 10);
-            label.setLayoutY(node.getScreenY() - 10);
-            mapGroup.getChildren().add(label);
-        }
+        snapshot = graph.getIndexedGraph();
+        SpatialIndex layout = SpatialIndex.hasScreenLayout(snapshot)
+                ? SpatialIndex.buildOnScreenLayout(snapshot) : graph.getSpatialIndex();
+        mapCanvas.setGraph(snapshot, layout);
     }
 
-     private void handleNodeClick(model.Node clickedNode, Circle clickedCircle) {
+     private void handleNodeClick(int clickedId) {
+         model.Node clickedNode = snapshot.node(clickedId);
          // Ignore clicks if simulation is running
-         if (simulationTimeline != null && simulationTimeline.getStatus() == Timeline.Status.RUNNING) {
+         if (simulationPlayback != null) {
              statusLabel.setText("Simulation running. Please wait or reset.");
              return;
          }
 
          if (startNode == null) {
              startNode = clickedNode;
-             clickedCircle.setFill(NODE_START_COLOR);
+             mapCanvas.setEndpoints(clickedId, -1);
              statusLabel.setText("Selected Start: " + startNode.getName() + ". Select end node.");
              resetButton.setDisable(false); // Enable reset button
+             areaButton.setDisable(false);
          } else if (endNode == null && !clickedNode.equals(startNode)) {
              endNode = clickedNode;
-             clickedCircle.setFill(NODE_END_COLOR);
+             mapCanvas.setEndpoints(snapshot.idOf(startNode.getName()), clickedId);
              statusLabel.setText("Selected End: " + endNode.getName() + ". Calculating...");
              runSimulation(); // Start the simulation process
          } else if (clickedNode.equals(startNode)) {
@@ -154,71 +143,200 @@ public class MapView {
          }
      }
 
-
     private void runSimulation() {
         if (startNode == null || endNode == null) return;
 
-        resetButton.setDisable(true); 
         resultLabel.setText(""); 
+        cancelAreaTask();
+        areaButton.setDisable(true);
+        mapCanvas.clearRegion();
 
         resetSimulationHighlights();
 
+        // Run the search as a background task and animate its steps while it is still running;
+        // Reset cancels both. The backlog is bounded, so the worker waits if playback falls behind.
+        StreamingStepSink sink = new StreamingStepSink(STEP_BACKLOG);
+        simulationSink = sink;
         DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph);
-        SimulationResult simResult = dijkstra.findShortestPathWithSimulation(startNode, endNode);
+        model.Node start = startNode;
+        model.Node end = endNode;
+        Task<PathResult> task = new Task<>() {
+            @Override
+            protected PathResult call() {
+                try {
+                    PathResult result = dijkstra.findShortestPath(start, end, sink);
+                    sink.complete(result);
+                    return result;
+                } catch (RuntimeException ex) {
+                    sink.fail(ex);
+                    throw ex;
+                }
+            }
+        };
+        searchTask = task;
+        Thread searchThread = new Thread(task, "dijkstra-search");
+        searchThread.setDaemon(true);
+        searchThread.start();
 
-        simulationSteps = simResult.steps();
-        PathResult finalPath = simResult.finalPathResult();
-        currentStepIndex = 0;
+        simulationPlayback = new StepPlayback(sink);
+        statusLabel.setText("Simulating Dijkstra...");
+        simulationPlayback.start();
+    }
 
-        if (simulationSteps.isEmpty()) {
-             statusLabel.setText("No steps to simulate.");
-             displayFinalPath(finalPath); // Display result directly
-             resetButton.setDisable(false);
-             return;
+    // Service area of the start node: the streets within the budget, cut where the budget runs
+    // out. The search and the street arrays are built on a worker thread, like the simulation,
+    // so a large budget on a large graph does not freeze the window.
+    private void showReachableArea() {
+        double budget;
+        try {
+            budget = Double.parseDouble(budgetField.getText().trim());
+        } catch (NumberFormatException e) {
+            budget = -1;
         }
-
-        // Setup Timeline for step-by-step visualization
-        simulationTimeline = new Timeline();
-        simulationTimeline.setCycleCount(simulationSteps.size()); 
-
-        // Adjust duration for speed (100ms per step)
-        KeyFrame kf = new KeyFrame(Duration.millis(100), e -> processSimulationStep());
-        simulationTimeline.getKeyFrames().add(kf);
-
-        simulationTimeline.setOnFinished(e -> {
-             statusLabel.setText("Simulation finished.");
-             displayFinalPath(finalPath);
-             resetButton.setDisable(false); // Re-enable reset
+        if (!(budget >= 0) || startNode == null) {
+            statusLabel.setText("Enter a distance in meters.");
+            return;
+        }
+        IndexedGraph g = snapshot;
+        int source = g.idOf(startNode.getName());
+        double limit = budget;
+        Task<ReachableArea> task = new Task<>() {
+            @Override
+            protected ReachableArea call() {
+                // a workspace of its own: the worker thread is not the one the UI searches on
+                RangeSearch.Range range = new RangeSearch(g).within(new int[] {source}, limit, new SearchWorkspace());
+                return reachableArea(g, range, limit);
+            }
+        };
+        task.setOnSucceeded(e -> {
+            if (areaTask != task) {
+                return; // reset or superseded meanwhile
+            }
+            areaTask = null;
+            ReachableArea area = task.getValue();
+            mapCanvas.setRegion(area.from(), area.to(), area.fraction());
+            resultLabel.setText(String.format("%,d junctions within %.0f meters (%.2f km)",
+                    area.junctions(), limit, limit / 1000.0));
+            statusLabel.setText("Reachable area ready.");
+            areaButton.setDisable(false);
+        });
+        task.setOnFailed(e -> {
+            if (areaTask != task) {
+                return;
+            }
+            areaTask = null;
+            statusLabel.setText("Reachable area failed: " + task.getException().getMessage());
+            areaButton.setDisable(false);
         });
+        areaTask = task;
+        areaButton.setDisable(true);
+        statusLabel.setText("Computing reachable area...");
+        Thread areaThread = new Thread(task, "reachable-area");
+        areaThread.setDaemon(true);
+        areaThread.start();
+    }
 
-        statusLabel.setText("Simulating Dijkstra...");
-        simulationTimeline.play();
+    private record ReachableArea(int junctions, int[] from, int[] to, double[] fraction) {}
+
+    // Whole streets between reached nodes, then the partial ones on the boundary
+    private static ReachableArea reachableArea(IndexedGraph g, RangeSearch.Range range, double budget) {
+        int streets = range.boundaryEdges().length;
+        for (int node : range.nodes()) {
+            streets += g.endEdge(node) - g.firstEdge(node);
+        }
+        int[] from = new int[streets];
+        int[] to = new int[streets];
+        double[] fraction = new double[streets];
+        int count = 0;
+        for (int i = 0; i < range.size(); i++) {
+            int node = range.nodes()[i];
+            for (int e = g.firstEdge(node), end = g.endEdge(node); e < end; e++) {
+                if (range.distances()[i] + g.weight(e) <= budget) {
+                    from[count] = node;
+                    to[count] = g.target(e);
+                    fraction[count++] = 1;
+                }
+            }
+        }
+        for (int i = 0; i < range.boundaryEdges().length; i++) {
+            from[count] = range.boundarySources()[i];
+            to[count] = g.target(range.boundaryEdges()[i]);
+            fraction[count++] = range.boundaryFractions()[i];
+        }
+        return new ReachableArea(range.size(), Arrays.copyOf(from, count), Arrays.copyOf(to, count),
+                Arrays.copyOf(fraction, count));
     }
 
-    private void processSimulationStep() {
-        if (currentStepIndex >= simulationSteps.size()) {
-            return;
+    // Applies queued steps once per pulse. The rate adapts so the backlog drains by the target
+    // animation time (never slower than MIN_STEPS_PER_SECOND, so small searches still play step
+    // by step), and each pulse stops after PULSE_BUDGET_NANOS of work so the window stays responsive.
+    private final class StepPlayback extends AnimationTimer {
+        private final StreamingStepSink sink;
+        private long startTime = -1;
+        private long lastPulse;
+        private double credit; // steps due but not applied yet, fractional
+
+        StepPlayback(StreamingStepSink sink) {
+            this.sink = sink;
         }
 
-        StepEvent event = simulationSteps.get(currentStepIndex);
+        @Override
+        public void handle(long now) {
+            if (startTime < 0) {
+                startTime = now;
+                lastPulse = now;
+            }
+            double elapsed = (now - startTime) / 1e9;
+            double remaining = Math.max(TARGET_ANIMATION_SECONDS - elapsed, MIN_REMAINING_SECONDS);
+            double rate = Math.max(MIN_STEPS_PER_SECOND, sink.pendingCount() / remaining);
+            credit += rate * (now - lastPulse) / 1e9;
+            lastPulse = now;
+            if (startTime == now) {
+                credit = 1; // show the first step right away
+            }
 
-        // Update UI based on the event type
-        if (event instanceof NodeVisitedEvent visitedEvent) {
-            Circle circle = nodeCircleMap.get(visitedEvent.node());
-            if (circle != null && !visitedEvent.node().equals(startNode) && !visitedEvent.node().equals(endNode)) {
-                circle.setFill(NODE_VISITED_COLOR);
+            int due = (int) credit;
+            credit -= due;
+            long deadline = System.nanoTime() + PULSE_BUDGET_NANOS;
+            for (int applied = 0; applied < due; applied++) {
+                StepEvent event = sink.poll();
+                if (event == null || (applied % 256 == 255 && System.nanoTime() > deadline)) {
+                    if (event != null) {
+                        processSimulationStep(event);
+                    }
+                    credit = 0; // starved or out of time: catch up through the rate, not in one burst
+                    break;
+                }
+                processSimulationStep(event);
             }
-             
+            // complete() happens after the last step is queued, so this sees every step consumed
+            if (sink.isComplete() && sink.pendingCount() == 0) {
+                finishSimulation(sink);
+            }
+        }
+    }
+
+    private void processSimulationStep(StepEvent event) {
+        // Update UI based on the event type; the canvas keeps start and end on top
+        if (event instanceof NodeVisitedEvent visitedEvent) {
+            mapCanvas.markVisited(snapshot.idOf(visitedEvent.node().getName()));
         } else if (event instanceof QueueUpdateEvent queueEvent) {
-             Circle circle = nodeCircleMap.get(queueEvent.node());
-             if (circle != null && !queueEvent.node().equals(startNode) && !queueEvent.node().equals(endNode)) {
-                 if(circle.getFill() != NODE_VISITED_COLOR) {
-                    circle.setFill(NODE_IN_QUEUE_COLOR);
-                 }
-             }
+            mapCanvas.markInQueue(snapshot.idOf(queueEvent.node().getName())); // visited nodes stay orange
         }
+    }
 
-        currentStepIndex++;
+    private void finishSimulation(StreamingStepSink sink) {
+        simulationPlayback.stop();
+        simulationPlayback = null;
+        searchTask = null;
+        simulationSink = null;
+        areaButton.setDisable(false); // the start node is still selected
+        if (sink.failure() != null) {
+            statusLabel.setText("Simulation failed: " + sink.failure().getMessage());
+        } else {
+            statusLabel.setText("Simulation finished.");
+            displayFinalPath(sink.result());
+        }
     }
 
     private void displayFinalPath(PathResult result) {
@@ -229,27 +347,12 @@ public class MapView {
             double distanceKilometers = distanceMeters / 1000.0; 
             resultLabel.setText(String.format("Shortest path: %.1f meters (%.2f km)",
                                               distanceMeters, distanceKilometers));
-             model.Node prev = null;
-             for (model.Node node : result.getPath()) {
-                  Circle circle = nodeCircleMap.get(node);
-                  if (circle != null) {
-                      if (node.equals(startNode)) circle.setFill(NODE_START_COLOR);
-                      else if (node.equals(endNode)) circle.setFill(NODE_END_COLOR);
-                  }
-
-                 // Draw path lines on top
-                 if (prev != null) {
-                     Line pathLine = new Line(
-                             prev.getScreenX(), prev.getScreenY(),
-                             node.getScreenX(), node.getScreenY()
-                     );
-                     pathLine.setStroke(PATH_COLOR);
-                     pathLine.setStrokeWidth(3);
-                     pathLine.setUserData("PATH_LINE"); // Mark as path line for easy removal
-                     mapGroup.getChildren().add(pathLine);
-                 }
-                 prev = node;
+             List<model.Node> pathNodes = result.getPath();
+             int[] ids = new int[pathNodes.size()];
+             for (int i = 0; i < ids.length; i++) {
+                 ids[i] = snapshot.idOf(pathNodes.get(i).getName());
              }
+             mapCanvas.setPath(ids); // Drawn on top of the highlights
              System.out.println("=================================");
              System.out.println(result); // Print detailed path to console
              System.out.println("=================================");
@@ -262,45 +365,46 @@ public class MapView {
     // Reset
     private void resetSelectionAndSimulation() {
          System.out.println("\nResetting selection and simulation...");
-         if (simulationTimeline != null) {
-             simulationTimeline.stop();
-             simulationTimeline = null;
+         if (simulationPlayback != null) {
+             simulationPlayback.stop();
+             simulationPlayback = null;
+         }
+         if (searchTask != null) {
+             searchTask.cancel(); // the search ignores interrupts; the sink's cancel() below stops it
+             searchTask = null;
+         }
+         if (simulationSink != null) {
+             simulationSink.cancel(); // the search stops at its next settled node
          }
+         cancelAreaTask();
 
-         mapGroup.getChildren().removeIf(n -> "PATH_LINE".equals(n.getUserData()));
+         mapCanvas.clearPath();
+         mapCanvas.clearRegion();
+         areaButton.setDisable(true);
 
          resetSimulationHighlights();
-         if(startNode != null) {
-             Circle startCircle = nodeCircleMap.get(startNode);
-             if(startCircle != null) startCircle.setFill(NODE_DEFAULT_COLOR);
-         }
-          if(endNode != null) {
-             Circle endCircle = nodeCircleMap.get(endNode);
-             if(endCircle != null) endCircle.setFill(NODE_DEFAULT_COLOR);
-         }
+         mapCanvas.setEndpoints(-1, -1);
 
         startNode = null;
         endNode = null;
-        simulationSteps = null;
-        currentStepIndex = 0;
+        simulationSink = null;
 
         statusLabel.setText("Select a start node.");
         resultLabel.setText("");
         resetButton.setDisable(true);
     }
 
-    private void resetSimulationHighlights() {
-        for (Map.Entry<model.Node, Circle> entry : nodeCircleMap.entrySet()) {
-            model.Node node = entry.getKey();
-            Circle circle = entry.getValue();
-            if (!node.equals(startNode) && !node.equals(endNode)) {
-                circle.setFill(NODE_DEFAULT_COLOR);
-            } else if (node.equals(startNode)) {
-                circle.setFill(NODE_START_COLOR);
-            } else if (node.equals(endNode)) {
-                circle.setFill(NODE_END_COLOR); 
-            }
+    // Its result is dropped; the range search itself runs to the end on its worker thread
+    private void cancelAreaTask() {
+        if (areaTask != null) {
+            areaTask.cancel();
+            areaTask = null;
         }
     }
 
-}
\ No newline at end of file
+    // Only the nodes the last search touched are reset, not every node of the graph
+    private void resetSimulationHighlights() {
+        mapCanvas.clearHighlights();
+    }
+
+}